@@ -45,6 +45,11 @@ android {
         }
     }
 
+    // MigrationTestHelper reads the exported schemas from the test APK's assets
+    sourceSets {
+        getByName("androidTest").assets.srcDir("$projectDir/schemas")
+    }
+
     buildFeatures {
         viewBinding = true
         buildConfig = true
@@ -80,16 +85,26 @@ dependencies {
     implementation("androidx.room:room-runtime:$roomVersion")
     annotationProcessor("androidx.room:room-compiler:$roomVersion")
     implementation("androidx.room:room-ktx:$roomVersion")
+    implementation("androidx.room:room-paging:$roomVersion")
+    androidTestImplementation("androidx.room:room-testing:$roomVersion")
+
+    // Paging
+    val pagingVersion = "3.2.1"
+    implementation("androidx.paging:paging-runtime:$pagingVersion")
 
     // RecyclerView
     implementation("androidx.recyclerview:recyclerview:1.3.2")
 
+    // WorkManager for imports and exports that outlive the Settings screen
+    implementation("androidx.work:work-runtime:2.9.0")
+
     // Gson for JSON conversion
     implementation("com.google.code.gson:gson:2.10.1")
 
     // Lifecycle components
     val lifecycleVersion = "2.6.2"
     implementation("androidx.lifecycle:lifecycle-viewmodel:$lifecycleVersion")
+    implementation("androidx.lifecycle:lifecycle-viewmodel-ktx:$lifecycleVersion")
     implementation("androidx.lifecycle:lifecycle-livedata:$lifecycleVersion")
     implementation("androidx.lifecycle:lifecycle-runtime:$lifecycleVersion")
     implementation("androidx.lifecycle:lifecycle-common-java8:$lifecycleVersion")
@@ -13,5 +13,6 @@
 -keep @androidx.room.Entity class *
 -keep @androidx.room.Dao class *
 
-# Keep your app's model classes
--keep class com.frozenassets.app.models.** { *; }
\ No newline at end of file
+# Model classes need no keep rules: Room reads and writes them through generated
+# code, and import/export goes through the hand-written Gson adapters in
+# importexport (see InventoryGson), never reflection, so R8 may shrink and rename them.
\ No newline at end of file
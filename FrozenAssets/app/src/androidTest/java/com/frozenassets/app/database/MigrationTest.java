@@ -0,0 +1,112 @@
+package com.frozenassets.app.database;
+
+import android.database.Cursor;
+
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.frozenassets.app.models.FoodCategory;
+import com.frozenassets.app.utils.DateUtils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * Upgrades a version 10 database (the last one before the backfilling migrations) to
+ * the current schema, checking both the resulting schema and the data each backfill
+ * derives: category keys, epoch days and the item_tags links.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+    private static final String TEST_DB = "migration-test";
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), InventoryDatabase.class);
+
+    @Test
+    public void migrate10To18BackfillsDerivedColumns() throws IOException {
+        // Late evening local time, where a UTC day boundary would give the wrong date
+        long frozen = localMillis(LocalDate.of(2024, 3, 9), 23, 30);
+        long expires = localMillis(LocalDate.of(2024, 9, 9), 0, 15);
+
+        try (SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 10)) {
+            db.execSQL("INSERT INTO tags (id, name, isDefault) VALUES (1, 'Raw', 1)");
+            insertItem(db, 1, "Salmon fillet", "  SeaFood ", frozen, expires, "[\"Raw\",\"Smoked\"]");
+            insertItem(db, 2, "Chicken soup", "SOUPS", frozen, null, "[\"Smoked\",\"Raw\",\"\"]");
+            insertItem(db, 3, "Spice mix", "Épices", frozen, expires, "[]");
+        }
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, InventoryDatabase.SCHEMA_VERSION, true,
+                InventoryDatabase.MIGRATION_10_11, InventoryDatabase.MIGRATION_11_12,
+                InventoryDatabase.MIGRATION_12_13, InventoryDatabase.MIGRATION_13_14,
+                InventoryDatabase.MIGRATION_14_15, InventoryDatabase.MIGRATION_15_16,
+                InventoryDatabase.MIGRATION_16_17, InventoryDatabase.MIGRATION_17_18);
+
+        // Same key FoodCategory computes on write, including non-ASCII case folding
+        assertEquals(FoodCategory.toCategoryKey("  SeaFood "), categoryKey(db, 1));
+        assertEquals(FoodCategory.toCategoryKey("SOUPS"), categoryKey(db, 2));
+        assertEquals(FoodCategory.toCategoryKey("Épices"), categoryKey(db, 3));
+
+        // The SQL backfill must agree with DateUtils, which computes them for new rows
+        try (Cursor cursor = db.query(
+                "SELECT frozen_epoch_day, expiration_epoch_day FROM inventory_items WHERE id = ?",
+                new Object[] {1})) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(DateUtils.toEpochDay(new Date(frozen)), Integer.valueOf(cursor.getInt(0)));
+            assertEquals(DateUtils.toEpochDay(new Date(expires)), Integer.valueOf(cursor.getInt(1)));
+        }
+        try (Cursor cursor = db.query(
+                "SELECT frozen_epoch_day, expiration_epoch_day FROM inventory_items WHERE id = ?",
+                new Object[] {2})) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(DateUtils.toEpochDay(new Date(frozen)), Integer.valueOf(cursor.getInt(0)));
+            assertTrue(cursor.isNull(1));
+        }
+
+        // Existing vocabulary is reused, names only found on items are added, blanks are dropped
+        assertEquals(2, count(db, "SELECT COUNT(*) FROM tags"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM tags WHERE name = 'Smoked' AND isDefault = 0"));
+        assertEquals(4, count(db, "SELECT COUNT(*) FROM item_tags"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM item_tags WHERE item_id = 1 AND tag_id = 1"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM item_tags t JOIN tags g ON g.id = t.tag_id " +
+                "WHERE t.item_id = 1 AND g.name = 'Smoked'"));
+        assertEquals(2, count(db, "SELECT COUNT(*) FROM item_tags WHERE item_id = 2"));
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM item_tags WHERE item_id = 3"));
+    }
+
+    private static void insertItem(SupportSQLiteDatabase db, int id, String name, String category,
+                                   long dateFrozen, Long expirationDate, String tags) {
+        db.execSQL("INSERT INTO inventory_items (id, name, category, quantity, maxFreezeDays, " +
+                        "dateFrozen, expirationDate, tags) VALUES (?, ?, ?, 1, 180, ?, ?, ?)",
+                new Object[] {id, name, category, dateFrozen, expirationDate, tags});
+    }
+
+    private static long localMillis(LocalDate date, int hour, int minute) {
+        return date.atTime(hour, minute).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String categoryKey(SupportSQLiteDatabase db, int id) {
+        try (Cursor cursor = db.query("SELECT category_key FROM inventory_items WHERE id = ?", new Object[] {id})) {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getString(0);
+        }
+    }
+
+    private static int count(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getInt(0);
+        }
+    }
+}
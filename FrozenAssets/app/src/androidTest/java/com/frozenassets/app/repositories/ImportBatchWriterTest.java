@@ -0,0 +1,131 @@
+package com.frozenassets.app.repositories;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.frozenassets.app.AppExecutors;
+import com.frozenassets.app.database.InventoryDatabase;
+import com.frozenassets.app.importexport.BundleImporter;
+import com.frozenassets.app.importexport.ExportBundleWriter;
+import com.frozenassets.app.importexport.ItemSink;
+import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.utils.NaturalKey;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Imports that land on an existing row must keep the external-content FTS index
+ * in step with inventory_items, or searches keep finding the overwritten text.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImportBatchWriterTest {
+    private InventoryDatabase database;
+
+    @Before
+    public void createDatabase() {
+        database = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), InventoryDatabase.class)
+                .build();
+    }
+
+    @After
+    public void closeDatabase() {
+        database.close();
+    }
+
+    @Test
+    public void byIdImportOverExistingRowReindexesIt() {
+        int id = (int) database.inventoryDao().insert(item("Salmon fillet"));
+
+        InventoryItem restored = item("Trout fillet");
+        restored.setId(id);
+        try (ImportBatchWriter writer = newWriter()) {
+            writer.add(restored);
+        }
+
+        assertEquals(1, count("SELECT COUNT(*) FROM inventory_items"));
+        assertEquals(0, matches("salmon"));
+        assertEquals(1, matches("trout"));
+    }
+
+    @Test
+    public void changeBundleEditOfExistingRowReindexesIt() throws IOException {
+        int id = (int) database.inventoryDao().insert(item("Salmon fillet"));
+
+        ByteArrayOutputStream changes = new ByteArrayOutputStream();
+        try (ExportBundleWriter bundle = new ExportBundleWriter(changes, InventoryDatabase.SCHEMA_VERSION, 0L)) {
+            bundle.writeDeletions(new MatrixCursor(new String[] {"item_id", "deleted_at"}));
+            try (ItemSink items = bundle.openItems()) {
+                InventoryItem edited = item("Trout fillet");
+                edited.setId(id);
+                items.write(edited);
+            }
+        }
+        try (ImportBatchWriter writer = newWriter()) {
+            // deleted.json switches the writer to BY_ID whatever policy it started with
+            writer.setDuplicatePolicy(ImportBatchWriter.DuplicatePolicy.SKIP_EXISTING);
+            BundleImporter.importBundle(new ByteArrayInputStream(changes.toByteArray()), writer);
+        }
+
+        assertEquals(1, count("SELECT COUNT(*) FROM inventory_items"));
+        assertEquals(0, matches("salmon"));
+        assertEquals(1, matches("trout"));
+    }
+
+    @Test
+    public void updateExistingOverwritesMatchAndReindexesIt() {
+        InventoryItem existing = item("Salmon fillet");
+        existing.setNotes("smoked");
+        existing.setNaturalKey(NaturalKey.of(existing));
+        int id = (int) database.inventoryDao().insert(existing);
+
+        // Same natural key: case and spacing of the name don't count
+        InventoryItem imported = item("SALMON  Fillet");
+        imported.setNotes("poached");
+        try (ImportBatchWriter writer = newWriter()) {
+            writer.setDuplicatePolicy(ImportBatchWriter.DuplicatePolicy.UPDATE_EXISTING);
+            writer.add(imported);
+        }
+
+        assertEquals(1, count("SELECT COUNT(*) FROM inventory_items"));
+        assertEquals(1, count("SELECT COUNT(*) FROM inventory_items WHERE id = ? AND notes = ?", id, "poached"));
+        assertEquals(1, matches("salmon"));
+        assertEquals(0, matches("smoked"));
+        assertEquals(1, matches("poached"));
+    }
+
+    private ImportBatchWriter newWriter() {
+        return new ImportBatchWriter(database, AppExecutors.get(ApplicationProvider.getApplicationContext()), 10, null);
+    }
+
+    private static InventoryItem item(String name) {
+        InventoryItem item = new InventoryItem();
+        item.setName(name);
+        item.setCategory("Fish");
+        item.setQuantity(1);
+        return item;
+    }
+
+    private int matches(String term) {
+        return count("SELECT COUNT(*) FROM inventory_items_fts WHERE inventory_items_fts MATCH ?", term);
+    }
+
+    private int count(String sql, Object... args) {
+        try (Cursor cursor = database.query(sql, args)) {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getInt(0);
+        }
+    }
+}
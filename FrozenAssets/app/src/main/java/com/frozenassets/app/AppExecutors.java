@@ -0,0 +1,191 @@
+package com.frozenassets.app;
+
+import android.content.Context;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The process's threads for database work, owned by FrozenAssetsApplication so
+ * every repository and screen shares them instead of starting pools of its own.
+ *
+ * diskWrite() runs one task at a time, in submission order: SQLite only has one
+ * writer anyway, so a queue in front of it keeps writes from piling up on the
+ * database lock and keeps read-then-write sequences (e.g. "insert the tag unless
+ * it exists") from racing each other. diskRead() is a small pool, also used by
+ * Room for LiveData and paging queries. Idle threads exit, and any task that
+ * waited or ran unusually long is logged with the queue depth at the time.
+ *
+ * Long jobs on other threads (imports, merges, restores run by TransferWorker) hand
+ * each of their transactions to the writer through callOnDiskWrite(), so screen edits
+ * queue between batches instead of contending for the database lock.
+ */
+public final class AppExecutors {
+    private static final String TAG = "AppExecutors";
+    private static final int READ_THREADS = 3;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static final long SLOW_TASK_MS = 500;
+
+    // Only for an Application that isn't ours, e.g. under a test runner
+    private static AppExecutors fallback;
+
+    private final InstrumentedExecutor diskWrite = new InstrumentedExecutor("db-writer", 1);
+    private final InstrumentedExecutor diskRead = new InstrumentedExecutor("db-reader", READ_THREADS);
+
+    AppExecutors() {
+    }
+
+    public static AppExecutors get(Context context) {
+        Context application = context.getApplicationContext();
+        if (application instanceof FrozenAssetsApplication) {
+            return ((FrozenAssetsApplication) application).getExecutors();
+        }
+        synchronized (AppExecutors.class) {
+            if (fallback == null) {
+                fallback = new AppExecutors();
+            }
+            return fallback;
+        }
+    }
+
+    public Executor diskWrite() {
+        return diskWrite;
+    }
+
+    public Executor diskRead() {
+        return diskRead;
+    }
+
+    /**
+     * Runs task on the serial writer and blocks until it is done, returning its result
+     * or rethrowing what it threw. Called on the writer itself it just runs the task, so
+     * code that is already queued there can share helpers with code that isn't.
+     * Interrupts are deferred until the task finishes, as a half-run write can't be undone.
+     */
+    public <T> T callOnDiskWrite(Callable<T> task) throws IOException {
+        if (diskWrite.isPoolThread()) {
+            try {
+                return task.call();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+
+        FutureTask<T> future = new FutureTask<>(task);
+        diskWrite.execute(future);
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // callOnDiskWrite for a task that throws nothing checked
+    public void runOnDiskWrite(Runnable task) {
+        try {
+            callOnDiskWrite(Executors.callable(task));
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Unreachable: a Runnable can't throw it
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "AppExecutors{" + diskWrite + ", " + diskRead + "}";
+    }
+
+    private static final class InstrumentedExecutor implements Executor {
+        private final String name;
+        private final ThreadPoolExecutor pool;
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong slow = new AtomicLong();
+        private final AtomicLong maxWaitMs = new AtomicLong();
+        private final AtomicLong maxRunMs = new AtomicLong();
+        private final ThreadLocal<Boolean> poolThread = new ThreadLocal<>();
+
+        InstrumentedExecutor(String name, int threads) {
+            this.name = name;
+            AtomicInteger count = new AtomicInteger();
+            pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> new Thread(() -> {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        poolThread.set(Boolean.TRUE);
+                        runnable.run();
+                    }, threads == 1 ? name : name + "-" + count.incrementAndGet()));
+            pool.allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        public void execute(@NonNull Runnable task) {
+            long queuedAt = SystemClock.elapsedRealtime();
+            pool.execute(() -> {
+                long startedAt = SystemClock.elapsedRealtime();
+                try {
+                    task.run();
+                } finally {
+                    record(startedAt - queuedAt, SystemClock.elapsedRealtime() - startedAt);
+                }
+            });
+        }
+
+        boolean isPoolThread() {
+            return poolThread.get() != null;
+        }
+
+        private void record(long waitMs, long runMs) {
+            completed.incrementAndGet();
+            maxWaitMs.accumulateAndGet(waitMs, Math::max);
+            maxRunMs.accumulateAndGet(runMs, Math::max);
+            if (waitMs >= SLOW_TASK_MS || runMs >= SLOW_TASK_MS) {
+                slow.incrementAndGet();
+                Log.w(TAG, name + " task waited " + waitMs + " ms and ran " + runMs + " ms; "
+                        + pool.getQueue().size() + " still queued");
+            }
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return name + "{completed=" + completed + ", slow=" + slow + ", queued=" + pool.getQueue().size()
+                    + ", maxWaitMs=" + maxWaitMs + ", maxRunMs=" + maxRunMs + "}";
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.frozenassets.app;
+
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Configuration;
+
+/**
+ * The manifest removes androidx.startup's InitializationProvider, which is what
+ * normally initializes WorkManager, so it is configured on demand from here.
+ * Also owns the process-wide database threads (see AppExecutors).
+ */
+public class FrozenAssetsApplication extends Application implements Configuration.Provider {
+    private static final String TAG = "FrozenAssetsApplication";
+
+    private AppExecutors executors;
+
+    public synchronized AppExecutors getExecutors() {
+        if (executors == null) {
+            executors = new AppExecutors();
+        }
+        return executors;
+    }
+
+    @NonNull
+    @Override
+    public Configuration getWorkManagerConfiguration() {
+        return new Configuration.Builder()
+                .setMinimumLoggingLevel(Log.INFO)
+                .build();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            // Left the foreground: a good moment to see how the database threads coped
+            Log.d(TAG, "Executor stats: " + getExecutors());
+        }
+    }
+}
@@ -1,17 +1,32 @@
 package com.frozenassets.app.ViewModels;
 
 import android.app.Application;
+import android.net.Uri;
 
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Transformations;
-
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+
+import com.frozenassets.app.models.CategoryCount;
+import com.frozenassets.app.models.ImportCheckpoint;
 import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.models.InventoryListRow;
 import com.frozenassets.app.models.SortOrder;
+import com.frozenassets.app.models.TagCount;
+import com.frozenassets.app.repositories.ImportBatchWriter;
 import com.frozenassets.app.repositories.InventoryRepository;
+import com.frozenassets.app.workers.TransferWorker;
 
 import java.util.List;
+import java.util.Set;
+
+import kotlinx.coroutines.CoroutineScope;
 
 public class InventoryViewModel extends AndroidViewModel {
     private final InventoryRepository repository;
@@ -55,6 +70,27 @@ public class InventoryViewModel extends AndroidViewModel {
         return repository.getItemsByCategory(category, sortOrder);
     }
 
+    // Paged list screens, cached in this ViewModel's scope so they survive rotation
+    public LiveData<PagingData<InventoryListRow>> getPagedRows(SortOrder sortOrder) {
+        return PagingLiveData.cachedIn(repository.getPagedRows(sortOrder), viewModelScope());
+    }
+
+    public LiveData<PagingData<InventoryListRow>> getPagedExpiringRows(SortOrder sortOrder) {
+        return PagingLiveData.cachedIn(repository.getPagedRowsNearingExpiration(sortOrder), viewModelScope());
+    }
+
+    public LiveData<PagingData<InventoryListRow>> getPagedRowsByCategory(String category, SortOrder sortOrder) {
+        return PagingLiveData.cachedIn(repository.getPagedRowsByCategory(category, sortOrder), viewModelScope());
+    }
+
+    public LiveData<PagingData<InventoryListRow>> searchPagedRows(String query) {
+        return PagingLiveData.cachedIn(repository.searchPagedRows(query), viewModelScope());
+    }
+
+    private CoroutineScope viewModelScope() {
+        return ViewModelKt.getViewModelScope(this);
+    }
+
     public LiveData<InventoryItem> getItemById(int id) {
         return repository.getItemById(id);
     }
@@ -71,15 +107,92 @@ public class InventoryViewModel extends AndroidViewModel {
         repository.delete(item);
     }
 
+    public void deleteById(int id) {
+        repository.deleteById(id);
+    }
+
+    public void deleteByIds(List<Integer> ids) {
+        repository.deleteByIds(ids);
+    }
+
+    public void deleteAllItemsExcept(Set<Integer> except) {
+        repository.deleteAllItemsExcept(except);
+    }
+
+    public void deleteExpiringItemsExcept(Set<Integer> except) {
+        repository.deleteItemsNearingExpirationExcept(except);
+    }
+
+    // Import/export runs as unique background work; at most one WorkInfo, or null when idle
+    public LiveData<WorkInfo> getTransferWorkInfo() {
+        return Transformations.map(
+                WorkManager.getInstance(getApplication()).getWorkInfosForUniqueWorkLiveData(TransferWorker.UNIQUE_WORK_NAME),
+                infos -> infos == null || infos.isEmpty() ? null : infos.get(0));
+    }
+
+    public void startImport(Uri uri, ImportBatchWriter.DuplicatePolicy duplicatePolicy) {
+        TransferWorker.enqueue(getApplication(), TransferWorker.importRequest(uri, duplicatePolicy));
+    }
+
+    public void resumeImport() {
+        TransferWorker.enqueue(getApplication(), TransferWorker.resumeRequest());
+    }
+
+    public void startExport(Uri uri, String format) {
+        TransferWorker.enqueue(getApplication(), TransferWorker.exportRequest(uri, format));
+    }
+
+    public void startMerge(Uri uri, ImportBatchWriter.DuplicatePolicy duplicatePolicy) {
+        TransferWorker.enqueue(getApplication(), TransferWorker.mergeRequest(uri, duplicatePolicy));
+    }
+
+    public void startRestore(Uri uri) {
+        TransferWorker.enqueue(getApplication(), TransferWorker.restoreRequest(uri));
+    }
+
+    public void cancelTransfer() {
+        WorkManager.getInstance(getApplication()).cancelUniqueWork(TransferWorker.UNIQUE_WORK_NAME);
+    }
+
+    // Forgets finished transfers once their result has been shown, so it isn't shown again
+    public void clearFinishedTransfers() {
+        WorkManager.getInstance(getApplication()).pruneWork();
+    }
+
+    public LiveData<ImportCheckpoint> getImportCheckpoint() {
+        return repository.getImportCheckpoint();
+    }
+
+    public void discardImportCheckpoint() {
+        repository.discardImportCheckpoint();
+    }
+
+    public long getLastExportTime() {
+        return repository.getLastExportTime();
+    }
+
     // Category operations
     public LiveData<List<String>> getAllCategories() {
         return allCategories;
     }
 
+    public LiveData<List<CategoryCount>> getCategoryCounts() {
+        return repository.getCategoryCounts();
+    }
+
     public LiveData<Integer> getItemCountByCategory(String category) {
         return repository.getItemCountByCategory(category);
     }
 
+    // Tag operations
+    public LiveData<List<InventoryItem>> getItemsByTag(String tagName) {
+        return repository.getItemsByTag(tagName);
+    }
+
+    public LiveData<List<TagCount>> getTagCounts() {
+        return repository.getTagCounts();
+    }
+
     // Search operations
     public LiveData<List<InventoryItem>> searchItems(String query) {
         return repository.searchItems(query);
@@ -90,6 +203,10 @@ public class InventoryViewModel extends AndroidViewModel {
         return repository.getItemCount();
     }
 
+    public LiveData<Integer> getExpiringItemCount() {
+        return repository.getItemCountNearingExpiration();
+    }
+
     // Batch operations
     public void insertAll(List<InventoryItem> items) {
         repository.insertAll(items);
@@ -18,6 +18,7 @@ import androidx.appcompat.widget.Toolbar;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.activity.OnBackPressedCallback;
 
+import com.frozenassets.app.AppExecutors;
 import com.frozenassets.app.R;
 import com.frozenassets.app.models.FoodCategory;
 import com.frozenassets.app.models.InventoryItem;
@@ -338,26 +339,30 @@ public class AddItemActivity extends AppCompatActivity {
     }
     
     private void addCustomTag(String tagName) {
-        // Check if tag already exists
-        new Thread(() -> {
-            Tag existingTag = InventoryDatabase.getDatabase(this).tagDao().getTagByName(tagName);
-            if (existingTag == null) {
-                Tag newTag = new Tag(tagName, false);
-                InventoryDatabase.getDatabase(this).tagDao().insert(newTag);
-                
-                runOnUiThread(() -> {
-                    Snackbar.make(findViewById(android.R.id.content),
-                            "Tag '" + tagName + "' added successfully",
-                            Snackbar.LENGTH_SHORT).show();
-                });
-            } else {
-                runOnUiThread(() -> {
-                    Snackbar.make(findViewById(android.R.id.content),
-                            "Tag already exists",
-                            Snackbar.LENGTH_SHORT).show();
-                });
+        // Check and insert on the serial writer, so two quick adds can't both miss the check
+        AppExecutors.get(this).diskWrite().execute(() -> {
+            try {
+                Tag existingTag = InventoryDatabase.getDatabase(this).tagDao().getTagByName(tagName);
+                if (existingTag == null) {
+                    Tag newTag = new Tag(tagName, false);
+                    InventoryDatabase.getDatabase(this).tagDao().insert(newTag);
+
+                    runOnUiThread(() -> {
+                        Snackbar.make(findViewById(android.R.id.content),
+                                "Tag '" + tagName + "' added successfully",
+                                Snackbar.LENGTH_SHORT).show();
+                    });
+                } else {
+                    runOnUiThread(() -> {
+                        Snackbar.make(findViewById(android.R.id.content),
+                                "Tag already exists",
+                                Snackbar.LENGTH_SHORT).show();
+                    });
+                }
+            } catch (Exception e) {
+                Log.e("AddItemActivity", "Error adding custom tag: " + tagName, e);
             }
-        }).start();
+        });
     }
 
     private void setupFreezeTimeControls() {
@@ -20,26 +20,30 @@ import androidx.core.view.GravityCompat;
 import androidx.drawerlayout.widget.DrawerLayout;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.PagingData;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.activity.OnBackPressedCallback;
 
 import com.frozenassets.app.R;
 import com.frozenassets.app.adapters.InventoryAdapter;
-import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.models.InventoryListRow;
 import com.frozenassets.app.models.SortOrder;
 import com.frozenassets.app.ViewModels.InventoryViewModel;
+import com.frozenassets.app.utils.CategoryDrawerMenu;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.navigation.NavigationView;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class AllItemsActivity extends AppCompatActivity implements NavigationView.OnNavigationItemSelectedListener {
     private static final String TAG = "AllItemsActivity";
     private DrawerLayout drawerLayout;
+    private CategoryDrawerMenu categoryDrawerMenu;
     private InventoryViewModel viewModel;
     private InventoryAdapter adapter;
-    private LiveData<List<InventoryItem>> allItemsLiveData = null;
+    private LiveData<PagingData<InventoryListRow>> allItemsLiveData = null;
     private ActionMode actionMode;
     private ActionMode.Callback actionModeCallback;
     private SortOrder currentSortOrder = SortOrder.EXPIRATION_ASC;
@@ -131,15 +135,14 @@ public class AllItemsActivity extends AppCompatActivity implements NavigationVie
                 allItemsLiveData.removeObservers(this);
             }
 
-            allItemsLiveData = viewModel.getAllItems(currentSortOrder);
+            allItemsLiveData = viewModel.getPagedRows(currentSortOrder);
             if (allItemsLiveData != null) {
-                allItemsLiveData.observe(this, items -> {
+                allItemsLiveData.observe(this, pagingData -> {
                     if (isFinishing() || isDestroyed()) return;
                     
-                    Log.d(TAG, "Updating all items. Count: " + (items != null ? items.size() : 0) + " with sort order: " + currentSortOrder);
+                    Log.d(TAG, "Updating all items with sort order: " + currentSortOrder);
                     if (adapter != null) {
-                        adapter.submitList(null); // Clear current list
-                        adapter.submitList(items); // Add new items
+                        adapter.submitData(getLifecycle(), pagingData);
                     }
                 });
             }
@@ -162,6 +165,7 @@ public class AllItemsActivity extends AppCompatActivity implements NavigationVie
                 drawerLayout.addDrawerListener(toggle);
                 toggle.syncState();
                 navigationView.setNavigationItemSelectedListener(this);
+                categoryDrawerMenu = new CategoryDrawerMenu(this, navigationView);
                 Log.d(TAG, "Navigation drawer setup complete");
             } else {
                 Log.e(TAG, "Navigation drawer components not found in layout");
@@ -174,6 +178,16 @@ public class AllItemsActivity extends AppCompatActivity implements NavigationVie
     private void setupViewModel() {
         try {
             viewModel = new ViewModelProvider(this).get(InventoryViewModel.class);
+            if (categoryDrawerMenu != null) {
+                categoryDrawerMenu.observe(this, viewModel.getCategoryCounts());
+            }
+            // Select all covers every matching item, so its count comes from the database
+            viewModel.getItemCount().observe(this, count -> {
+                if (adapter != null) {
+                    adapter.setMatchingCount(count != null ? count : 0);
+                    updateActionModeTitle();
+                }
+            });
             Log.d(TAG, "ViewModel setup complete");
         } catch (Exception e) {
             Log.e(TAG, "Error setting up ViewModel", e);
@@ -246,30 +260,17 @@ public class AllItemsActivity extends AppCompatActivity implements NavigationVie
         try {
             Log.d(TAG, "Navigation item selected: " + item.getTitle());
             int id = item.getItemId();
+            String category = categoryDrawerMenu != null ? categoryDrawerMenu.getCategory(item) : null;
 
             if (id == R.id.nav_all_items) {
                 // Already on all items, just reload
                 loadAllItems();
             } else if (id == R.id.nav_eat_soon) {
                 startActivity(new Intent(this, EatSoonActivity.class));
-            } else if (id == R.id.nav_chicken) {
-                navigateToCategory(getString(R.string.chicken));
-            } else if (id == R.id.nav_beef) {
-                navigateToCategory(getString(R.string.beef));
-            } else if (id == R.id.nav_pork) {
-                navigateToCategory(getString(R.string.pork));
-            } else if (id == R.id.nav_fish) {
-                navigateToCategory(getString(R.string.fish));
-            } else if (id == R.id.nav_cooked_meals) {
-                navigateToCategory(getString(R.string.cooked_meals));
-            } else if (id == R.id.nav_vegetables) {
-                navigateToCategory(getString(R.string.vegetables));
-            } else if (id == R.id.nav_fruits) {
-                navigateToCategory(getString(R.string.fruits));
-            } else if (id == R.id.nav_other) {
-                navigateToCategory(getString(R.string.other));
             } else if (id == R.id.nav_settings) {
                 startActivity(new Intent(this, SettingsActivity.class));
+            } else if (category != null) {
+                navigateToCategory(category);
             }
 
             drawerLayout.closeDrawer(GravityCompat.START);
@@ -429,27 +430,22 @@ public class AllItemsActivity extends AppCompatActivity implements NavigationVie
         if (adapter == null || viewModel == null) return;
         
         try {
-            // Get selected positions and items
-            java.util.Set<Integer> selectedPositions = adapter.getSelectedPositions();
-            java.util.List<InventoryItem> itemsToDelete = new java.util.ArrayList<>();
-            
-            // Get current list from adapter
-            for (int position : selectedPositions) {
-                if (position < adapter.getItemCount()) {
-                    InventoryItem item = adapter.getCurrentList().get(position);
-                    if (item != null) {
-                        itemsToDelete.add(item);
-                    }
+            int selectedCount = adapter.getSelectedItemCount();
+            if (adapter.isAllMatchingSelected()) {
+                // Resolved against the database, since most rows may never have been paged in
+                viewModel.deleteAllItemsExcept(adapter.getDeselectedIds());
+            } else {
+                // Delete items from database in a single transaction
+                List<InventoryListRow> itemsToDelete = adapter.getSelectedItems();
+                List<Integer> ids = new ArrayList<>(itemsToDelete.size());
+                for (InventoryListRow item : itemsToDelete) {
+                    ids.add(item.getId());
                 }
-            }
-            
-            // Delete items from database
-            for (InventoryItem item : itemsToDelete) {
-                viewModel.delete(item);
+                viewModel.deleteByIds(ids);
             }
             
             // Show success message
-            Toast.makeText(this, getString(R.string.bulk_delete_success, itemsToDelete.size()), 
+            Toast.makeText(this, getString(R.string.bulk_delete_success, selectedCount), 
                           Toast.LENGTH_SHORT).show();
             
             // Exit action mode
@@ -10,18 +10,21 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.lifecycle.LiveData;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.LoadState;
+import androidx.paging.PagingData;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.frozenassets.app.R;
 import com.frozenassets.app.ViewModels.InventoryViewModel;
 import com.frozenassets.app.adapters.InventoryAdapter;
-import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.models.InventoryListRow;
 import com.frozenassets.app.models.SortOrder;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
-import java.util.List;
+import kotlin.Unit;
 
 public class CategoryActivity extends AppCompatActivity {
     private static final String TAG = "CategoryActivity";
@@ -29,6 +32,7 @@ public class CategoryActivity extends AppCompatActivity {
     
     private InventoryViewModel viewModel;
     private InventoryAdapter adapter;
+    private LiveData<PagingData<InventoryListRow>> categoryItemsLiveData = null;
     private String categoryName;
     private SortOrder currentSortOrder = SortOrder.EXPIRATION_ASC;
 
@@ -113,6 +117,17 @@ public class CategoryActivity extends AppCompatActivity {
                     }
                 );
                 recyclerView.setAdapter(adapter);
+
+                // Show empty state once a refresh finishes with no rows
+                adapter.addLoadStateListener(loadStates -> {
+                    if (loadStates.getRefresh() instanceof LoadState.NotLoading
+                            && loadStates.getAppend().getEndOfPaginationReached()
+                            && adapter.getItemCount() == 0
+                            && !isFinishing() && !isDestroyed()) {
+                        Toast.makeText(this, "No items found in " + categoryName, Toast.LENGTH_SHORT).show();
+                    }
+                    return Unit.INSTANCE;
+                });
                 Log.d(TAG, "RecyclerView setup complete");
             } else {
                 Log.e(TAG, "RecyclerView not found in layout");
@@ -143,17 +158,18 @@ public class CategoryActivity extends AppCompatActivity {
 
         try {
             Log.d(TAG, "Loading items for category: " + categoryName + " with sort order: " + currentSortOrder);
-            viewModel.getItemsByCategory(categoryName, currentSortOrder).observe(this, items -> {
+            // Remove previous observer if exists
+            if (categoryItemsLiveData != null) {
+                categoryItemsLiveData.removeObservers(this);
+            }
+
+            categoryItemsLiveData = viewModel.getPagedRowsByCategory(categoryName, currentSortOrder);
+            categoryItemsLiveData.observe(this, pagingData -> {
                 if (isFinishing() || isDestroyed()) return;
                 
-                Log.d(TAG, "Category " + categoryName + " loaded. Count: " + (items != null ? items.size() : 0));
+                Log.d(TAG, "Category " + categoryName + " page data received");
                 if (adapter != null) {
-                    adapter.submitList(items);
-                }
-                
-                // Show empty state if no items
-                if (items == null || items.isEmpty()) {
-                    Toast.makeText(this, "No items found in " + categoryName, Toast.LENGTH_SHORT).show();
+                    adapter.submitData(getLifecycle(), pagingData);
                 }
             });
         } catch (Exception e) {
@@ -18,15 +18,14 @@ import androidx.lifecycle.ViewModelProvider;
 import com.frozenassets.app.R;
 import com.frozenassets.app.models.InventoryItem;
 import com.frozenassets.app.ViewModels.InventoryViewModel;
+import com.frozenassets.app.utils.DateUtils;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.card.MaterialCardView;
 
 import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.Locale;
-import java.util.concurrent.TimeUnit;
 
 
 public class ItemDetailActivity extends AppCompatActivity {
@@ -119,7 +118,7 @@ public class ItemDetailActivity extends AppCompatActivity {
         }
 
         // Calculate and set expiration status
-        long daysUntilExpiration = getDaysUntilExpiration(item.getExpirationDate());
+        long daysUntilExpiration = DateUtils.getDaysUntil(item.getExpirationEpochDay());
         TextView countdownView = findViewById(R.id.text_expiration_countdown);
         MaterialCardView cardView = findViewById(R.id.detail_card);
 
@@ -184,12 +183,6 @@ public class ItemDetailActivity extends AppCompatActivity {
                 .show();
     }
 
-    private long getDaysUntilExpiration(Date expirationDate) {
-        long now = System.currentTimeMillis();
-        long diff = expirationDate.getTime() - now;
-        return TimeUnit.MILLISECONDS.toDays(diff);
-    }
-
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         if (item.getItemId() == android.R.id.home) {
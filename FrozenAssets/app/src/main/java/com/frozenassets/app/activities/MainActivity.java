@@ -17,26 +17,27 @@ import androidx.core.view.GravityCompat;
 import androidx.drawerlayout.widget.DrawerLayout;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.PagingData;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.activity.OnBackPressedCallback;
 
 import com.frozenassets.app.R;
 import com.frozenassets.app.adapters.InventoryAdapter;
-import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.models.InventoryListRow;
 import com.frozenassets.app.models.SortOrder;
 import com.frozenassets.app.ViewModels.InventoryViewModel;
+import com.frozenassets.app.utils.CategoryDrawerMenu;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.navigation.NavigationView;
 
-import java.util.List;
-
 public class MainActivity extends AppCompatActivity implements NavigationView.OnNavigationItemSelectedListener {
     private static final String TAG = "MainActivity";
     private DrawerLayout drawerLayout;
+    private CategoryDrawerMenu categoryDrawerMenu;
     private InventoryViewModel viewModel;
     private InventoryAdapter adapter;
-    private LiveData<List<InventoryItem>> currentItemsLiveData = null;
+    private LiveData<PagingData<InventoryListRow>> currentItemsLiveData = null;
     private SortOrder currentSortOrder = SortOrder.EXPIRATION_ASC;
 
 
@@ -130,15 +131,14 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
             if (currentItemsLiveData != null) {
                 currentItemsLiveData.removeObservers(this);
             }
-            currentItemsLiveData = viewModel.getExpiringItems(currentSortOrder);
+            currentItemsLiveData = viewModel.getPagedExpiringRows(currentSortOrder);
             if (currentItemsLiveData != null) {
-                currentItemsLiveData.observe(this, items -> {
+                currentItemsLiveData.observe(this, pagingData -> {
                     if (isFinishing() || isDestroyed()) return;
                     
-                    Log.d(TAG, "Updating expiring items. Count: " + (items != null ? items.size() : 0) + " with sort order: " + currentSortOrder);
+                    Log.d(TAG, "Updating expiring items with sort order: " + currentSortOrder);
                     if (adapter != null) {
-                        adapter.submitList(null); // Clear current list
-                        adapter.submitList(items); // Add new items
+                        adapter.submitData(getLifecycle(), pagingData);
                     }
                 });
             }
@@ -161,6 +161,7 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
                 drawerLayout.addDrawerListener(toggle);
                 toggle.syncState();
                 navigationView.setNavigationItemSelectedListener(this);
+                categoryDrawerMenu = new CategoryDrawerMenu(this, navigationView);
                 Log.d(TAG, "Navigation drawer setup complete");
             } else {
                 Log.e(TAG, "Navigation drawer components not found in layout");
@@ -173,6 +174,9 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
     private void setupViewModel() {
         try {
             viewModel = new ViewModelProvider(this).get(InventoryViewModel.class);
+            if (categoryDrawerMenu != null) {
+                categoryDrawerMenu.observe(this, viewModel.getCategoryCounts());
+            }
             Log.d(TAG, "ViewModel setup complete");
         } catch (Exception e) {
             Log.e(TAG, "Error setting up ViewModel", e);
@@ -240,30 +244,17 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
         try {
             Log.d(TAG, "Navigation item selected: " + item.getTitle());
             int id = item.getItemId();
+            String category = categoryDrawerMenu != null ? categoryDrawerMenu.getCategory(item) : null;
 
             if (id == R.id.nav_eat_soon) {
                 setTitle(R.string.expiring_items);
                 loadExpiringItems();
-            } else if (id == R.id.nav_chicken) {
-                startCategoryActivity(getString(R.string.chicken));
-            } else if (id == R.id.nav_beef) {
-                startCategoryActivity(getString(R.string.beef));
-            } else if (id == R.id.nav_pork) {
-                startCategoryActivity(getString(R.string.pork));
-            } else if (id == R.id.nav_fish) {
-                startCategoryActivity(getString(R.string.fish));
-            } else if (id == R.id.nav_cooked_meals) {
-                startCategoryActivity(getString(R.string.cooked_meals));
-            } else if (id == R.id.nav_vegetables) {
-                startCategoryActivity(getString(R.string.vegetables));
-            } else if (id == R.id.nav_fruits) {
-                startCategoryActivity(getString(R.string.fruits));
-            } else if (id == R.id.nav_other) {
-                startCategoryActivity(getString(R.string.other));
             } else if (id == R.id.nav_all_items) {
                 startActivity(new Intent(this, AllItemsActivity.class));
             } else if (id == R.id.nav_settings) {
                 startActivity(new Intent(this, SettingsActivity.class));
+            } else if (category != null) {
+                startCategoryActivity(category);
             }
 
             drawerLayout.closeDrawer(GravityCompat.START);
@@ -5,10 +5,12 @@ import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.net.Uri;
 import android.os.Bundle;
+import android.text.format.Formatter;
 import android.os.Environment;
 import android.provider.Settings;
 import android.util.Log;
 import android.view.MenuItem;
+import android.view.View;
 import android.widget.TextView;
 import android.widget.Toast;
 import android.os.Handler;
@@ -28,47 +30,51 @@ import androidx.core.content.ContextCompat;
 import androidx.core.view.GravityCompat;
 import androidx.drawerlayout.widget.DrawerLayout;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.work.Data;
+import androidx.work.WorkInfo;
 import androidx.activity.OnBackPressedCallback;
 
 import com.frozenassets.app.R;
-import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.repositories.ImportBatchWriter;
 import com.frozenassets.app.ViewModels.InventoryViewModel;
+import com.frozenassets.app.models.ImportCheckpoint;
+import com.frozenassets.app.utils.CategoryDrawerMenu;
+import com.frozenassets.app.workers.TransferWorker;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.navigation.NavigationView;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
+import com.google.android.material.progressindicator.LinearProgressIndicator;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileWriter;
-import java.io.InputStreamReader;
-import java.lang.reflect.Type;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class SettingsActivity extends AppCompatActivity implements NavigationView.OnNavigationItemSelectedListener {
     private static final String TAG = "SettingsActivity";
     private static final int PERMISSION_REQUEST_CODE = 123;
     
     private DrawerLayout drawerLayout;
+    private CategoryDrawerMenu categoryDrawerMenu;
     private InventoryViewModel viewModel;
     private TextView tvTotalItems;
     private TextView tvLastExport;
     private TextView tvLastImport;
-    private ExecutorService executorService;
+    private MaterialButton btnResumeImport;
+    private long resumableRows;
+    private View transferGroup;
+    private TextView tvTransferStatus;
+    private LinearProgressIndicator transferProgress;
+    private final List<MaterialButton> transferButtons = new ArrayList<>();
     
     private ActivityResultLauncher<Intent> exportLauncher;
     private ActivityResultLauncher<Intent> importLauncher;
     private String pendingExportFormat;
     private String pendingImportFormat;
+    private ActivityResultLauncher<String> notificationPermissionLauncher;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -85,9 +91,6 @@ public class SettingsActivity extends AppCompatActivity implements NavigationVie
 
             setContentView(R.layout.activity_settings);
 
-            // Initialize executor service
-            executorService = Executors.newSingleThreadExecutor();
-
             // Setup UI components
             setupToolbar();
             setupNavigationDrawer();
@@ -139,6 +142,7 @@ public class SettingsActivity extends AppCompatActivity implements NavigationVie
                 drawerLayout.addDrawerListener(toggle);
                 toggle.syncState();
                 navigationView.setNavigationItemSelectedListener(this);
+                categoryDrawerMenu = new CategoryDrawerMenu(this, navigationView);
                 Log.d(TAG, "Navigation drawer setup complete");
             } else {
                 Log.e(TAG, "Navigation drawer components not found in layout");
@@ -151,6 +155,9 @@ public class SettingsActivity extends AppCompatActivity implements NavigationVie
     private void setupViewModel() {
         try {
             viewModel = new ViewModelProvider(this).get(InventoryViewModel.class);
+            if (categoryDrawerMenu != null) {
+                categoryDrawerMenu.observe(this, viewModel.getCategoryCounts());
+            }
             Log.d(TAG, "ViewModel setup complete");
         } catch (Exception e) {
             Log.e(TAG, "Error setting up ViewModel", e);
@@ -165,13 +172,134 @@ public class SettingsActivity extends AppCompatActivity implements NavigationVie
 
         MaterialButton btnExportCsv = findViewById(R.id.btn_export_csv);
         MaterialButton btnExportJson = findViewById(R.id.btn_export_json);
+        MaterialButton btnExportBundle = findViewById(R.id.btn_export_bundle);
+        MaterialButton btnExportSnapshot = findViewById(R.id.btn_export_snapshot);
+        MaterialButton btnExportChanges = findViewById(R.id.btn_export_changes);
         MaterialButton btnImportCsv = findViewById(R.id.btn_import_csv);
         MaterialButton btnImportJson = findViewById(R.id.btn_import_json);
+        MaterialButton btnMergeDatabase = findViewById(R.id.btn_merge_database);
+        MaterialButton btnBackupDatabase = findViewById(R.id.btn_backup_database);
+        MaterialButton btnRestoreDatabase = findViewById(R.id.btn_restore_database);
 
         btnExportCsv.setOnClickListener(v -> exportData("csv"));
         btnExportJson.setOnClickListener(v -> exportData("json"));
+        btnExportBundle.setOnClickListener(v -> exportData("zip"));
+        btnExportSnapshot.setOnClickListener(v -> exportData("fasnap"));
+        btnExportChanges.setOnClickListener(v -> exportData("changes"));
         btnImportCsv.setOnClickListener(v -> importData("csv"));
         btnImportJson.setOnClickListener(v -> importData("json"));
+        btnMergeDatabase.setOnClickListener(v -> importData("merge"));
+        btnBackupDatabase.setOnClickListener(v -> exportData("db"));
+        btnRestoreDatabase.setOnClickListener(v -> importData("db"));
+
+        btnResumeImport = findViewById(R.id.btn_resume_import);
+        btnResumeImport.setOnClickListener(v -> showResumeConfirmation());
+
+        transferGroup = findViewById(R.id.transfer_progress_group);
+        tvTransferStatus = findViewById(R.id.tv_transfer_status);
+        transferProgress = findViewById(R.id.progress_transfer);
+        MaterialButton btnCancelTransfer = findViewById(R.id.btn_cancel_transfer);
+        btnCancelTransfer.setOnClickListener(v -> viewModel.cancelTransfer());
+        transferButtons.addAll(Arrays.asList(btnExportCsv, btnExportJson, btnExportBundle, btnExportSnapshot,
+                btnExportChanges, btnImportCsv, btnImportJson, btnResumeImport, btnMergeDatabase, btnBackupDatabase,
+                btnRestoreDatabase));
+
+        if (viewModel != null) {
+            viewModel.getImportCheckpoint().observe(this, this::updateResumeButton);
+            viewModel.getTransferWorkInfo().observe(this, this::updateTransferState);
+        }
+    }
+
+    // Imports and exports run as background work; this mirrors its state and reports the result once
+    private void updateTransferState(WorkInfo info) {
+        boolean running = info != null && !info.getState().isFinished();
+        transferGroup.setVisibility(running ? View.VISIBLE : View.GONE);
+        for (MaterialButton button : transferButtons) {
+            button.setEnabled(!running);
+        }
+        if (info == null) {
+            return;
+        }
+        boolean export = info.getTags().contains(TransferWorker.MODE_EXPORT);
+        boolean restore = info.getTags().contains(TransferWorker.MODE_RESTORE);
+        if (running) {
+            long done = info.getProgress().getLong(TransferWorker.KEY_DONE, 0);
+            long total = info.getProgress().getLong(TransferWorker.KEY_TOTAL, 0);
+            if (total > 0) {
+                int percent = (int) Math.min(100, done * 100 / total);
+                transferProgress.setIndeterminate(false);
+                transferProgress.setProgressCompat(percent, true);
+                tvTransferStatus.setText(getString(R.string.transfer_progress_percent, percent));
+            } else {
+                transferProgress.setIndeterminate(true);
+                tvTransferStatus.setText(getString(restore ? R.string.transfer_restoring
+                        : export ? R.string.transfer_exporting : R.string.transfer_importing));
+            }
+            return;
+        }
+
+        showTransferResult(info);
+        viewModel.clearFinishedTransfers();
+    }
+
+    private void showTransferResult(WorkInfo info) {
+        Data output = info.getOutputData();
+        boolean export = info.getTags().contains(TransferWorker.MODE_EXPORT);
+        boolean restore = info.getTags().contains(TransferWorker.MODE_RESTORE);
+        String message;
+        if (info.getState() == WorkInfo.State.CANCELLED) {
+            message = getString(R.string.transfer_cancelled);
+        } else if (info.getState() == WorkInfo.State.FAILED) {
+            String error = output.getString(TransferWorker.KEY_ERROR);
+            if (restore) {
+                message = getString(R.string.restore_failed, error);
+            } else if (export) {
+                message = getString(R.string.export_failed, error);
+            } else if (output.getBoolean(TransferWorker.KEY_RESUMABLE, false)) {
+                // Whatever was committed before the failure is recorded in the checkpoint
+                message = getString(R.string.import_interrupted, error);
+            } else {
+                message = getString(R.string.import_failed, error);
+            }
+        } else if (restore) {
+            // Reported by the relaunched process; the one that swapped the file in exited right after
+            message = getString(R.string.restore_done);
+        } else if (output.getKeyValueMap().containsKey(TransferWorker.KEY_BYTES_WRITTEN)) {
+            message = getString(R.string.backup_successful,
+                    Formatter.formatShortFileSize(this, output.getLong(TransferWorker.KEY_BYTES_WRITTEN, 0)));
+        } else if (export) {
+            message = getString(R.string.export_successful_stats,
+                    output.getLong(TransferWorker.KEY_ROWS_EXPORTED, 0),
+                    output.getLong(TransferWorker.KEY_ROWS_PER_SECOND, 0));
+            updateLastExportTime();
+        } else {
+            long written = output.getLong(TransferWorker.KEY_ROWS_WRITTEN, 0);
+            long skipped = output.getLong(TransferWorker.KEY_ROWS_SKIPPED, 0);
+            long deleted = output.getLong(TransferWorker.KEY_ROWS_DELETED, 0);
+            long duplicates = output.getLong(TransferWorker.KEY_DUPLICATES, 0);
+            if (skipped > 0) {
+                message = getString(R.string.import_successful_with_skipped, written, skipped);
+            } else if (deleted > 0) {
+                message = getString(R.string.import_successful_with_deleted, written, deleted);
+            } else if (duplicates > 0) {
+                message = getString(R.string.import_successful_with_duplicates, written, duplicates);
+            } else {
+                message = getString(R.string.import_successful, written);
+            }
+            updateLastImportTime();
+        }
+        Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+    }
+
+    // The checkpoint row only exists between an interrupted import and its resume
+    private void updateResumeButton(ImportCheckpoint checkpoint) {
+        if (checkpoint == null || !checkpoint.hasProgress()) {
+            btnResumeImport.setVisibility(View.GONE);
+            return;
+        }
+        resumableRows = checkpoint.getRowsWritten();
+        btnResumeImport.setText(getString(R.string.resume_import_progress, resumableRows));
+        btnResumeImport.setVisibility(View.VISIBLE);
     }
 
     private void setupFileActivityResults() {
@@ -192,6 +320,11 @@ public class SettingsActivity extends AppCompatActivity implements NavigationVie
                 }
             });
 
+        // Only affects whether the progress notification is visible; transfers run either way
+        notificationPermissionLauncher = registerForActivityResult(
+            new ActivityResultContracts.RequestPermission(),
+            granted -> Log.d(TAG, "Notification permission granted: " + granted));
+
         importLauncher = registerForActivityResult(
             new ActivityResultContracts.StartActivityForResult(),
             result -> {
@@ -244,6 +377,7 @@ public class SettingsActivity extends AppCompatActivity implements NavigationVie
                 }
             });
         }
+        updateLastExportTime();
     }
 
     private void exportData(String format) {
@@ -260,6 +394,22 @@ public class SettingsActivity extends AppCompatActivity implements NavigationVie
             intent.setType("text/csv");
             intent.putExtra(Intent.EXTRA_TITLE, "frozen_assets_export_" + 
                 new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date()) + ".csv");
+        } else if ("zip".equals(format)) {
+            intent.setType("application/zip");
+            intent.putExtra(Intent.EXTRA_TITLE, "frozen_assets_backup_" + 
+                new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date()) + ".zip");
+        } else if ("changes".equals(format)) {
+            intent.setType("application/zip");
+            intent.putExtra(Intent.EXTRA_TITLE, "frozen_assets_changes_" + 
+                new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date()) + ".zip");
+        } else if ("db".equals(format)) {
+            intent.setType("application/octet-stream");
+            intent.putExtra(Intent.EXTRA_TITLE, "frozen_assets_database_" + 
+                new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date()) + ".db");
+        } else if ("fasnap".equals(format)) {
+            intent.setType("application/octet-stream");
+            intent.putExtra(Intent.EXTRA_TITLE, "frozen_assets_snapshot_" + 
+                new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date()) + ".fasnap");
         } else {
             intent.setType("application/json");
             intent.putExtra(Intent.EXTRA_TITLE, "frozen_assets_export_" + 
@@ -269,92 +419,11 @@ public class SettingsActivity extends AppCompatActivity implements NavigationVie
         exportLauncher.launch(intent);
     }
 
+    // Hands the export to background work, which streams a snapshot of the table into the chosen file
     private void performExport(Uri uri, String format) {
         Toast.makeText(this, getString(R.string.creating_file), Toast.LENGTH_SHORT).show();
-        
-        executorService.execute(() -> {
-            try {
-                // Get all items synchronously on background thread
-                List<InventoryItem> items = new ArrayList<>();
-                viewModel.getAllItems().observe(this, observedItems -> {
-                    if (observedItems != null) {
-                        items.clear();
-                        items.addAll(observedItems);
-                        
-                        // Perform the actual export
-                        try {
-                            if ("csv".equals(format)) {
-                                exportToCsv(uri, items);
-                            } else {
-                                exportToJson(uri, items);
-                            }
-                            
-                            runOnUiThread(() -> {
-                                Toast.makeText(SettingsActivity.this, 
-                                    getString(R.string.export_successful, uri.getPath()), 
-                                    Toast.LENGTH_LONG).show();
-                                updateLastExportTime();
-                            });
-                        } catch (Exception e) {
-                            Log.e(TAG, "Export failed", e);
-                            runOnUiThread(() -> 
-                                Toast.makeText(SettingsActivity.this, 
-                                    getString(R.string.export_failed, e.getMessage()), 
-                                    Toast.LENGTH_LONG).show());
-                        }
-                    }
-                });
-                
-            } catch (Exception e) {
-                Log.e(TAG, "Export failed", e);
-                runOnUiThread(() -> 
-                    Toast.makeText(SettingsActivity.this, 
-                        getString(R.string.export_failed, e.getMessage()), 
-                        Toast.LENGTH_LONG).show());
-            }
-        });
-    }
-
-    private void exportToCsv(Uri uri, List<InventoryItem> items) throws Exception {
-        try (FileWriter writer = new FileWriter(getContentResolver().openFileDescriptor(uri, "w").getFileDescriptor())) {
-            // CSV Header
-            writer.append("Name,Category,Quantity,Date Frozen,Expiration Date,Notes,Tags,Weight,Weight Unit,Max Freeze Days\n");
-            
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            
-            for (InventoryItem item : items) {
-                writer.append(escapeCsvField(item.getName())).append(",");
-                writer.append(escapeCsvField(item.getCategory())).append(",");
-                writer.append(String.valueOf(item.getQuantity())).append(",");
-                writer.append(item.getDateFrozen() != null ? dateFormat.format(item.getDateFrozen()) : "").append(",");
-                writer.append(item.getExpirationDate() != null ? dateFormat.format(item.getExpirationDate()) : "").append(",");
-                writer.append(escapeCsvField(item.getNotes() != null ? item.getNotes() : "")).append(",");
-                writer.append(escapeCsvField(item.getTags() != null ? String.join(";", item.getTags()) : "")).append(",");
-                writer.append(escapeCsvField(item.getWeight() != null ? item.getWeight() : "")).append(",");
-                writer.append(escapeCsvField(item.getWeightUnit() != null ? item.getWeightUnit() : "")).append(",");
-                writer.append(String.valueOf(item.getMaxFreezeDays()));
-                writer.append("\n");
-            }
-            writer.flush();
-        }
-    }
-
-    private void exportToJson(Uri uri, List<InventoryItem> items) throws Exception {
-        Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd").setPrettyPrinting().create();
-        String json = gson.toJson(items);
-        
-        try (FileWriter writer = new FileWriter(getContentResolver().openFileDescriptor(uri, "w").getFileDescriptor())) {
-            writer.write(json);
-            writer.flush();
-        }
-    }
-
-    private String escapeCsvField(String field) {
-        if (field == null) return "";
-        if (field.contains(",") || field.contains("\"") || field.contains("\n")) {
-            return "\"" + field.replace("\"", "\"\"") + "\"";
-        }
-        return field;
+        requestNotificationPermission();
+        viewModel.startExport(uri, format);
     }
 
     private void importData(String format) {
@@ -378,9 +447,14 @@ public class SettingsActivity extends AppCompatActivity implements NavigationVie
             intent.setType("*/*");
             intent.putExtra(Intent.EXTRA_MIME_TYPES, mimeTypes);
             Log.d(TAG, "Configured CSV import with flexible MIME types");
+        } else if ("db".equals(format) || "merge".equals(format)) {
+            String[] mimeTypes = {"application/octet-stream", "application/x-sqlite3", "application/vnd.sqlite3"};
+            intent.setType("*/*");
+            intent.putExtra(Intent.EXTRA_MIME_TYPES, mimeTypes);
         } else {
-            // Accept multiple MIME types for JSON files  
-            String[] mimeTypes = {"application/json", "text/json", "text/plain"};
+            // Accept multiple MIME types for JSON files and compressed backups
+            String[] mimeTypes = {"application/json", "text/json", "text/plain",
+                "application/zip", "application/gzip", "application/octet-stream"};
             intent.setType("*/*");
             intent.putExtra(Intent.EXTRA_MIME_TYPES, mimeTypes);
             Log.d(TAG, "Configured JSON import with flexible MIME types");
@@ -397,213 +471,97 @@ public class SettingsActivity extends AppCompatActivity implements NavigationVie
 
     private void performImport(Uri uri) {
         Log.d(TAG, "Starting import from URI: " + uri);
-        Log.d(TAG, "URI path: " + uri.getPath());
-        Log.d(TAG, "URI scheme: " + uri.getScheme());
+        if ("db".equals(pendingImportFormat)) {
+            pendingImportFormat = null;
+            showRestoreConfirmation(uri);
+            return;
+        }
+        if ("merge".equals(pendingImportFormat)) {
+            pendingImportFormat = null;
+            showImportConfirmation(uri, true);
+            return;
+        }
         
+        // The picker only used the format to filter MIME types; the file itself is sniffed on import
+        pendingImportFormat = null;
+        // Keeps read access across process death so an interrupted import can be resumed
+        try {
+            getContentResolver().takePersistableUriPermission(uri, Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        } catch (SecurityException e) {
+            Log.w(TAG, "Could not persist read permission for " + uri, e);
+        }
+        showImportConfirmation(uri, false);
+    }
+
+    // Streams the file into the database in batches from background work; each batch also
+    // saves a checkpoint, so an import cut short can be resumed from the last batch
+    private void runImport(Uri uri, ImportBatchWriter.DuplicatePolicy duplicatePolicy) {
         Toast.makeText(this, getString(R.string.reading_file), Toast.LENGTH_SHORT).show();
-        
-        executorService.execute(() -> {
-            try {
-                List<InventoryItem> items = new ArrayList<>();
-                String fileName = uri.getLastPathSegment();
-                Log.d(TAG, "File name from URI: " + fileName);
-                
-                // Use the format that was selected by the user button click
-                Log.d(TAG, "Using pending import format: " + pendingImportFormat);
-                if ("csv".equals(pendingImportFormat)) {
-                    Log.d(TAG, "Attempting CSV import based on user selection...");
-                    items = importFromCsv(uri);
-                } else if ("json".equals(pendingImportFormat)) {
-                    Log.d(TAG, "Attempting JSON import based on user selection...");
-                    items = importFromJson(uri);
-                } else {
-                    // Fallback: try to determine from filename
-                    boolean isCsv = false;
-                    if (fileName != null) {
-                        isCsv = fileName.toLowerCase().endsWith(".csv");
-                        Log.d(TAG, "Fallback: determined file type from name - CSV: " + isCsv);
-                    } else {
-                        Log.d(TAG, "Fallback: no filename available, defaulting to CSV");
-                        isCsv = true;
-                    }
-                    
-                    if (isCsv) {
-                        Log.d(TAG, "Fallback: attempting CSV import...");
-                        items = importFromCsv(uri);
-                    } else {
-                        Log.d(TAG, "Fallback: attempting JSON import...");
-                        items = importFromJson(uri);
-                    }
-                }
-                
-                Log.d(TAG, "Import completed successfully. Items found: " + items.size());
-                final List<InventoryItem> finalItems = items;
-                runOnUiThread(() -> showImportConfirmation(finalItems));
-                
-                // Clear the pending import format
-                pendingImportFormat = null;
-                
-            } catch (Exception e) {
-                Log.e(TAG, "Import failed from URI: " + uri, e);
-                pendingImportFormat = null; // Clear on error too
-                runOnUiThread(() -> 
-                    Toast.makeText(SettingsActivity.this, 
-                        getString(R.string.import_failed, e.getMessage()), 
-                        Toast.LENGTH_LONG).show());
-            }
-        });
+        requestNotificationPermission();
+        viewModel.startImport(uri, duplicatePolicy);
     }
 
-    private List<InventoryItem> importFromCsv(Uri uri) throws Exception {
-        Log.d(TAG, "Starting CSV import from URI: " + uri);
-        List<InventoryItem> items = new ArrayList<>();
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(getContentResolver().openInputStream(uri)))) {
-            String header = reader.readLine(); // Skip header
-            Log.d(TAG, "CSV Header: " + header);
-            
-            int lineNumber = 1;
-            String line;
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                if (line.trim().isEmpty()) {
-                    Log.d(TAG, "Skipping empty line " + lineNumber);
-                    continue;
-                }
-                
-                Log.d(TAG, "Processing line " + lineNumber + ": " + line.substring(0, Math.min(50, line.length())) + "...");
-                String[] fields = parseCsvLine(line);
-                Log.d(TAG, "Parsed " + fields.length + " fields from line " + lineNumber);
-                
-                if (fields.length >= 3 && !fields[0].trim().isEmpty() && !fields[1].trim().isEmpty()) {
-                    InventoryItem item = new InventoryItem();
-                    item.setName(fields[0].trim());
-                    item.setCategory(fields[1].trim());
-                    
-                    // Parse quantity with error handling
-                    try {
-                        String quantityStr = fields[2].trim();
-                        if (quantityStr.isEmpty()) {
-                            Log.w(TAG, "Empty quantity field on line " + lineNumber + ", defaulting to 1");
-                            item.setQuantity(1);
-                        } else {
-                            item.setQuantity(Integer.parseInt(quantityStr));
-                        }
-                    } catch (NumberFormatException e) {
-                        Log.w(TAG, "Invalid quantity '" + fields[2] + "' on line " + lineNumber + ", defaulting to 1");
-                        item.setQuantity(1);
-                    }
-                    
-                    // Parse date frozen
-                    if (fields.length > 3 && !fields[3].trim().isEmpty()) {
-                        try {
-                            item.setDateFrozen(dateFormat.parse(fields[3].trim()));
-                        } catch (Exception e) {
-                            Log.w(TAG, "Invalid date frozen '" + fields[3] + "' on line " + lineNumber + ", skipping date");
-                        }
-                    }
-                    
-                    // Parse expiration date
-                    if (fields.length > 4 && !fields[4].trim().isEmpty()) {
-                        try {
-                            item.setExpirationDate(dateFormat.parse(fields[4].trim()));
-                        } catch (Exception e) {
-                            Log.w(TAG, "Invalid expiration date '" + fields[4] + "' on line " + lineNumber + ", skipping date");
-                        }
-                    }
-                    if (fields.length > 5) {
-                        item.setNotes(fields[5]);
-                    }
-                    if (fields.length > 6 && !fields[6].isEmpty()) {
-                        item.setTags(Arrays.asList(fields[6].split(";")));
-                    }
-                    if (fields.length > 7) {
-                        item.setWeight(fields[7]);
-                    }
-                    if (fields.length > 8) {
-                        item.setWeightUnit(fields[8]);
-                    }
-                    if (fields.length > 9 && !fields[9].isEmpty()) {
-                        try {
-                            item.setMaxFreezeDays(Integer.parseInt(fields[9].trim()));
-                        } catch (NumberFormatException e) {
-                            Log.w(TAG, "Invalid maxFreezeDays '" + fields[9] + "' on line " + lineNumber + ", using default");
-                            // Leave default value (will be set by constructor)
-                        }
-                    }
-                    
-                    items.add(item);
-                    Log.d(TAG, "Successfully added item: " + item.getName());
-                } else {
-                    Log.w(TAG, "Line " + lineNumber + " has insufficient fields (" + fields.length + "), skipping");
-                }
-            }
-        }
-        
-        Log.d(TAG, "CSV import completed. Total items: " + items.size());
-        return items;
+    private void runMerge(Uri uri, ImportBatchWriter.DuplicatePolicy duplicatePolicy) {
+        Toast.makeText(this, getString(R.string.reading_file), Toast.LENGTH_SHORT).show();
+        requestNotificationPermission();
+        viewModel.startMerge(uri, duplicatePolicy);
     }
 
-    private List<InventoryItem> importFromJson(Uri uri) throws Exception {
-        StringBuilder jsonBuilder = new StringBuilder();
-        
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(getContentResolver().openInputStream(uri)))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                jsonBuilder.append(line);
-            }
-        }
-        
-        Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd").create();
-        Type listType = new TypeToken<List<InventoryItem>>(){}.getType();
-        return gson.fromJson(jsonBuilder.toString(), listType);
+    private void resumeImport() {
+        Toast.makeText(this, getString(R.string.reading_file), Toast.LENGTH_SHORT).show();
+        requestNotificationPermission();
+        viewModel.resumeImport();
     }
 
-    private String[] parseCsvLine(String line) {
-        List<String> fields = new ArrayList<>();
-        StringBuilder currentField = new StringBuilder();
-        boolean inQuotes = false;
-        
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            
-            if (c == '"') {
-                if (inQuotes && i + 1 < line.length() && line.charAt(i + 1) == '"') {
-                    currentField.append('"');
-                    i++;
-                } else {
-                    inQuotes = !inQuotes;
-                }
-            } else if (c == ',' && !inQuotes) {
-                fields.add(currentField.toString());
-                currentField.setLength(0);
-            } else {
-                currentField.append(c);
-            }
+    private void requestNotificationPermission() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && ContextCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS)
+                    != PackageManager.PERMISSION_GRANTED) {
+            notificationPermissionLauncher.launch(Manifest.permission.POST_NOTIFICATIONS);
         }
-        
-        fields.add(currentField.toString());
-        return fields.toArray(new String[0]);
     }
 
-    private void showImportConfirmation(List<InventoryItem> items) {
+    private void showResumeConfirmation() {
+        new AlertDialog.Builder(this)
+            .setTitle(getString(R.string.resume_import))
+            .setMessage(getString(R.string.resume_import_confirm, resumableRows))
+            .setPositiveButton(getString(R.string.resume_import_action), (dialog, which) -> resumeImport())
+            .setNeutralButton(getString(R.string.discard_import_action), (dialog, which) -> viewModel.discardImportCheckpoint())
+            .setNegativeButton(getString(R.string.cancel), null)
+            .show();
+    }
+
+    // A restore replaces the database file wholesale, so there is nothing to merge or resume
+    private void showRestoreConfirmation(Uri uri) {
         new AlertDialog.Builder(this)
-            .setTitle(getString(R.string.import_confirm_title))
-            .setMessage(getString(R.string.confirm_import, items.size()))
+            .setTitle(getString(R.string.restore_database))
+            .setMessage(getString(R.string.restore_confirm))
+            .setPositiveButton(getString(R.string.restore_action), (dialog, which) -> {
+                requestNotificationPermission();
+                viewModel.startRestore(uri);
+            })
+            .setNegativeButton(getString(R.string.cancel), null)
+            .show();
+    }
+
+    // A merge reads another database file with SQL, so it needs no checkpoint to be resumable
+    private void showImportConfirmation(Uri uri, boolean merge) {
+        // Order matches R.array.import_duplicate_policies
+        ImportBatchWriter.DuplicatePolicy[] policies = {
+            ImportBatchWriter.DuplicatePolicy.SKIP_EXISTING,
+            ImportBatchWriter.DuplicatePolicy.UPDATE_EXISTING,
+            ImportBatchWriter.DuplicatePolicy.INSERT_AS_NEW
+        };
+        int[] selected = {0};
+        new AlertDialog.Builder(this)
+            .setTitle(getString(R.string.confirm_import_file))
+            .setSingleChoiceItems(R.array.import_duplicate_policies, 0, (dialog, which) -> selected[0] = which)
             .setPositiveButton(getString(R.string.import_action), (dialog, which) -> {
-                executorService.execute(() -> {
-                    for (InventoryItem item : items) {
-                        viewModel.insert(item);
-                    }
-                    runOnUiThread(() -> {
-                        Toast.makeText(SettingsActivity.this, 
-                            getString(R.string.import_successful, items.size()), 
-                            Toast.LENGTH_LONG).show();
-                        updateLastImportTime();
-                        loadDataInfo();
-                    });
-                });
+                if (merge) {
+                    runMerge(uri, policies[selected[0]]);
+                } else {
+                    runImport(uri, policies[selected[0]]);
+                }
             })
             .setNegativeButton(getString(R.string.cancel), null)
             .show();
@@ -629,8 +587,14 @@ public class SettingsActivity extends AppCompatActivity implements NavigationVie
         }
     }
 
+    // Persisted by the repository with every export; change exports keep their own baseline
     private void updateLastExportTime() {
-        String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault()).format(new Date());
+        long lastExportAt = viewModel != null ? viewModel.getLastExportTime() : 0L;
+        if (lastExportAt <= 0) {
+            tvLastExport.setText(getString(R.string.last_export_placeholder));
+            return;
+        }
+        String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault()).format(new Date(lastExportAt));
         tvLastExport.setText(getString(R.string.last_export_date, timestamp));
     }
 
@@ -644,6 +608,7 @@ public class SettingsActivity extends AppCompatActivity implements NavigationVie
         try {
             Log.d(TAG, "Navigation item selected: " + item.getTitle());
             int id = item.getItemId();
+            String category = categoryDrawerMenu != null ? categoryDrawerMenu.getCategory(item) : null;
 
             if (id == R.id.nav_settings) {
                 // Already on settings, do nothing
@@ -651,22 +616,8 @@ public class SettingsActivity extends AppCompatActivity implements NavigationVie
                 startActivity(new Intent(this, AllItemsActivity.class));
             } else if (id == R.id.nav_eat_soon) {
                 startActivity(new Intent(this, EatSoonActivity.class));
-            } else if (id == R.id.nav_chicken) {
-                navigateToCategory(getString(R.string.chicken));
-            } else if (id == R.id.nav_beef) {
-                navigateToCategory(getString(R.string.beef));
-            } else if (id == R.id.nav_pork) {
-                navigateToCategory(getString(R.string.pork));
-            } else if (id == R.id.nav_fish) {
-                navigateToCategory(getString(R.string.fish));
-            } else if (id == R.id.nav_cooked_meals) {
-                navigateToCategory(getString(R.string.cooked_meals));
-            } else if (id == R.id.nav_vegetables) {
-                navigateToCategory(getString(R.string.vegetables));
-            } else if (id == R.id.nav_fruits) {
-                navigateToCategory(getString(R.string.fruits));
-            } else if (id == R.id.nav_other) {
-                navigateToCategory(getString(R.string.other));
+            } else if (category != null) {
+                navigateToCategory(category);
             }
 
             drawerLayout.closeDrawer(GravityCompat.START);
@@ -680,19 +631,11 @@ public class SettingsActivity extends AppCompatActivity implements NavigationVie
     private void navigateToCategory(String category) {
         try {
             Intent intent = new Intent(this, CategoryActivity.class);
-            intent.putExtra("category", category);
+            intent.putExtra(CategoryActivity.EXTRA_CATEGORY_NAME, category);
             startActivity(intent);
         } catch (Exception e) {
             Log.e(TAG, "Error navigating to category: " + category, e);
             Toast.makeText(this, "Error opening category", Toast.LENGTH_SHORT).show();
         }
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (executorService != null) {
-            executorService.shutdown();
-        }
-    }
 }
\ No newline at end of file
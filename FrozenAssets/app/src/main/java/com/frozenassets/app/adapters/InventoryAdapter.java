@@ -11,44 +11,54 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.paging.PagingDataAdapter;
 import androidx.recyclerview.widget.DiffUtil;
-import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.frozenassets.app.R;
-import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.models.InventoryListRow;
+import com.frozenassets.app.utils.DateUtils;
 import com.google.android.material.card.MaterialCardView;
 
 import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 
-public class InventoryAdapter extends ListAdapter<InventoryItem, InventoryAdapter.InventoryViewHolder> {
+public class InventoryAdapter extends PagingDataAdapter<InventoryListRow, InventoryAdapter.InventoryViewHolder> {
     private final OnItemClickListener listener;
     private final OnItemLongClickListener longClickListener;
     private static final SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
     
-    // Multi-select state management
+    // Multi-select state management. Keyed by item id because paged rows move
+    // around as pages load and the table changes underneath.
     private boolean isMultiSelectMode = false;
-    private final Set<Integer> selectedItems = new HashSet<>();
+    private final Map<Integer, InventoryListRow> selectedItems = new LinkedHashMap<>();
+
+    // "Select all" means every row the screen's query matches, loaded or not; the
+    // activity resolves it to ids when deleting. Rows tapped off afterwards are
+    // kept as exceptions, and the count comes from the query's COUNT(*).
+    private boolean allMatchingSelected = false;
+    private final Set<Integer> deselectedIds = new HashSet<>();
+    private int matchingCount = 0;
 
     public interface OnItemClickListener {
-        void onItemClick(InventoryItem item);
+        void onItemClick(InventoryListRow item);
     }
     
     public interface OnItemLongClickListener {
-        boolean onItemLongClick(InventoryItem item, int position);
+        boolean onItemLongClick(InventoryListRow item, int position);
     }
 
     // Multi-select methods
     public void setMultiSelectMode(boolean enabled) {
         isMultiSelectMode = enabled;
         if (!enabled) {
-            selectedItems.clear();
+            resetSelection();
         }
         notifyDataSetChanged();
     }
@@ -58,59 +68,93 @@ public class InventoryAdapter extends ListAdapter<InventoryItem, InventoryAdapte
     }
     
     public void toggleItemSelection(int position) {
-        if (selectedItems.contains(position)) {
-            selectedItems.remove(position);
-        } else {
-            selectedItems.add(position);
+        InventoryListRow item = peek(position);
+        if (item == null) {
+            return;
+        }
+        if (allMatchingSelected) {
+            if (!deselectedIds.remove(item.getId())) {
+                deselectedIds.add(item.getId());
+            }
+        } else if (selectedItems.remove(item.getId()) == null) {
+            selectedItems.put(item.getId(), item);
         }
         notifyItemChanged(position);
     }
     
     public boolean isItemSelected(int position) {
-        return selectedItems.contains(position);
+        InventoryListRow item = peek(position);
+        if (item == null) {
+            return false;
+        }
+        return allMatchingSelected ? !deselectedIds.contains(item.getId()) : selectedItems.containsKey(item.getId());
     }
     
     public int getSelectedItemCount() {
+        if (allMatchingSelected) {
+            return Math.max(0, matchingCount - deselectedIds.size());
+        }
         return selectedItems.size();
     }
     
-    public Set<Integer> getSelectedPositions() {
-        return new HashSet<>(selectedItems);
+    // The individually picked rows; empty after selectAll (see isAllMatchingSelected)
+    public List<InventoryListRow> getSelectedItems() {
+        return new ArrayList<>(selectedItems.values());
+    }
+
+    public boolean isAllMatchingSelected() {
+        return allMatchingSelected;
+    }
+
+    // Rows tapped off after selectAll
+    public Set<Integer> getDeselectedIds() {
+        return new HashSet<>(deselectedIds);
+    }
+
+    // Row count of the screen's query, kept current by the activity
+    public void setMatchingCount(int count) {
+        matchingCount = count;
     }
     
+    // Selects every row the query matches, including pages not loaded yet
     public void selectAll() {
         selectedItems.clear();
-        for (int i = 0; i < getItemCount(); i++) {
-            selectedItems.add(i);
-        }
+        deselectedIds.clear();
+        allMatchingSelected = true;
         notifyDataSetChanged();
     }
     
     public void deselectAll() {
-        selectedItems.clear();
+        resetSelection();
         notifyDataSetChanged();
     }
     
     public void clearSelection() {
-        selectedItems.clear();
+        resetSelection();
         isMultiSelectMode = false;
         notifyDataSetChanged();
     }
 
+    private void resetSelection() {
+        selectedItems.clear();
+        deselectedIds.clear();
+        allMatchingSelected = false;
+    }
+
     public InventoryAdapter(OnItemClickListener listener, OnItemLongClickListener longClickListener) {
         super(DIFF_CALLBACK);
         this.listener = listener;
         this.longClickListener = longClickListener;
     }
 
-    private static final DiffUtil.ItemCallback<InventoryItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<InventoryItem>() {
+    private static final DiffUtil.ItemCallback<InventoryListRow> DIFF_CALLBACK = new DiffUtil.ItemCallback<InventoryListRow>() {
         @Override
-        public boolean areItemsTheSame(@NonNull InventoryItem oldItem, @NonNull InventoryItem newItem) {
+        public boolean areItemsTheSame(@NonNull InventoryListRow oldItem, @NonNull InventoryListRow newItem) {
             return oldItem.getId() == newItem.getId();
         }
 
         @Override
-        public boolean areContentsTheSame(@NonNull InventoryItem oldItem, @NonNull InventoryItem newItem) {
+        public boolean areContentsTheSame(@NonNull InventoryListRow oldItem, @NonNull InventoryListRow newItem) {
             // Null-safe string comparison
             if (!safeEquals(oldItem.getName(), newItem.getName()) ||
                 !safeEquals(oldItem.getCategory(), newItem.getCategory()) ||
@@ -125,8 +169,7 @@ public class InventoryAdapter extends ListAdapter<InventoryItem, InventoryAdapte
             }
             
             // Null-safe optional field comparison
-            return safeEquals(oldItem.getWeight(), newItem.getWeight()) &&
-                   safeEquals(oldItem.getNotes(), newItem.getNotes());
+            return safeEquals(oldItem.getWeight(), newItem.getWeight());
         }
         
         private boolean safeEquals(Object obj1, Object obj2) {
@@ -146,7 +189,7 @@ public class InventoryAdapter extends ListAdapter<InventoryItem, InventoryAdapte
 
     @Override
     public void onBindViewHolder(@NonNull InventoryViewHolder holder, int position) {
-        InventoryItem currentItem = getItem(position);
+        InventoryListRow currentItem = getItem(position);
         if (currentItem == null) {
             return;
         }
@@ -156,7 +199,7 @@ public class InventoryAdapter extends ListAdapter<InventoryItem, InventoryAdapte
         View selectionOverlay = holder.itemView.findViewById(R.id.selection_overlay);
         View selectionBorder = holder.itemView.findViewById(R.id.selection_border);
 
-        long daysUntilExpiration = getDaysUntilExpiration(currentItem.getExpirationDate());
+        long daysUntilExpiration = DateUtils.getDaysUntil(currentItem.getExpirationEpochDay());
         int backgroundColor;
         int textColor;
 
@@ -202,15 +245,6 @@ public class InventoryAdapter extends ListAdapter<InventoryItem, InventoryAdapte
         holder.bind(currentItem, listener, longClickListener, position, isMultiSelectMode, isSelected);
     }
 
-    private long getDaysUntilExpiration(Date expirationDate) {
-        if (expirationDate == null) {
-            return Long.MAX_VALUE; // Treat null as never expires
-        }
-        long now = System.currentTimeMillis();
-        long diff = expirationDate.getTime() - now;
-        return TimeUnit.MILLISECONDS.toDays(diff);
-    }
-
     static class InventoryViewHolder extends RecyclerView.ViewHolder {
         private final TextView nameText;
         private final TextView categoryText;
@@ -239,7 +273,7 @@ public class InventoryAdapter extends ListAdapter<InventoryItem, InventoryAdapte
             selectionBorder = itemView.findViewById(R.id.selection_border);
         }
 
-        public void bind(final InventoryItem item, final OnItemClickListener listener, 
+        public void bind(final InventoryListRow item, final OnItemClickListener listener, 
                          final OnItemLongClickListener longClickListener, final int position, 
                          final boolean isMultiSelectMode, final boolean isSelected) {
             if (item == null) return;
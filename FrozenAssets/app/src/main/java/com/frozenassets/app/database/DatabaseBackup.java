@@ -0,0 +1,230 @@
+package com.frozenassets.app.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.frozenassets.app.AppExecutors;
+import com.frozenassets.app.importexport.ProgressListener;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Whole-database backup and restore at the SQLite file level, skipping the per-row
+ * encoding of the export formats, so both cost about as much as copying the file.
+ *
+ * A backup is a compacted, self-contained copy (no -wal file) made with VACUUM INTO,
+ * or on SQLite older than 3.27 (before Android 11) a copy of the database and its WAL
+ * taken while holding the write lock. A restore stages the file next to the live one,
+ * checks it is a FrozenAssets database this app can open, then swaps it in. Every
+ * component holding DAOs of the old instance is stale after that, so the process has
+ * to end once the restore returns; TransferWorker relaunches the app in a new one.
+ */
+public final class DatabaseBackup {
+    private static final String TAG = "DatabaseBackup";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] SQLITE_HEADER = "SQLite format 3\0".getBytes(StandardCharsets.US_ASCII);
+    // Room keeps the identity hash of the schema that created a database in this row
+    private static final String IDENTITY_HASH_QUERY = "SELECT identity_hash FROM room_master_table WHERE id = 42";
+    // Oldest version the migrations start from; anything older would be wiped by the destructive fallback
+    static final int OLDEST_RESTORABLE_VERSION = 5;
+
+    private DatabaseBackup() {
+    }
+
+    // Returns the number of bytes written to out
+    public static long backup(Context context, InventoryDatabase database, OutputStream out,
+                              ProgressListener progress) throws IOException {
+        long start = System.nanoTime();
+        File copy = new File(context.getCacheDir(), "backup-" + System.currentTimeMillis() + ".db");
+        try {
+            SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+            if (progress != null) {
+                progress.onProgress(0, 0);
+            }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                // Can't run inside a transaction; reads a consistent snapshot on its own
+                db.execSQL("VACUUM INTO ?", new Object[] {copy.getPath()});
+            } else {
+                copyUnderWriteLock(context, database, copy);
+            }
+            long written = copyFile(copy, out, progress);
+            Log.d(TAG, "Backed up " + written + " bytes in " + (System.nanoTime() - start) / 1_000_000L + " ms");
+            return written;
+        } finally {
+            deleteDatabaseFiles(copy);
+        }
+    }
+
+    // Without VACUUM INTO: nobody can commit (or checkpoint) while the transaction holds the
+    // write lock, so the main file and WAL copied together are consistent. Opening the copy
+    // replays its WAL, and switching it to rollback journaling folds that into the one file.
+    private static void copyUnderWriteLock(Context context, InventoryDatabase database, File copy) {
+        File live = context.getDatabasePath(InventoryDatabase.DATABASE_NAME);
+        File liveWal = new File(live.getPath() + "-wal");
+        File copyWal = new File(copy.getPath() + "-wal");
+        database.runInTransaction(() -> {
+            try {
+                copyFile(live, copy);
+                if (liveWal.length() > 0) {
+                    copyFile(liveWal, copyWal);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not copy the database", e);
+            }
+        });
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(copy.getPath(), null, SQLiteDatabase.OPEN_READWRITE);
+        try (Cursor cursor = db.rawQuery("PRAGMA journal_mode = DELETE", null)) {
+            cursor.moveToFirst();
+        } finally {
+            db.close();
+        }
+    }
+
+    /**
+     * Replaces the live database with the one read from in. Throws, leaving the live
+     * database untouched, if in is not a FrozenAssets database this version can open.
+     */
+    public static void restore(Context context, InputStream in, long size, ProgressListener progress)
+            throws IOException {
+        long start = System.nanoTime();
+        File live = context.getDatabasePath(InventoryDatabase.DATABASE_NAME);
+        // Same directory as the live file, so the swap is a rename
+        File staged = new File(live.getPath() + ".restore");
+        try {
+            deleteDatabaseFiles(staged);
+            try (OutputStream out = new FileOutputStream(staged)) {
+                copyStream(in, out, size, progress);
+            }
+            String liveHash = readIdentityHash(InventoryDatabase.getDatabase(context));
+            validate(staged, liveHash);
+            if (progress != null) {
+                progress.onProgress(size, size);
+            }
+
+            // No cancellation past this point; queued behind any pending write, which lands in the old file
+            AppExecutors.get(context).callOnDiskWrite(() -> {
+                InventoryDatabase.replaceDatabaseFile(staged, live);
+                return null;
+            });
+            Log.d(TAG, "Restored " + live.length() + " bytes in " + (System.nanoTime() - start) / 1_000_000L + " ms");
+        } finally {
+            deleteDatabaseFiles(staged);
+        }
+    }
+
+    // Checks the header, schema version and identity hash, and clears state that belongs to the old install
+    static void validate(File staged, String liveHash) throws IOException {
+        byte[] header = new byte[SQLITE_HEADER.length];
+        try (InputStream in = new FileInputStream(staged)) {
+            int read = 0;
+            int n;
+            while (read < header.length && (n = in.read(header, read, header.length - read)) > 0) {
+                read += n;
+            }
+        }
+        if (!Arrays.equals(header, SQLITE_HEADER)) {
+            throw new IOException("Not a database backup");
+        }
+
+        SQLiteDatabase db;
+        try {
+            db = SQLiteDatabase.openDatabase(staged.getPath(), null, SQLiteDatabase.OPEN_READWRITE);
+        } catch (SQLiteException e) {
+            throw new IOException("Backup could not be opened", e);
+        }
+        try {
+            int version = db.getVersion();
+            String hash = null;
+            try (Cursor cursor = db.rawQuery(IDENTITY_HASH_QUERY, null)) {
+                if (cursor.moveToFirst()) {
+                    hash = cursor.getString(0);
+                }
+            } catch (SQLiteException e) {
+                Log.w(TAG, "Backup has no room_master_table", e);
+            }
+            Log.d(TAG, "Backup has schema version " + version + ", identity hash " + hash);
+            if (hash == null) {
+                throw new IOException("Backup is not a FrozenAssets database");
+            }
+            if (version > InventoryDatabase.SCHEMA_VERSION) {
+                throw new IOException("Backup was made by a newer version of the app (schema " + version + ")");
+            }
+            if (version < OLDEST_RESTORABLE_VERSION) {
+                throw new IOException("Backup is too old to restore (schema " + version + ")");
+            }
+            // Older versions are migrated when the database next opens; the same version must match exactly
+            if (version == InventoryDatabase.SCHEMA_VERSION && !hash.equals(liveHash)) {
+                throw new IOException("Backup schema does not match this version of the app");
+            }
+            if (version >= 17) {
+                // import_checkpoint exists from schema 17; an interrupted import in the
+                // backup refers to a file picked on the old install
+                db.execSQL("DELETE FROM import_checkpoint");
+            }
+        } catch (SQLiteException e) {
+            throw new IOException("Backup is damaged", e);
+        } finally {
+            db.close();
+        }
+    }
+
+    static String readIdentityHash(InventoryDatabase database) {
+        try (Cursor cursor = database.getOpenHelper().getReadableDatabase().query(IDENTITY_HASH_QUERY)) {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        }
+    }
+
+    private static long copyFile(File from, OutputStream out, ProgressListener progress) throws IOException {
+        try (InputStream in = new FileInputStream(from)) {
+            return copyStream(in, out, from.length(), progress);
+        }
+    }
+
+    private static void copyFile(File from, File to) throws IOException {
+        try (InputStream in = new FileInputStream(from); OutputStream out = new FileOutputStream(to)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    static long copyStream(InputStream in, OutputStream out, long size, ProgressListener progress)
+            throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long copied = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            copied += read;
+            if (progress != null) {
+                progress.onProgress(copied, size);
+            }
+        }
+        out.flush();
+        return copied;
+    }
+
+    static void deleteDatabaseFiles(File file) {
+        for (String suffix : new String[] {"", "-wal", "-shm", "-journal"}) {
+            File f = new File(file.getPath() + suffix);
+            if (f.exists() && !f.delete()) {
+                Log.w(TAG, "Could not delete " + f);
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.frozenassets.app.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.frozenassets.app.AppExecutors;
+import com.frozenassets.app.importexport.ProgressListener;
+import com.frozenassets.app.repositories.ImportBatchWriter.DuplicatePolicy;
+import com.frozenassets.app.utils.NaturalKey;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Merges another device's inventory_database into this one with set-based SQL instead
+ * of parsing and inserting row by row. The other file is staged in the databases
+ * directory, checked and migrated like a restore, and then merged in one transaction:
+ * missing tags are added by name, every item is matched on its natural key against the
+ * items that existed before the merge, and item_tags is rebuilt through a source-to-live
+ * tag id map.
+ *
+ * The merge runs on a connection of its own, opened on the staged file with the live
+ * database ATTACHed. Android switches any connection pool that ATTACHes out of WAL for
+ * the rest of the process, so Room's pool must never run the ATTACH itself. The merge
+ * transaction still runs on the app's serial writer, queued with every other write.
+ */
+public final class DatabaseMerger {
+    private static final String TAG = "DatabaseMerger";
+    private static final String STAGED_NAME = "merge_source.db";
+
+    // Everything but the id, in insert order
+    private static final String ITEM_COLUMNS = "name, category, category_key, quantity, notes, maxFreezeDays, "
+            + "dateFrozen, expirationDate, frozen_epoch_day, expiration_epoch_day, tags, weight, weightUnit, "
+            + "natural_key";
+    private static final String SOURCE_ITEM_COLUMNS = "s.name, s.category, s.category_key, s.quantity, s.notes, "
+            + "s.maxFreezeDays, s.dateFrozen, s.expirationDate, s.frozen_epoch_day, s.expiration_epoch_day, "
+            + "s.tags, s.weight, s.weightUnit, s.natural_key";
+
+    public static final class Result {
+        public long rowsInserted;
+        public long rowsUpdated;
+        public long duplicatesSkipped;
+        public long tagsAdded;
+
+        @Override
+        public String toString() {
+            return "MergeResult{inserted=" + rowsInserted + ", updated=" + rowsUpdated
+                    + ", skipped=" + duplicatesSkipped + ", tagsAdded=" + tagsAdded + "}";
+        }
+    }
+
+    private DatabaseMerger() {
+    }
+
+    /**
+     * Merges the database read from in. BY_ID is treated as INSERT_AS_NEW, since ids from
+     * another device say nothing about rows here. Blocking; call from a background thread.
+     */
+    public static Result merge(Context context, InventoryDatabase database, InputStream in, long size,
+                               DuplicatePolicy policy, ProgressListener progress) throws IOException {
+        long start = System.nanoTime();
+        File staged = context.getDatabasePath(STAGED_NAME);
+        try {
+            DatabaseBackup.deleteDatabaseFiles(staged);
+            try (OutputStream out = new FileOutputStream(staged)) {
+                DatabaseBackup.copyStream(in, out, size, progress);
+            }
+            DatabaseBackup.validate(staged, DatabaseBackup.readIdentityHash(database));
+            // Last chance to cancel; the merge itself is one short transaction
+            if (progress != null) {
+                progress.onProgress(0, 0);
+            }
+
+            InventoryDatabase.migrateFile(context, STAGED_NAME);
+            AppExecutors executors = AppExecutors.get(context);
+            File liveFile = context.getDatabasePath(InventoryDatabase.DATABASE_NAME);
+            Result result = executors.callOnDiskWrite(
+                    () -> mergeStaged(staged, liveFile, policy, System.currentTimeMillis()));
+            executors.runOnDiskWrite(() -> touchTrackedTables(database));
+            Log.d(TAG, "Merged in " + (System.nanoTime() - start) / 1_000_000L + " ms: " + result);
+            return result;
+        } finally {
+            DatabaseBackup.deleteDatabaseFiles(staged);
+        }
+    }
+
+    private static Result mergeStaged(File staged, File liveFile, DuplicatePolicy policy, long now) {
+        Result result = new Result();
+        boolean matchExisting = policy == DuplicatePolicy.SKIP_EXISTING || policy == DuplicatePolicy.UPDATE_EXISTING;
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(staged.getPath(), null, SQLiteDatabase.OPEN_READWRITE);
+        try {
+            fillMissingNaturalKeys(db);
+            db.execSQL("ATTACH DATABASE ? AS live", new Object[] {liveFile.getPath()});
+            db.beginTransaction();
+            try {
+                // Tags: add names the live vocabulary lacks, then map every source tag id to a live one
+                result.tagsAdded = update(db,
+                        "INSERT INTO live.tags (name, isDefault) " +
+                        "SELECT s.name, 0 FROM main.tags s " +
+                        "WHERE s.name IS NOT NULL AND TRIM(s.name) != '' " +
+                        "AND NOT EXISTS (SELECT 1 FROM live.tags t WHERE t.name = s.name) " +
+                        "GROUP BY s.name");
+                db.execSQL("CREATE TEMP TABLE merge_tag_map AS " +
+                        "SELECT s.id AS source_id, MIN(t.id) AS live_id " +
+                        "FROM main.tags s JOIN live.tags t ON t.name = s.name GROUP BY s.id");
+
+                // Items: the lowest pre-merge match per natural key, found through its index
+                db.execSQL("CREATE TEMP TABLE merge_items (source_id INTEGER PRIMARY KEY, live_id INTEGER)");
+                db.execSQL("CREATE INDEX merge_items_live ON merge_items (live_id)");
+                db.execSQL("INSERT INTO merge_items (source_id, live_id) " +
+                        "SELECT s.id, " + (matchExisting
+                                ? "(SELECT MIN(l.id) FROM live.inventory_items l WHERE l.natural_key = s.natural_key) "
+                                : "NULL ") +
+                        "FROM main.inventory_items s");
+
+                if (policy == DuplicatePolicy.SKIP_EXISTING) {
+                    result.duplicatesSkipped = count(db, "SELECT COUNT(*) FROM merge_items WHERE live_id IS NOT NULL");
+                    db.execSQL("DELETE FROM merge_items WHERE live_id IS NOT NULL");
+                } else if (policy == DuplicatePolicy.UPDATE_EXISTING) {
+                    // An UPDATE, not REPLACE: REPLACE skips the FTS delete trigger and would
+                    // leave the overwritten text searchable
+                    result.rowsUpdated = update(db,
+                            "UPDATE live.inventory_items SET " + copyFromMergedSource() + "modified_at = " + now + " " +
+                            "WHERE id IN (SELECT live_id FROM merge_items WHERE live_id IS NOT NULL)");
+                    db.execSQL("DELETE FROM live.item_tags WHERE item_id IN " +
+                            "(SELECT live_id FROM merge_items WHERE live_id IS NOT NULL)");
+                }
+
+                // New rows get explicit ids past the AUTOINCREMENT high-water mark, in source order
+                long base = count(db, "SELECT MAX(" +
+                        "COALESCE((SELECT seq FROM live.sqlite_sequence WHERE name = 'inventory_items'), 0), " +
+                        "COALESCE((SELECT MAX(id) FROM live.inventory_items), 0))");
+                db.execSQL("CREATE TEMP TABLE merge_new (seq INTEGER PRIMARY KEY, source_id INTEGER NOT NULL UNIQUE)");
+                db.execSQL("INSERT INTO merge_new (source_id) " +
+                        "SELECT source_id FROM merge_items WHERE live_id IS NULL ORDER BY source_id");
+                db.execSQL("UPDATE merge_items SET live_id = " + base + " + " +
+                        "(SELECT n.seq FROM merge_new n WHERE n.source_id = merge_items.source_id) " +
+                        "WHERE live_id IS NULL");
+                result.rowsInserted = update(db,
+                        "INSERT INTO live.inventory_items (id, " + ITEM_COLUMNS + ", modified_at) " +
+                        "SELECT " + base + " + n.seq, " + SOURCE_ITEM_COLUMNS + ", " + now + " " +
+                        "FROM merge_new n JOIN main.inventory_items s ON s.id = n.source_id");
+
+                // Links of every merged item, through both id maps
+                db.execSQL("INSERT OR IGNORE INTO live.item_tags (item_id, tag_id) " +
+                        "SELECT m.live_id, t.live_id FROM main.item_tags it " +
+                        "JOIN merge_items m ON m.source_id = it.item_id " +
+                        "JOIN merge_tag_map t ON t.source_id = it.tag_id");
+
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            db.execSQL("DETACH DATABASE live");
+        } finally {
+            db.close();
+        }
+        return result;
+    }
+
+    // One correlated lookup per column through merge_items_live; SQLite on older Androids
+    // has no UPDATE ... FROM. When several source rows match one item, the last one wins.
+    private static String copyFromMergedSource() {
+        StringBuilder set = new StringBuilder();
+        for (String column : ITEM_COLUMNS.split(", ")) {
+            set.append(column).append(" = (SELECT s.").append(column).append(" FROM merge_items m ")
+                    .append("JOIN main.inventory_items s ON s.id = m.source_id ")
+                    .append("WHERE m.live_id = live.inventory_items.id ORDER BY m.source_id DESC LIMIT 1), ");
+        }
+        return set.toString();
+    }
+
+    // Rows written before natural keys existed, or by an older app, would otherwise never match
+    private static void fillMissingNaturalKeys(SQLiteDatabase db) {
+        SQLiteStatement update = db.compileStatement("UPDATE inventory_items SET natural_key = ? WHERE id = ?");
+        db.beginTransaction();
+        try (Cursor cursor = db.rawQuery("SELECT id, name, category, frozen_epoch_day, weight, weightUnit " +
+                "FROM inventory_items WHERE natural_key IS NULL", null)) {
+            while (cursor.moveToNext()) {
+                Integer frozenEpochDay = cursor.isNull(3) ? null : cursor.getInt(3);
+                update.bindString(1, NaturalKey.of(cursor.getString(1), cursor.getString(2),
+                        frozenEpochDay, cursor.getString(4), cursor.getString(5)));
+                update.bindLong(2, cursor.getLong(0));
+                update.executeUpdateDelete();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            update.close();
+        }
+    }
+
+    // Room only hears about writes made on its own connection; an identity UPDATE of one
+    // row per merged table fires its invalidation triggers so observers reload
+    private static void touchTrackedTables(InventoryDatabase database) {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        database.runInTransaction(() -> {
+            db.execSQL("UPDATE inventory_items SET modified_at = modified_at " +
+                    "WHERE id = (SELECT MAX(id) FROM inventory_items)");
+            db.execSQL("UPDATE tags SET name = name WHERE id = (SELECT MAX(id) FROM tags)");
+            db.execSQL("UPDATE item_tags SET tag_id = tag_id WHERE rowid = (SELECT MAX(rowid) FROM item_tags)");
+        });
+    }
+
+    private static long update(SQLiteDatabase db, String sql) {
+        SQLiteStatement statement = db.compileStatement(sql);
+        try {
+            return statement.executeUpdateDelete();
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static long count(SQLiteDatabase db, String sql) {
+        SQLiteStatement statement = db.compileStatement(sql);
+        try {
+            return statement.simpleQueryForLong();
+        } finally {
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.frozenassets.app.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * One consistent read of the live database for an export, on a read-only connection of
+ * its own (opened the way DatabaseMerger opens the staged file) so it never takes the
+ * write lock: in WAL mode a read transaction keeps seeing the database as of its first
+ * read while the app's writer goes on committing. Every cursor comes from that one
+ * transaction; close() ends it.
+ *
+ * Android rewrites any BEGIN passed to execSQL into BEGIN EXCLUSIVE, which a read-only
+ * connection can't run, so the transaction is opened as a SAVEPOINT instead: outside a
+ * transaction that is exactly BEGIN DEFERRED. Without ENABLE_WRITE_AHEAD_LOGGING this
+ * handle's pool has a single connection, so each cursor runs on the one holding it.
+ */
+public final class ExportSnapshot implements Closeable {
+    private static final String SAVEPOINT = "export_snapshot";
+
+    private final SQLiteDatabase db;
+
+    private ExportSnapshot(SQLiteDatabase db) {
+        this.db = db;
+    }
+
+    public static ExportSnapshot open(Context context) throws IOException {
+        String path = context.getDatabasePath(InventoryDatabase.DATABASE_NAME).getPath();
+        SQLiteDatabase db;
+        try {
+            db = SQLiteDatabase.openDatabase(path, null, SQLiteDatabase.OPEN_READONLY);
+        } catch (SQLiteException e) {
+            throw new IOException("Database could not be opened for export", e);
+        }
+        try {
+            db.execSQL("SAVEPOINT " + SAVEPOINT);
+        } catch (SQLiteException e) {
+            db.close();
+            throw new IOException("Could not start the export snapshot", e);
+        }
+        return new ExportSnapshot(db);
+    }
+
+    // Tag vocabulary (name, isDefault)
+    public Cursor tags() {
+        return db.rawQuery("SELECT name, isDefault FROM tags ORDER BY id", null);
+    }
+
+    public Cursor items() {
+        return db.rawQuery("SELECT * FROM inventory_items ORDER BY id", null);
+    }
+
+    // Incremental exports: rows written and items deleted since a point in time
+    public Cursor itemsModifiedSince(long since) {
+        return db.rawQuery("SELECT * FROM inventory_items WHERE modified_at >= ? ORDER BY id",
+                new String[] {String.valueOf(since)});
+    }
+
+    // (item_id, deleted_at)
+    public Cursor tombstonesSince(long since) {
+        return db.rawQuery("SELECT item_id, deleted_at FROM item_tombstones WHERE deleted_at >= ? ORDER BY item_id",
+                new String[] {String.valueOf(since)});
+    }
+
+    @Override
+    public void close() {
+        try {
+            db.execSQL("RELEASE " + SAVEPOINT);
+        } finally {
+            db.close();
+        }
+    }
+}
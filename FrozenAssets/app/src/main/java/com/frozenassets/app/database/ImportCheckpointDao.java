@@ -0,0 +1,24 @@
+package com.frozenassets.app.database;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.frozenassets.app.models.ImportCheckpoint;
+
+@Dao
+public interface ImportCheckpointDao {
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void save(ImportCheckpoint checkpoint);
+
+    @Query("SELECT * FROM import_checkpoint WHERE id = " + ImportCheckpoint.SINGLETON_ID)
+    ImportCheckpoint get();
+
+    @Query("SELECT * FROM import_checkpoint WHERE id = " + ImportCheckpoint.SINGLETON_ID)
+    LiveData<ImportCheckpoint> observe();
+
+    @Query("DELETE FROM import_checkpoint")
+    void clear();
+}
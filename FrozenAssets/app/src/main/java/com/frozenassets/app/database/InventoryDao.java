@@ -1,28 +1,43 @@
 package com.frozenassets.app.database;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
+import com.frozenassets.app.models.CategoryCount;
 import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.models.InventoryListRow;
 
-import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 @Dao
 public interface InventoryDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insert(InventoryItem item);
+    long insert(InventoryItem item);
 
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insertAll(List<InventoryItem> items);
 
     @Update
-    void update(InventoryItem item);
+    int update(InventoryItem item);
+
+    // Updates the row with the item's id, or inserts when there is none. Not a REPLACE:
+    // that deletes the old row without firing delete triggers, so the FTS index would
+    // keep the old row's terms and inventory_items_fts would no longer match its content
+    @Transaction
+    default long upsert(InventoryItem item) {
+        if (item.getId() != 0 && update(item) > 0) {
+            return item.getId();
+        }
+        return insert(item);
+    }
 
     @Delete
     void delete(InventoryItem item);
@@ -33,17 +48,51 @@ public interface InventoryDao {
     @Query("SELECT * FROM inventory_items ORDER BY expirationDate DESC")
     LiveData<List<InventoryItem>> getAllItemsSortedDesc();
 
-    @Query("SELECT * FROM inventory_items WHERE LOWER(TRIM(category)) = LOWER(TRIM(:category)) ORDER BY expirationDate ASC")
-    LiveData<List<InventoryItem>> getItemsByCategory(String category);
+    // Category lookups take a key from FoodCategory.toCategoryKey and walk the
+    // (category_key, expirationDate) index in either direction
+    @Query("SELECT * FROM inventory_items WHERE category_key = :categoryKey ORDER BY expirationDate ASC")
+    LiveData<List<InventoryItem>> getItemsByCategory(String categoryKey);
 
-    @Query("SELECT * FROM inventory_items WHERE LOWER(TRIM(category)) = LOWER(TRIM(:category)) ORDER BY expirationDate DESC")
-    LiveData<List<InventoryItem>> getItemsByCategorySortedDesc(String category);
+    @Query("SELECT * FROM inventory_items WHERE category_key = :categoryKey ORDER BY expirationDate DESC")
+    LiveData<List<InventoryItem>> getItemsByCategorySortedDesc(String categoryKey);
 
-    @Query("SELECT * FROM inventory_items WHERE expirationDate <= :expirationThreshold ORDER BY expirationDate ASC")
-    LiveData<List<InventoryItem>> getItemsNearingExpiration(Date expirationThreshold);
+    // Range scans over the (expiration_epoch_day, expirationDate) index
+    @Query("SELECT * FROM inventory_items WHERE expiration_epoch_day <= :thresholdEpochDay " +
+           "ORDER BY expiration_epoch_day ASC, expirationDate ASC")
+    LiveData<List<InventoryItem>> getItemsNearingExpiration(int thresholdEpochDay);
 
-    @Query("SELECT * FROM inventory_items WHERE expirationDate <= :expirationThreshold ORDER BY expirationDate DESC")
-    LiveData<List<InventoryItem>> getItemsNearingExpirationSortedDesc(Date expirationThreshold);
+    @Query("SELECT * FROM inventory_items WHERE expiration_epoch_day <= :thresholdEpochDay " +
+           "ORDER BY expiration_epoch_day DESC, expirationDate DESC")
+    LiveData<List<InventoryItem>> getItemsNearingExpirationSortedDesc(int thresholdEpochDay);
+
+    @Query("SELECT * FROM inventory_items WHERE frozen_epoch_day BETWEEN :fromEpochDay AND :toEpochDay " +
+           "ORDER BY frozen_epoch_day ASC")
+    LiveData<List<InventoryItem>> getItemsFrozenBetween(int fromEpochDay, int toEpochDay);
+
+    // Paged list-row variants of the list queries above, backing the list screens
+    @Query("SELECT " + InventoryListRow.COLUMNS + " FROM inventory_items ORDER BY expirationDate ASC")
+    PagingSource<Integer, InventoryListRow> getAllRowsPaged();
+
+    @Query("SELECT " + InventoryListRow.COLUMNS + " FROM inventory_items ORDER BY expirationDate DESC")
+    PagingSource<Integer, InventoryListRow> getAllRowsSortedDescPaged();
+
+    @Query("SELECT " + InventoryListRow.COLUMNS + " FROM inventory_items " +
+           "WHERE category_key = :categoryKey ORDER BY expirationDate ASC")
+    PagingSource<Integer, InventoryListRow> getRowsByCategoryPaged(String categoryKey);
+
+    @Query("SELECT " + InventoryListRow.COLUMNS + " FROM inventory_items " +
+           "WHERE category_key = :categoryKey ORDER BY expirationDate DESC")
+    PagingSource<Integer, InventoryListRow> getRowsByCategorySortedDescPaged(String categoryKey);
+
+    @Query("SELECT " + InventoryListRow.COLUMNS + " FROM inventory_items " +
+           "WHERE expiration_epoch_day <= :thresholdEpochDay " +
+           "ORDER BY expiration_epoch_day ASC, expirationDate ASC")
+    PagingSource<Integer, InventoryListRow> getRowsNearingExpirationPaged(int thresholdEpochDay);
+
+    @Query("SELECT " + InventoryListRow.COLUMNS + " FROM inventory_items " +
+           "WHERE expiration_epoch_day <= :thresholdEpochDay " +
+           "ORDER BY expiration_epoch_day DESC, expirationDate DESC")
+    PagingSource<Integer, InventoryListRow> getRowsNearingExpirationSortedDescPaged(int thresholdEpochDay);
 
     @Query("SELECT * FROM inventory_items WHERE id = :id")
     LiveData<InventoryItem> getItemById(int id);
@@ -51,16 +100,90 @@ public interface InventoryDao {
     @Query("SELECT DISTINCT category FROM inventory_items")
     LiveData<List<String>> getAllCategories();
 
-    @Query("SELECT * FROM inventory_items WHERE name LIKE '%' || :searchQuery || '%' OR category LIKE '%' || :searchQuery || '%'")
-    LiveData<List<InventoryItem>> searchItems(String searchQuery);
+    // Full-text search through inventory_items_fts. Both arguments are FTS MATCH
+    // expressions (see FtsQueryBuilder); rows whose name matches rank first.
+    @Query("SELECT inventory_items.* FROM inventory_items " +
+           "JOIN (SELECT item_id, MIN(tier) AS tier FROM (" +
+           "SELECT docid AS item_id, 0 AS tier FROM inventory_items_fts WHERE inventory_items_fts MATCH :nameMatch " +
+           "UNION ALL " +
+           "SELECT docid AS item_id, 1 AS tier FROM inventory_items_fts WHERE inventory_items_fts MATCH :anyMatch" +
+           ") GROUP BY item_id) AS hits ON inventory_items.id = hits.item_id " +
+           "ORDER BY hits.tier ASC, inventory_items.expirationDate ASC")
+    LiveData<List<InventoryItem>> searchItems(String nameMatch, String anyMatch);
+
+    @Query("SELECT " + InventoryListRow.COLUMNS + " FROM inventory_items " +
+           "JOIN (SELECT item_id, MIN(tier) AS tier FROM (" +
+           "SELECT docid AS item_id, 0 AS tier FROM inventory_items_fts WHERE inventory_items_fts MATCH :nameMatch " +
+           "UNION ALL " +
+           "SELECT docid AS item_id, 1 AS tier FROM inventory_items_fts WHERE inventory_items_fts MATCH :anyMatch" +
+           ") GROUP BY item_id) AS hits ON inventory_items.id = hits.item_id " +
+           "ORDER BY hits.tier ASC, inventory_items.expirationDate ASC")
+    PagingSource<Integer, InventoryListRow> searchRowsPaged(String nameMatch, String anyMatch);
 
     @Query("SELECT COUNT(*) FROM inventory_items")
     LiveData<Integer> getItemCount();
 
-    @Query("SELECT COUNT(*) FROM inventory_items WHERE LOWER(TRIM(category)) = LOWER(TRIM(:category))")
-    LiveData<Integer> getItemCountByCategory(String category);
-
-    @Query("UPDATE inventory_items SET notes = :notes WHERE id = :itemId")
-    void updateNotes(int itemId, String notes);
+    @Query("SELECT COUNT(*) FROM inventory_items WHERE expiration_epoch_day <= :thresholdEpochDay")
+    LiveData<Integer> getItemCountNearingExpiration(int thresholdEpochDay);
+
+    // Exports read on their own connection (see ExportSnapshot); this is the change export's cleanup
+    @Query("DELETE FROM item_tombstones WHERE deleted_at < :before")
+    int purgeTombstones(long before);
+
+    // Imports only match rows that existed before they started (see ImportBatchWriter)
+    @Query("SELECT COALESCE(MAX(id), 0) FROM inventory_items")
+    int getMaxId();
+
+    // Every category in one pass over the category_key index
+    @Query("SELECT category_key, MIN(category) AS category, COUNT(*) AS item_count " +
+           "FROM inventory_items GROUP BY category_key ORDER BY category_key")
+    LiveData<List<CategoryCount>> getCategoryCounts();
+
+    @Query("SELECT COUNT(*) FROM inventory_items WHERE category_key = :categoryKey")
+    LiveData<Integer> getItemCountByCategory(String categoryKey);
+
+    @Query("DELETE FROM inventory_items WHERE id = :id")
+    void deleteById(int id);
+
+    @Query("DELETE FROM inventory_items WHERE id IN (:ids)")
+    int deleteByIdChunk(List<Integer> ids);
+
+    // Older SQLite builds cap a statement at 999 bound variables
+    int DELETE_CHUNK_SIZE = 900;
+
+    // Deletes in chunks under the bind-variable limit; one transaction means one invalidation
+    @Transaction
+    default int deleteByIds(List<Integer> ids) {
+        int deleted = 0;
+        for (int start = 0; start < ids.size(); start += DELETE_CHUNK_SIZE) {
+            int end = Math.min(start + DELETE_CHUNK_SIZE, ids.size());
+            deleted += deleteByIdChunk(ids.subList(start, end));
+        }
+        return deleted;
+    }
+
+    @Query("SELECT id FROM inventory_items")
+    List<Integer> getAllIds();
+
+    @Query("SELECT id FROM inventory_items WHERE expiration_epoch_day <= :thresholdEpochDay")
+    List<Integer> getIdsNearingExpiration(int thresholdEpochDay);
+
+    // "Select all" on the list screens: the query's rows at delete time, less the ones tapped off
+    @Transaction
+    default int deleteAllExcept(Set<Integer> except) {
+        List<Integer> ids = getAllIds();
+        ids.removeAll(except);
+        return deleteByIds(ids);
+    }
+
+    @Transaction
+    default int deleteNearingExpirationExcept(int thresholdEpochDay, Set<Integer> except) {
+        List<Integer> ids = getIdsNearingExpiration(thresholdEpochDay);
+        ids.removeAll(except);
+        return deleteByIds(ids);
+    }
+
+    @Query("UPDATE inventory_items SET notes = :notes, modified_at = :modifiedAt WHERE id = :itemId")
+    void updateNotes(int itemId, String notes, long modifiedAt);
 
    }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package com.frozenassets.app.database;
 
 import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -10,20 +13,40 @@ import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
 
+import com.frozenassets.app.AppExecutors;
+import com.frozenassets.app.models.FoodCategory;
+import com.frozenassets.app.models.ImportCheckpoint;
 import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.models.InventoryItemFts;
+import com.frozenassets.app.models.ItemTag;
+import com.frozenassets.app.models.ItemTombstone;
 import com.frozenassets.app.models.Tag;
 import com.frozenassets.app.utils.DateConverter;
 import com.frozenassets.app.utils.ListConverter;
+import com.frozenassets.app.utils.NaturalKey;
 
-@Database(entities = {InventoryItem.class, Tag.class}, version = 10, exportSchema = true)
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Database(entities = {InventoryItem.class, InventoryItemFts.class, Tag.class, ItemTag.class, ItemTombstone.class,
+        ImportCheckpoint.class},
+        version = InventoryDatabase.SCHEMA_VERSION, exportSchema = true)
 @TypeConverters({DateConverter.class, ListConverter.class})
 public abstract class InventoryDatabase extends RoomDatabase {
     private static final String TAG = "InventoryDatabase";
-    private static final String DATABASE_NAME = "inventory_database";
+    static final String DATABASE_NAME = "inventory_database";
+    // Also recorded in export bundles, so bump it together with each new migration
+    public static final int SCHEMA_VERSION = 18;
 
     public abstract InventoryDao inventoryDao();
     public abstract TagDao tagDao();
+    public abstract ItemTagDao itemTagDao();
+    public abstract ImportCheckpointDao importCheckpointDao();
     private static volatile InventoryDatabase INSTANCE;
 
     static final Migration MIGRATION_5_6 = new Migration(5, 6) {
@@ -149,31 +172,344 @@ public abstract class InventoryDatabase extends RoomDatabase {
         }
     };
 
+    static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Performing migration from 10 to 11 - Indexed category key");
+
+            database.execSQL("ALTER TABLE inventory_items ADD COLUMN category_key TEXT NOT NULL DEFAULT ''");
+
+            // Backfilled in Java: SQLite's LOWER() only folds ASCII, so "Épices" would not
+            // match the key FoodCategory.toCategoryKey computes for new and updated rows
+            SupportSQLiteStatement update = database.compileStatement(
+                    "UPDATE inventory_items SET category_key = ? WHERE id = ?");
+            try (Cursor cursor = database.query("SELECT id, category FROM inventory_items")) {
+                while (cursor.moveToNext()) {
+                    update.bindString(1, FoodCategory.toCategoryKey(cursor.getString(1)));
+                    update.bindLong(2, cursor.getLong(0));
+                    update.executeUpdateDelete();
+                }
+            }
+
+            // The id index duplicated the primary key
+            database.execSQL("DROP INDEX IF EXISTS index_inventory_items_id");
+            database.execSQL(
+                "CREATE INDEX IF NOT EXISTS index_inventory_items_category_key_expirationDate " +
+                "ON inventory_items(category_key, expirationDate)"
+            );
+        }
+    };
+
+    static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Performing migration from 11 to 12 - Epoch-day date columns");
+
+            database.execSQL("ALTER TABLE inventory_items ADD COLUMN frozen_epoch_day INTEGER");
+            database.execSQL("ALTER TABLE inventory_items ADD COLUMN expiration_epoch_day INTEGER");
+
+            // Local calendar day of each millisecond timestamp (NULL stays NULL)
+            database.execSQL(
+                "UPDATE inventory_items SET " +
+                "frozen_epoch_day = CAST(strftime('%s', dateFrozen / 1000, 'unixepoch', 'localtime') AS INTEGER) / 86400, " +
+                "expiration_epoch_day = CAST(strftime('%s', expirationDate / 1000, 'unixepoch', 'localtime') AS INTEGER) / 86400"
+            );
+
+            database.execSQL(
+                "CREATE INDEX IF NOT EXISTS index_inventory_items_expiration_epoch_day_expirationDate " +
+                "ON inventory_items(expiration_epoch_day, expirationDate)"
+            );
+            database.execSQL(
+                "CREATE INDEX IF NOT EXISTS index_inventory_items_frozen_epoch_day " +
+                "ON inventory_items(frozen_epoch_day)"
+            );
+        }
+    };
+
+    static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Performing migration from 12 to 13 - Full-text search index");
+
+            // Must match what Room generates for InventoryItemFts
+            database.execSQL(
+                "CREATE VIRTUAL TABLE IF NOT EXISTS `inventory_items_fts` USING FTS4(" +
+                "`name` TEXT, `category` TEXT, `notes` TEXT, `tags` TEXT, content=`inventory_items`)"
+            );
+
+            database.execSQL(
+                "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_inventory_items_fts_BEFORE_UPDATE " +
+                "BEFORE UPDATE ON `inventory_items` BEGIN " +
+                "DELETE FROM `inventory_items_fts` WHERE `docid`=OLD.`rowid`; END"
+            );
+            database.execSQL(
+                "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_inventory_items_fts_BEFORE_DELETE " +
+                "BEFORE DELETE ON `inventory_items` BEGIN " +
+                "DELETE FROM `inventory_items_fts` WHERE `docid`=OLD.`rowid`; END"
+            );
+            database.execSQL(
+                "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_inventory_items_fts_AFTER_UPDATE " +
+                "AFTER UPDATE ON `inventory_items` BEGIN " +
+                "INSERT INTO `inventory_items_fts`(`docid`, `name`, `category`, `notes`, `tags`) " +
+                "VALUES (NEW.`rowid`, NEW.`name`, NEW.`category`, NEW.`notes`, NEW.`tags`); END"
+            );
+            database.execSQL(
+                "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_inventory_items_fts_AFTER_INSERT " +
+                "AFTER INSERT ON `inventory_items` BEGIN " +
+                "INSERT INTO `inventory_items_fts`(`docid`, `name`, `category`, `notes`, `tags`) " +
+                "VALUES (NEW.`rowid`, NEW.`name`, NEW.`category`, NEW.`notes`, NEW.`tags`); END"
+            );
+
+            // Index every existing row in one pass
+            database.execSQL("INSERT INTO inventory_items_fts(inventory_items_fts) VALUES('rebuild')");
+        }
+    };
+
+    static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Performing migration from 13 to 14 - item_tags junction table");
+
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `item_tags` (" +
+                "`item_id` INTEGER NOT NULL, " +
+                "`tag_id` INTEGER NOT NULL, " +
+                "PRIMARY KEY(`item_id`, `tag_id`), " +
+                "FOREIGN KEY(`item_id`) REFERENCES `inventory_items`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , " +
+                "FOREIGN KEY(`tag_id`) REFERENCES `tags`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )"
+            );
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_item_tags_tag_id` ON `item_tags` (`tag_id`)");
+
+            // Tag vocabulary, extended below with any names only found on items
+            Map<String, Long> tagIds = new HashMap<>();
+            try (Cursor cursor = database.query("SELECT id, name FROM tags WHERE name IS NOT NULL")) {
+                while (cursor.moveToNext()) {
+                    tagIds.putIfAbsent(cursor.getString(1), cursor.getLong(0));
+                }
+            }
+
+            SupportSQLiteStatement insertTag = database.compileStatement(
+                    "INSERT INTO tags (name, isDefault) VALUES (?, 0)");
+            SupportSQLiteStatement insertLink = database.compileStatement(
+                    "INSERT OR IGNORE INTO item_tags (item_id, tag_id) VALUES (?, ?)");
+
+            int linked = 0;
+            try (Cursor cursor = database.query(
+                    "SELECT id, tags FROM inventory_items WHERE tags IS NOT NULL AND tags != '[]'")) {
+                while (cursor.moveToNext()) {
+                    long itemId = cursor.getLong(0);
+                    List<String> tags;
+                    try {
+                        tags = ListConverter.toList(cursor.getString(1));
+                    } catch (Exception e) {
+                        Log.w(TAG, "Skipping unreadable tags for item " + itemId, e);
+                        continue;
+                    }
+                    if (tags == null) {
+                        continue;
+                    }
+                    for (String tagName : tags) {
+                        if (tagName == null || tagName.trim().isEmpty()) {
+                            continue;
+                        }
+                        Long tagId = tagIds.get(tagName);
+                        if (tagId == null) {
+                            insertTag.bindString(1, tagName);
+                            tagId = insertTag.executeInsert();
+                            tagIds.put(tagName, tagId);
+                        }
+                        insertLink.bindLong(1, itemId);
+                        insertLink.bindLong(2, tagId);
+                        insertLink.executeInsert();
+                        linked++;
+                    }
+                }
+            } finally {
+                closeStatement(insertTag);
+                closeStatement(insertLink);
+            }
+            Log.d(TAG, "Linked " + linked + " item tags");
+        }
+    };
+
+    private static void closeStatement(SupportSQLiteStatement statement) {
+        try {
+            statement.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Error closing migration statement", e);
+        }
+    }
+
+    static final Migration MIGRATION_14_15 = new Migration(14, 15) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Performing migration from 14 to 15 - Change tracking for incremental exports");
+
+            // Existing rows keep 0, i.e. "before any export"
+            database.execSQL("ALTER TABLE inventory_items ADD COLUMN modified_at INTEGER NOT NULL DEFAULT 0");
+            database.execSQL(
+                "CREATE INDEX IF NOT EXISTS `index_inventory_items_modified_at` ON `inventory_items` (`modified_at`)"
+            );
+
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `item_tombstones` (" +
+                "`item_id` INTEGER NOT NULL, " +
+                "`deleted_at` INTEGER NOT NULL, " +
+                "PRIMARY KEY(`item_id`))"
+            );
+            database.execSQL(
+                "CREATE INDEX IF NOT EXISTS `index_item_tombstones_deleted_at` ON `item_tombstones` (`deleted_at`)"
+            );
+
+            createChangeTrackingTriggers(database);
+        }
+    };
+
+    // Deletions leave a tombstone; re-inserting the same id (e.g. a restore) clears it.
+    // Imports that hit an existing id update it in place (InventoryDao.upsert), so they never leave tombstones.
+    static void createChangeTrackingTriggers(SupportSQLiteDatabase database) {
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS inventory_items_tombstone_AFTER_DELETE " +
+            "AFTER DELETE ON `inventory_items` BEGIN " +
+            "INSERT OR REPLACE INTO `item_tombstones`(`item_id`, `deleted_at`) " +
+            "VALUES (OLD.`id`, CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER)); END"
+        );
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS inventory_items_tombstone_AFTER_INSERT " +
+            "AFTER INSERT ON `inventory_items` BEGIN " +
+            "DELETE FROM `item_tombstones` WHERE `item_id` = NEW.`id`; END"
+        );
+    }
+
+    static final Migration MIGRATION_15_16 = new Migration(15, 16) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Performing migration from 15 to 16 - Natural keys for duplicate detection");
+
+            database.execSQL("ALTER TABLE inventory_items ADD COLUMN natural_key TEXT");
+            database.execSQL(
+                "CREATE INDEX IF NOT EXISTS `index_inventory_items_natural_key` ON `inventory_items` (`natural_key`)"
+            );
+
+            // The hash is computed in Java so existing rows match what imports will compute
+            SupportSQLiteStatement update = database.compileStatement(
+                    "UPDATE inventory_items SET natural_key = ? WHERE id = ?");
+            int keyed = 0;
+            try (Cursor cursor = database.query(
+                    "SELECT id, name, category, frozen_epoch_day, weight, weightUnit FROM inventory_items")) {
+                while (cursor.moveToNext()) {
+                    Integer frozenEpochDay = cursor.isNull(3) ? null : cursor.getInt(3);
+                    update.bindString(1, NaturalKey.of(cursor.getString(1), cursor.getString(2),
+                            frozenEpochDay, cursor.getString(4), cursor.getString(5)));
+                    update.bindLong(2, cursor.getLong(0));
+                    update.executeUpdateDelete();
+                    keyed++;
+                }
+            }
+            Log.d(TAG, "Computed natural keys for " + keyed + " items");
+        }
+    };
+
+    static final Migration MIGRATION_16_17 = new Migration(16, 17) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Performing migration from 16 to 17 - Import checkpoints");
+
+            database.execSQL(
+                "CREATE TABLE IF NOT EXISTS `import_checkpoint` (" +
+                "`id` INTEGER NOT NULL, " +
+                "`source_uri` TEXT NOT NULL, " +
+                "`duplicate_policy` TEXT NOT NULL, " +
+                "`byte_offset` INTEGER NOT NULL, " +
+                "`next_line` INTEGER NOT NULL, " +
+                "`records_read` INTEGER NOT NULL, " +
+                "`rows_written` INTEGER NOT NULL, " +
+                "`import_floor_id` INTEGER, " +
+                "`batch_number` INTEGER NOT NULL, " +
+                "`updated_at` INTEGER NOT NULL, " +
+                "PRIMARY KEY(`id`))"
+            );
+        }
+    };
+
+    static final Migration MIGRATION_17_18 = new Migration(17, 18) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            Log.d(TAG, "Performing migration from 17 to 18 - Import source identity");
+
+            // -1 means unknown: a checkpoint saved before this version resumes unchecked
+            database.execSQL("ALTER TABLE import_checkpoint ADD COLUMN source_size INTEGER NOT NULL DEFAULT -1");
+            database.execSQL("ALTER TABLE import_checkpoint ADD COLUMN source_modified_at INTEGER NOT NULL DEFAULT -1");
+        }
+    };
+
+    private static InventoryDatabase build(Context context, String name, boolean destructiveFallback) {
+        RoomDatabase.Builder<InventoryDatabase> builder = Room.databaseBuilder(
+                        context.getApplicationContext(),
+                        InventoryDatabase.class,
+                        name)
+                .addMigrations(MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10,
+                        MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13,
+                        MIGRATION_13_14, MIGRATION_14_15, MIGRATION_15_16,
+                        MIGRATION_16_17, MIGRATION_17_18)
+                // Room would pick rollback journaling on low-RAM devices, where an export's read
+                // transaction (ExportSnapshot) would block every commit until it finished
+                .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                // LiveData and paging queries share the app's read pool rather than Room's own
+                .setQueryExecutor(AppExecutors.get(context).diskRead())
+                .addCallback(new RoomDatabase.Callback() {
+                    @Override
+                    public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                        super.onCreate(db);
+                        Log.d(TAG, "Database created");
+                    }
+
+                    @Override
+                    public void onOpen(@NonNull SupportSQLiteDatabase db) {
+                        super.onOpen(db);
+                        // Room only creates what the entities describe; this also
+                        // covers fresh installs and destructive fallbacks
+                        createChangeTrackingTriggers(db);
+                        Log.d(TAG, "Database opened");
+                    }
+                });
+        if (destructiveFallback) {
+            builder.fallbackToDestructiveMigration(); // As a last resort
+        }
+        return builder.build();
+    }
+
+    // Brings another database file in the databases directory up to SCHEMA_VERSION by opening it
+    // once. Never destructive: a file the migrations can't carry forward throws instead of being
+    // emptied, which a merge would otherwise read as "nothing to merge".
+    static void migrateFile(Context context, String name) throws IOException {
+        int version;
+        try (SQLiteDatabase db = SQLiteDatabase.openDatabase(context.getDatabasePath(name).getPath(), null,
+                SQLiteDatabase.OPEN_READONLY)) {
+            version = db.getVersion();
+        } catch (SQLiteException e) {
+            throw new IOException("Database could not be opened", e);
+        }
+        if (version < DatabaseBackup.OLDEST_RESTORABLE_VERSION || version > SCHEMA_VERSION) {
+            throw new IOException("Database schema " + version + " can't be migrated to " + SCHEMA_VERSION);
+        }
+
+        InventoryDatabase database = build(context, name, false);
+        try {
+            database.getOpenHelper().getWritableDatabase();
+        } catch (RuntimeException e) {
+            throw new IOException("Database could not be migrated from schema " + version, e);
+        } finally {
+            database.close();
+        }
+    }
+
     public static InventoryDatabase getDatabase(final Context context) {
         if (INSTANCE == null) {
             synchronized (InventoryDatabase.class) {
                 if (INSTANCE == null) {
                     try {
-                        INSTANCE = Room.databaseBuilder(
-                                        context.getApplicationContext(),
-                                        InventoryDatabase.class,
-                                        DATABASE_NAME)
-                                .addMigrations(MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10)
-                                .fallbackToDestructiveMigration() // As a last resort
-                                .addCallback(new RoomDatabase.Callback() {
-                                    @Override
-                                    public void onCreate(@NonNull SupportSQLiteDatabase db) {
-                                        super.onCreate(db);
-                                        Log.d(TAG, "Database created");
-                                    }
-
-                                    @Override
-                                    public void onOpen(@NonNull SupportSQLiteDatabase db) {
-                                        super.onOpen(db);
-                                        Log.d(TAG, "Database opened");
-                                    }
-                                })
-                                .build();
+                        INSTANCE = build(context, DATABASE_NAME, true);
 
                     } catch (Exception e) {
                         Log.e(TAG, "Error creating database", e);
@@ -188,4 +524,29 @@ public abstract class InventoryDatabase extends RoomDatabase {
     public static void destroyInstance() {
         INSTANCE = null;
     }
+
+    /**
+     * Closes the open instance and moves replacement over the database file. Held under
+     * the same lock as getDatabase, so nothing can reopen the old file mid-swap.
+     */
+    static void replaceDatabaseFile(File replacement, File databaseFile) throws IOException {
+        synchronized (InventoryDatabase.class) {
+            InventoryDatabase open = INSTANCE;
+            destroyInstance();
+            if (open != null) {
+                // Waits for running transactions and checkpoints the WAL into the old file
+                open.close();
+            }
+            for (String suffix : new String[] {"-wal", "-shm", "-journal"}) {
+                File stale = new File(databaseFile.getPath() + suffix);
+                if (stale.exists() && !stale.delete()) {
+                    throw new IOException("Could not remove " + stale.getName());
+                }
+            }
+            if (!replacement.renameTo(databaseFile)) {
+                throw new IOException("Could not replace " + databaseFile.getName());
+            }
+            Log.d(TAG, "Replaced database file");
+        }
+    }
 }
\ No newline at end of file
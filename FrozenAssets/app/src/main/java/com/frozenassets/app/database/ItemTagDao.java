@@ -0,0 +1,80 @@
+package com.frozenassets.app.database;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.models.ItemTag;
+import com.frozenassets.app.models.TagCount;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+@Dao
+public interface ItemTagDao {
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertAll(List<ItemTag> itemTags);
+
+    @Query("DELETE FROM item_tags WHERE item_id = :itemId")
+    void deleteForItem(int itemId);
+
+    @Query("SELECT id FROM tags WHERE name = :name LIMIT 1")
+    Integer getTagId(String name);
+
+    @Query("INSERT INTO tags (name, isDefault) VALUES (:name, 0)")
+    long insertTagName(String name);
+
+    // Adds any names missing from the vocabulary, e.g. when importing a bundle
+    @Transaction
+    default void ensureTagNames(Collection<String> tagNames) {
+        for (String tagName : tagNames) {
+            if (tagName != null && !tagName.trim().isEmpty() && getTagId(tagName) == null) {
+                insertTagName(tagName);
+            }
+        }
+    }
+
+    @Query("SELECT inventory_items.* FROM inventory_items " +
+           "JOIN item_tags ON item_tags.item_id = inventory_items.id " +
+           "WHERE item_tags.tag_id = :tagId ORDER BY inventory_items.expirationDate ASC")
+    LiveData<List<InventoryItem>> getItemsByTagId(int tagId);
+
+    @Query("SELECT inventory_items.* FROM inventory_items " +
+           "JOIN item_tags ON item_tags.item_id = inventory_items.id " +
+           "WHERE item_tags.tag_id IN (SELECT id FROM tags WHERE name = :tagName) " +
+           "ORDER BY inventory_items.expirationDate ASC")
+    LiveData<List<InventoryItem>> getItemsByTagName(String tagName);
+
+    @Query("SELECT tags.id AS tag_id, tags.name AS name, COUNT(item_tags.item_id) AS item_count " +
+           "FROM tags LEFT JOIN item_tags ON item_tags.tag_id = tags.id " +
+           "GROUP BY tags.id ORDER BY tags.name")
+    LiveData<List<TagCount>> getTagCounts();
+
+    // Rewrites an item's links from its tag names, adding unknown names to the vocabulary
+    @Transaction
+    default void replaceTagsForItem(int itemId, List<String> tagNames) {
+        deleteForItem(itemId);
+        if (tagNames == null || tagNames.isEmpty()) {
+            return;
+        }
+
+        List<ItemTag> links = new ArrayList<>();
+        for (String tagName : new LinkedHashSet<>(tagNames)) {
+            if (tagName == null || tagName.trim().isEmpty()) {
+                continue;
+            }
+            Integer tagId = getTagId(tagName);
+            if (tagId == null) {
+                tagId = (int) insertTagName(tagName);
+            }
+            links.add(new ItemTag(itemId, tagId));
+        }
+        insertAll(links);
+    }
+}
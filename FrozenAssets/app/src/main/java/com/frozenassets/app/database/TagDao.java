@@ -0,0 +1,25 @@
+package com.frozenassets.app.database;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.frozenassets.app.models.Tag;
+
+import java.util.List;
+
+// The tag vocabulary itself; links between items and tags live in ItemTagDao
+@Dao
+public interface TagDao {
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insert(Tag tag);
+
+    // Default tags first, then the user's own, for the tag picker
+    @Query("SELECT * FROM tags WHERE name IS NOT NULL ORDER BY isDefault DESC, name COLLATE NOCASE")
+    LiveData<List<Tag>> getAllTags();
+
+    @Query("SELECT * FROM tags WHERE name = :name LIMIT 1")
+    Tag getTagByName(String name);
+}
@@ -0,0 +1,223 @@
+package com.frozenassets.app.importexport;
+
+import android.util.Log;
+
+import com.frozenassets.app.database.InventoryDatabase;
+import com.frozenassets.app.models.Tag;
+import com.frozenassets.app.repositories.ImportBatchWriter;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads an export bundle written by ExportBundleWriter. The bundle is spooled to a
+ * temp file and checked against its manifest before anything is written: entry
+ * checksums and row counts must match, and a bundle from a newer schema is
+ * refused, so a damaged or incompatible file fails without touching the database.
+ * A bundle without a manifest is imported unverified and says so in the result.
+ * Applying a change bundle is the same pass: items upsert by id and deleted.json
+ * removes the listed ids. A resumed import replays tags and deletions (both
+ * idempotent) and skips the item elements that were already committed.
+ */
+public class BundleImporter {
+    private static final String TAG = "BundleImporter";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private BundleImporter() {
+    }
+
+    public static ImportResult importBundle(InputStream in, ImportBatchWriter writer) throws IOException {
+        return importBundle(in, writer, 0, null);
+    }
+
+    // Progress covers the importing pass over the spooled copy, in bytes of the bundle
+    static ImportResult importBundle(InputStream in, ImportBatchWriter writer, long skipItems,
+                                     ProgressListener progress) throws IOException {
+        // java.io.tmpdir is the app's cache dir on Android
+        File spooled = File.createTempFile("bundle-", ".zip");
+        try {
+            try (OutputStream out = new FileOutputStream(spooled)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+
+            ImportResult result = new ImportResult();
+            BundleManifest manifest = verify(spooled);
+            if (manifest == null) {
+                result.problem("Bundle has no manifest; contents were not verified");
+            } else if (manifest.isChangeSet()) {
+                Log.d(TAG, "Applying changes since " + manifest.getChangesSince());
+            }
+
+            InputStream source = new FileInputStream(spooled);
+            if (progress != null) {
+                source = new CountingInputStream(source, spooled.length(), progress);
+            }
+            try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(source, BUFFER_SIZE))) {
+                importEntries(zip, writer, skipItems, result);
+            }
+            Log.d(TAG, "Bundle import finished: " + result);
+            return result;
+        } finally {
+            if (!spooled.delete()) {
+                Log.w(TAG, "Could not delete spooled bundle " + spooled);
+            }
+        }
+    }
+
+    private static void importEntries(ZipInputStream zip, ImportBatchWriter writer, long skipItems,
+                                      ImportResult result) throws IOException {
+        ZipEntry zipEntry;
+        while ((zipEntry = zip.getNextEntry()) != null) {
+            String name = zipEntry.getName();
+            // Never closed: that would close the zip stream too
+            JsonReader json = new JsonReader(new InputStreamReader(zip, StandardCharsets.UTF_8));
+
+            switch (name) {
+                case ExportBundleWriter.TAGS_ENTRY:
+                    importTags(json, writer);
+                    break;
+                case ExportBundleWriter.DELETED_ENTRY:
+                    // Only change bundles have this entry, and it precedes items.json;
+                    // their rows are updates to known ids, not candidates for duplicate matching
+                    writer.setDuplicatePolicy(ImportBatchWriter.DuplicatePolicy.BY_ID);
+                    importDeletions(json, writer, result);
+                    break;
+                case ExportBundleWriter.ITEMS_ENTRY:
+                    JsonItemImporter.importItems(json, writer, result, skipItems);
+                    break;
+                case ExportBundleWriter.MANIFEST_ENTRY:
+                    break;
+                default:
+                    Log.w(TAG, "Ignoring unknown bundle entry " + name);
+                    break;
+            }
+            zip.closeEntry();
+        }
+    }
+
+    // Checksums and counts every entry; throws if the bundle doesn't match its manifest
+    // or needs a newer app. Returns null when there is no manifest to check against.
+    private static BundleManifest verify(File bundle) throws IOException {
+        Map<String, BundleManifest.Entry> actual = new HashMap<>();
+        BundleManifest manifest = null;
+        byte[] skip = new byte[8192];
+        try (ZipInputStream zip = new ZipInputStream(
+                new BufferedInputStream(new FileInputStream(bundle), BUFFER_SIZE))) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zip.getNextEntry()) != null) {
+                String name = zipEntry.getName();
+                BundleManifest.Entry entry = new BundleManifest.Entry(name);
+                CheckedInputStream checked = new CheckedInputStream(zip, new CRC32());
+                // Never closed: that would close the zip stream too
+                JsonReader json = new JsonReader(new InputStreamReader(checked, StandardCharsets.UTF_8));
+
+                switch (name) {
+                    case ExportBundleWriter.TAGS_ENTRY:
+                    case ExportBundleWriter.DELETED_ENTRY:
+                    case ExportBundleWriter.ITEMS_ENTRY:
+                        entry.rows = countElements(json);
+                        break;
+                    case ExportBundleWriter.MANIFEST_ENTRY:
+                        manifest = BundleManifest.read(json);
+                        break;
+                    default:
+                        break;
+                }
+
+                // Consume whatever the parser left so the checksum covers the whole entry
+                while (checked.read(skip) >= 0) {
+                    // Discard
+                }
+                entry.crc32 = checked.getChecksum().getValue();
+                actual.put(name, entry);
+                zip.closeEntry();
+            }
+        }
+
+        if (manifest == null) {
+            return null;
+        }
+        if (manifest.getSchemaVersion() > InventoryDatabase.SCHEMA_VERSION) {
+            throw new IOException("Bundle was written by a newer version of the app (schema "
+                    + manifest.getSchemaVersion() + "); update the app to import it");
+        }
+        for (BundleManifest.Entry expected : manifest.getEntries()) {
+            BundleManifest.Entry found = actual.get(expected.name);
+            if (found == null) {
+                throw new IOException("Bundle is missing " + expected.name);
+            } else if (found.crc32 != expected.crc32) {
+                throw new IOException("Checksum mismatch in " + expected.name);
+            } else if (found.rows != expected.rows) {
+                throw new IOException(expected.name + " has " + found.rows + " rows, manifest says "
+                        + expected.rows);
+            }
+        }
+        return manifest;
+    }
+
+    private static long countElements(JsonReader json) throws IOException {
+        long count = 0;
+        json.beginArray();
+        while (json.hasNext()) {
+            json.skipValue();
+            count++;
+        }
+        json.endArray();
+        return count;
+    }
+
+    private static void importTags(JsonReader json, ImportBatchWriter writer) throws IOException {
+        TypeAdapter<Tag> tagAdapter = InventoryGson.tagAdapter();
+        List<String> names = new ArrayList<>();
+        json.beginArray();
+        while (json.hasNext()) {
+            Tag tag = tagAdapter.read(json);
+            if (tag != null) {
+                names.add(tag.getName());
+            }
+        }
+        json.endArray();
+        writer.addTagNames(names);
+    }
+
+    private static void importDeletions(JsonReader json, ImportBatchWriter writer, ImportResult result)
+            throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        json.beginArray();
+        while (json.hasNext()) {
+            json.beginObject();
+            while (json.hasNext()) {
+                if ("id".equals(json.nextName()) && json.peek() == JsonToken.NUMBER) {
+                    ids.add(json.nextInt());
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+        }
+        json.endArray();
+        result.rowsDeleted(writer.deleteItems(ids));
+    }
+}
@@ -0,0 +1,164 @@
+package com.frozenassets.app.importexport;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * manifest.json of an export bundle: what wrote it, which schema the rows came
+ * from, and the row count and CRC-32 of every data entry so an import can verify them.
+ * changesSince is only set on change bundles and is the epoch-millis lower bound they cover.
+ */
+public class BundleManifest {
+    public static final String FORMAT = "frozenassets-bundle";
+    public static final int BUNDLE_VERSION = 1;
+
+    public static class Entry {
+        public final String name;
+        public long rows;
+        public long bytes;
+        public long crc32;
+
+        public Entry(String name) {
+            this.name = name;
+        }
+    }
+
+    private int bundleVersion = BUNDLE_VERSION;
+    private int schemaVersion;
+    private String createdAt;
+    private Long changesSince;
+    private final List<Entry> entries = new ArrayList<>();
+
+    public BundleManifest(int schemaVersion, String createdAt) {
+        this.schemaVersion = schemaVersion;
+        this.createdAt = createdAt;
+    }
+
+    private BundleManifest() {
+    }
+
+    public int getBundleVersion() { return bundleVersion; }
+    public int getSchemaVersion() { return schemaVersion; }
+    public String getCreatedAt() { return createdAt; }
+    public Long getChangesSince() { return changesSince; }
+    public void setChangesSince(Long changesSince) { this.changesSince = changesSince; }
+    public boolean isChangeSet() { return changesSince != null; }
+    public List<Entry> getEntries() { return entries; }
+
+    public Entry getEntry(String name) {
+        for (Entry entry : entries) {
+            if (entry.name.equals(name)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    void write(JsonWriter out) throws IOException {
+        out.beginObject();
+        out.name("format").value(FORMAT);
+        out.name("bundleVersion").value(bundleVersion);
+        out.name("schemaVersion").value(schemaVersion);
+        out.name("createdAt").value(createdAt);
+        if (changesSince != null) {
+            out.name("changesSince").value(changesSince);
+        }
+        out.name("entries").beginArray();
+        for (Entry entry : entries) {
+            out.beginObject();
+            out.name("name").value(entry.name);
+            out.name("rows").value(entry.rows);
+            out.name("bytes").value(entry.bytes);
+            out.name("crc32").value(entry.crc32);
+            out.endObject();
+        }
+        out.endArray();
+        out.endObject();
+    }
+
+    static BundleManifest read(JsonReader in) throws IOException {
+        BundleManifest manifest = new BundleManifest();
+        String format = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "format":
+                    format = in.nextString();
+                    break;
+                case "bundleVersion":
+                    manifest.bundleVersion = in.nextInt();
+                    break;
+                case "schemaVersion":
+                    manifest.schemaVersion = in.nextInt();
+                    break;
+                case "createdAt":
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                    } else {
+                        manifest.createdAt = in.nextString();
+                    }
+                    break;
+                case "changesSince":
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                    } else {
+                        manifest.changesSince = in.nextLong();
+                    }
+                    break;
+                case "entries":
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        manifest.entries.add(readEntry(in));
+                    }
+                    in.endArray();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        if (!FORMAT.equals(format)) {
+            throw new IOException("Not an export bundle manifest: " + format);
+        }
+        return manifest;
+    }
+
+    private static Entry readEntry(JsonReader in) throws IOException {
+        String name = null;
+        long rows = 0;
+        long bytes = 0;
+        long crc32 = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "name":
+                    name = in.nextString();
+                    break;
+                case "rows":
+                    rows = in.nextLong();
+                    break;
+                case "bytes":
+                    bytes = in.nextLong();
+                    break;
+                case "crc32":
+                    crc32 = in.nextLong();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        Entry entry = new Entry(name != null ? name : "");
+        entry.rows = rows;
+        entry.bytes = bytes;
+        entry.crc32 = crc32;
+        return entry;
+    }
+}
@@ -0,0 +1,77 @@
+package com.frozenassets.app.importexport;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts bytes read from the source file and reports them every REPORT_INTERVAL
+ * bytes, so an import can show determinate progress against the file size
+ * whatever format ends up parsing it.
+ */
+public class CountingInputStream extends FilterInputStream {
+    private static final long REPORT_INTERVAL = 256 * 1024;
+
+    private final long total;
+    private final ProgressListener listener;
+    private long count = 0;
+    private long nextReport = REPORT_INTERVAL;
+    private long mark = -1;
+
+    public CountingInputStream(InputStream in, long total, ProgressListener listener) {
+        super(in);
+        this.total = total;
+        this.listener = listener;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            advance(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            advance(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            advance(skipped);
+        }
+        return skipped;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        super.mark(readLimit);
+        mark = count;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        super.reset();
+        count = mark;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    private void advance(long bytes) throws IOException {
+        count += bytes;
+        if (count >= nextReport) {
+            nextReport = count + REPORT_INTERVAL;
+            listener.onProgress(count, total);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.frozenassets.app.importexport;
+
+import android.util.Log;
+
+import com.frozenassets.app.models.ImportCheckpoint;
+import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.repositories.ImportBatchWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streams the app's CSV export format straight into an ImportBatchWriter.
+ * Records are mapped to items by CsvItemParser.
+ */
+public class CsvItemImporter {
+    private static final String TAG = "CsvItemImporter";
+
+    private CsvItemImporter() {
+    }
+
+    // Reads every record after the header; the caller owns (and closes) the writer
+    public static ImportResult importItems(Reader reader, ImportBatchWriter writer) throws IOException {
+        return importItems(reader, writer, null);
+    }
+
+    // With resumeFrom, the reader must already be positioned at its byte offset (past the header)
+    static ImportResult importItems(Reader reader, ImportBatchWriter writer, ImportCheckpoint resumeFrom)
+            throws IOException {
+        ImportResult result = new ImportResult();
+        long records = resumeFrom != null ? resumeFrom.getRecordsRead() : 0;
+        try (CsvTokenizer csv = resumeFrom != null
+                ? new CsvTokenizer(reader, CsvTokenizer.BUFFER_SIZE, resumeFrom.getNextLine(), resumeFrom.getByteOffset())
+                : new CsvTokenizer(reader)) {
+            if (resumeFrom == null && !csv.nextRecord()) {
+                return result; // Empty file
+            }
+            while (csv.nextRecord()) {
+                records++;
+                if (csv.isBlank()) {
+                    continue;
+                }
+                InventoryItem item = CsvItemParser.toItem(csv, result);
+                if (item != null) {
+                    writer.markSourcePosition(csv.getByteOffset(), csv.getNextLine(), records);
+                    writer.add(item);
+                    result.rowImported();
+                }
+            }
+        }
+        Log.d(TAG, "CSV import finished: " + result);
+        return result;
+    }
+}
@@ -0,0 +1,278 @@
+package com.frozenassets.app.importexport;
+
+import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.utils.DateUtils;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Maps records of the app's CSV export format to items, and cuts a CSV stream into
+ * chunks of whole records that can be parsed independently. Free of Android and
+ * Room, so the command-line tool parses exports exactly the way the app imports them.
+ * Columns: Name,Category,Quantity,Date Frozen,Expiration Date,Notes,Tags,Weight,Weight Unit,Max Freeze Days
+ */
+public final class CsvItemParser {
+    static final int COL_NAME = 0;
+    static final int COL_CATEGORY = 1;
+    static final int COL_QUANTITY = 2;
+    static final int COL_DATE_FROZEN = 3;
+    static final int COL_EXPIRATION = 4;
+    static final int COL_NOTES = 5;
+    static final int COL_TAGS = 6;
+    static final int COL_WEIGHT = 7;
+    static final int COL_WEIGHT_UNIT = 8;
+    static final int COL_MAX_FREEZE_DAYS = 9;
+
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024; // chars, roughly 2-3k rows
+
+    private CsvItemParser() {
+    }
+
+    // Maps the tokenizer's current record, or returns null (and records why) if unusable
+    public static InventoryItem toItem(CsvTokenizer csv, ImportResult result) {
+        long line = csv.getRecordLine();
+        String name = csv.getTrimmed(COL_NAME);
+        String category = csv.getTrimmed(COL_CATEGORY);
+        if (csv.getFieldCount() < 3 || name.isEmpty() || category.isEmpty()) {
+            result.rowSkipped("Line " + line + ": missing name, category or quantity");
+            return null;
+        }
+
+        InventoryItem item = new InventoryItem();
+        item.setName(name);
+        item.setCategory(category);
+
+        String quantity = csv.getTrimmed(COL_QUANTITY);
+        item.setQuantity(1);
+        if (!quantity.isEmpty()) {
+            try {
+                item.setQuantity(Integer.parseInt(quantity));
+            } catch (NumberFormatException e) {
+                result.problem("Line " + line + ": invalid quantity '" + quantity + "', defaulting to 1");
+            }
+        }
+
+        item.setDateFrozen(parseDate(csv, COL_DATE_FROZEN, "date frozen", result));
+        item.setExpirationDate(parseDate(csv, COL_EXPIRATION, "expiration date", result));
+
+        if (csv.getFieldCount() > COL_NOTES) {
+            item.setNotes(csv.getRaw(COL_NOTES));
+        }
+        String tags = csv.getRaw(COL_TAGS);
+        if (!tags.isEmpty()) {
+            item.setTags(splitTags(tags));
+        }
+        if (csv.getFieldCount() > COL_WEIGHT) {
+            item.setWeight(csv.getRaw(COL_WEIGHT));
+        }
+        if (csv.getFieldCount() > COL_WEIGHT_UNIT) {
+            item.setWeightUnit(csv.getRaw(COL_WEIGHT_UNIT));
+        }
+        String maxFreezeDays = csv.getTrimmed(COL_MAX_FREEZE_DAYS);
+        if (!maxFreezeDays.isEmpty()) {
+            try {
+                item.setMaxFreezeDays(Integer.parseInt(maxFreezeDays));
+            } catch (NumberFormatException e) {
+                // Leave default value (will be set by constructor)
+                result.problem("Line " + line + ": invalid max freeze days '" + maxFreezeDays + "'");
+            }
+        }
+        return item;
+    }
+
+    private static Date parseDate(CsvTokenizer csv, int column, String label, ImportResult result) {
+        String text = csv.getTrimmed(column);
+        if (text.isEmpty()) {
+            return null;
+        }
+        Date date = DateUtils.parseIsoDate(text);
+        if (date == null) {
+            result.problem("Line " + csv.getRecordLine() + ": invalid " + label + " '" + text + "'");
+        }
+        return date;
+    }
+
+    // Tags are exported joined with ';'
+    public static List<String> splitTags(String tags) {
+        List<String> list = new ArrayList<>();
+        int start = 0;
+        while (start <= tags.length()) {
+            int end = tags.indexOf(';', start);
+            if (end < 0) {
+                end = tags.length();
+            }
+            if (end > start) {
+                list.add(tags.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return list;
+    }
+
+    // Thread-safe; the first chunk starts with the header row
+    public static ParsedChunk parse(Chunk chunk) throws IOException {
+        ParsedChunk parsed = new ParsedChunk();
+        int bufferSize = Math.max(1, Math.min(chunk.length, 64 * 1024));
+        try (CsvTokenizer csv = new CsvTokenizer(new CharArrayReader(chunk.text, 0, chunk.length),
+                bufferSize, chunk.firstLine, chunk.firstByteOffset)) {
+            boolean header = chunk.first;
+            while (csv.nextRecord()) {
+                if (header) {
+                    header = false;
+                    continue;
+                }
+                parsed.recordCount++;
+                if (csv.isBlank()) {
+                    continue;
+                }
+                InventoryItem item = toItem(csv, parsed.result);
+                if (item != null) {
+                    parsed.add(item, csv.getByteOffset(), csv.getNextLine());
+                    parsed.result.rowImported();
+                }
+            }
+        }
+        return parsed;
+    }
+
+    public static final class Chunk {
+        final char[] text;
+        final int length;
+        final long firstLine;
+        final long firstByteOffset;
+        final boolean first;
+
+        Chunk(char[] text, int length, long firstLine, long firstByteOffset, boolean first) {
+            this.text = text;
+            this.length = length;
+            this.firstLine = firstLine;
+            this.firstByteOffset = firstByteOffset;
+            this.first = first;
+        }
+
+        @Override
+        public String toString() {
+            return new String(text, 0, length);
+        }
+    }
+
+    public static final class ParsedChunk {
+        final List<InventoryItem> items = new ArrayList<>();
+        final ImportResult result = new ImportResult();
+        // Per item: source position just past its record, and its record number within the chunk
+        long[] byteOffsets = new long[256];
+        long[] nextLines = new long[256];
+        long[] records = new long[256];
+        long recordCount = 0;
+
+        void add(InventoryItem item, long byteOffset, long nextLine) {
+            int i = items.size();
+            if (i == byteOffsets.length) {
+                byteOffsets = Arrays.copyOf(byteOffsets, i * 2);
+                nextLines = Arrays.copyOf(nextLines, i * 2);
+                records = Arrays.copyOf(records, i * 2);
+            }
+            items.add(item);
+            byteOffsets[i] = byteOffset;
+            nextLines[i] = nextLine;
+            records[i] = recordCount;
+        }
+
+        public List<InventoryItem> getItems() { return Collections.unmodifiableList(items); }
+        public ImportResult getResult() { return result; }
+    }
+
+    /**
+     * Cuts the input after an LF that is outside quotes once a chunk reaches the
+     * target size. Inside/outside quotes is just the parity of '"' seen so far,
+     * which is exactly how CsvTokenizer tracks it. Lines are counted the way the
+     * tokenizer counts them (LF, CRLF or a lone CR) so every chunk knows its first line.
+     * A file with CR-only line endings never splits and simply parses as one chunk.
+     */
+    public static final class ChunkSplitter {
+        private final Reader reader;
+        private final int targetSize;
+        private final char[] readBuffer = new char[64 * 1024];
+        private int readPosition = 0;
+        private int readLimit = 0;
+        private boolean inQuotes = false;
+        private boolean previousCr = false;
+        private char previous = 0;
+        private long nextLine = 1;
+        private long nextByteOffset = 0;
+        private boolean first = true;
+
+        public ChunkSplitter(Reader reader, int targetSize) {
+            this(reader, targetSize, 1, 0);
+        }
+
+        // Input that starts mid-file, after the header: no chunk is treated as the first
+        ChunkSplitter(Reader reader, int targetSize, long firstLine, long firstByteOffset) {
+            this.reader = reader;
+            this.targetSize = targetSize;
+            this.nextLine = firstLine;
+            this.nextByteOffset = firstByteOffset;
+            this.first = firstByteOffset == 0;
+        }
+
+        // Null once the input is exhausted
+        public Chunk next() throws IOException {
+            char[] text = new char[targetSize + targetSize / 4];
+            int length = 0;
+            long lines = 0;
+            long bytes = 0;
+            while (readPosition < readLimit || fill()) {
+                char c = readBuffer[readPosition++];
+                if (length == text.length) {
+                    text = Arrays.copyOf(text, length * 2);
+                }
+                text[length++] = c;
+                bytes += CsvTokenizer.utf8Length(c, previous);
+                previous = c;
+
+                if (previousCr && c != '\n') {
+                    lines++; // A lone CR ended the previous line
+                }
+                previousCr = false;
+                if (c == '"') {
+                    inQuotes = !inQuotes;
+                } else if (c == '\n') {
+                    lines++;
+                    if (!inQuotes && length >= targetSize) {
+                        break;
+                    }
+                } else if (c == '\r') {
+                    previousCr = true;
+                }
+            }
+            if (length == 0) {
+                return null;
+            }
+            Chunk chunk = new Chunk(text, length, nextLine, nextByteOffset, first);
+            first = false;
+            nextLine += lines;
+            nextByteOffset += bytes;
+            return chunk;
+        }
+
+        private boolean fill() throws IOException {
+            int read;
+            do {
+                read = reader.read(readBuffer, 0, readBuffer.length);
+            } while (read == 0);
+            if (read < 0) {
+                return false;
+            }
+            readPosition = 0;
+            readLimit = read;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.frozenassets.app.importexport;
+
+import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.utils.DateUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes items in the CSV layout CsvItemImporter reads back. Fields are written
+ * straight to the (buffered) writer, quoting only when a value needs it.
+ */
+public class CsvItemWriter implements ItemSink {
+    public static final String HEADER =
+            "Name,Category,Quantity,Date Frozen,Expiration Date,Notes,Tags,Weight,Weight Unit,Max Freeze Days";
+
+    private final Writer writer;
+
+    public CsvItemWriter(Writer writer) throws IOException {
+        this(writer, true);
+    }
+
+    // Without the header, for rows formatted apart and joined into one file later
+    public CsvItemWriter(Writer writer, boolean header) throws IOException {
+        this.writer = writer;
+        if (header) {
+            writer.write(HEADER);
+            writer.write('\n');
+        }
+    }
+
+    @Override
+    public void write(InventoryItem item) throws IOException {
+        writeField(item.getName());
+        writer.write(',');
+        writeField(item.getCategory());
+        writer.write(',');
+        writer.write(Integer.toString(item.getQuantity()));
+        writer.write(',');
+        writeField(DateUtils.formatEpochDay(item.getFrozenEpochDay()));
+        writer.write(',');
+        writeField(DateUtils.formatEpochDay(item.getExpirationEpochDay()));
+        writer.write(',');
+        writeField(item.getNotes());
+        writer.write(',');
+        writeTags(item.getTags());
+        writer.write(',');
+        writeField(item.getWeight());
+        writer.write(',');
+        writeField(item.getWeightUnit());
+        writer.write(',');
+        writer.write(Integer.toString(item.getMaxFreezeDays()));
+        writer.write('\n');
+    }
+
+    private void writeTags(List<String> tags) throws IOException {
+        if (tags == null || tags.isEmpty()) {
+            return;
+        }
+        writeField(String.join(";", tags));
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        if (!needsQuotes(value)) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        int start = 0;
+        int quote;
+        while ((quote = value.indexOf('"', start)) >= 0) {
+            writer.write(value, start, quote + 1 - start);
+            writer.write('"');
+            start = quote + 1;
+        }
+        writer.write(value, start, value.length() - start);
+        writer.write('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        // Keep surrounding spaces, which the importer would otherwise trim
+        return value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ';
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,202 @@
+package com.frozenassets.app.importexport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 tokenizer. Reads through a fixed char buffer and keeps one
+ * reusable StringBuilder per column, so memory stays flat however large the file is.
+ * Quoted fields may contain commas, doubled quotes and line breaks (LF, CRLF or CR).
+ * Also counts the bytes consumed, so an interrupted import can seek straight back to
+ * the end of the last committed record; read through Utf8Reader so that bytes which
+ * aren't valid UTF-8 are counted one for one rather than folded into a U+FFFD.
+ */
+public class CsvTokenizer implements Closeable {
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int position = 0;
+    private int limit = 0;
+    private boolean atStart = true;
+
+    private final List<StringBuilder> fields = new ArrayList<>();
+    private int fieldCount = 0;
+    private long line = 1;
+    private long recordLine = 0;
+    private long byteOffset = 0;
+    private char previous = 0;
+
+    public CsvTokenizer(Reader reader) {
+        this(reader, BUFFER_SIZE);
+    }
+
+    CsvTokenizer(Reader reader, int bufferSize) {
+        this(reader, bufferSize, 1);
+    }
+
+    // For a slice of a larger file (see ParallelCsvImporter): line numbers start at firstLine
+    CsvTokenizer(Reader reader, int bufferSize, long firstLine) {
+        this(reader, bufferSize, firstLine, 0);
+    }
+
+    // For input that starts firstByteOffset bytes into the file, e.g. when resuming an import
+    CsvTokenizer(Reader reader, int bufferSize, long firstLine, long firstByteOffset) {
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+        this.line = firstLine;
+        this.byteOffset = firstByteOffset;
+        this.atStart = firstByteOffset == 0;
+    }
+
+    // Reads the next record into the field buffers; false once the input is exhausted
+    public boolean nextRecord() throws IOException {
+        fieldCount = 0;
+        if (!fill()) {
+            return false;
+        }
+        if (atStart) {
+            atStart = false;
+            if (buffer[position] == '\uFEFF') {
+                position++; // Byte order mark left by spreadsheet exports
+                byteOffset += utf8Length('\uFEFF', previous);
+            }
+        }
+
+        recordLine = line;
+        StringBuilder field = startField();
+        boolean inQuotes = false;
+        while (fill()) {
+            char c = buffer[position++];
+            byteOffset += utf8Length(c, previous);
+            if (Utf8Reader.isEscapedByte(c, previous)) {
+                previous = c;
+                field.append('\uFFFD');
+                continue;
+            }
+            previous = c;
+            if (c == '"') {
+                if (inQuotes && fill() && buffer[position] == '"') {
+                    field.append('"');
+                    position++;
+                    byteOffset++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else if (inQuotes) {
+                if (c == '\n' || (c == '\r' && !(fill() && buffer[position] == '\n'))) {
+                    line++;
+                }
+                field.append(c);
+            } else if (c == ',') {
+                field = startField();
+            } else if (c == '\n') {
+                line++;
+                return true;
+            } else if (c == '\r') {
+                if (fill() && buffer[position] == '\n') {
+                    position++;
+                    byteOffset++;
+                }
+                line++;
+                return true;
+            } else {
+                field.append(c);
+            }
+        }
+        return true; // Last record without a trailing newline
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    // Field contents with surrounding whitespace removed; "" when the column is missing
+    public String getTrimmed(int index) {
+        if (index >= fieldCount) {
+            return "";
+        }
+        StringBuilder field = fields.get(index);
+        int start = 0;
+        int end = field.length();
+        while (start < end && field.charAt(start) <= ' ') start++;
+        while (end > start && field.charAt(end - 1) <= ' ') end--;
+        return start == end ? "" : field.substring(start, end);
+    }
+
+    public String getRaw(int index) {
+        return index < fieldCount ? fields.get(index).toString() : "";
+    }
+
+    // True when the record is an empty or whitespace-only line
+    public boolean isBlank() {
+        return fieldCount == 1 && getTrimmed(0).isEmpty();
+    }
+
+    // 1-based line on which the current record starts
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    // 1-based line on which the next record starts
+    public long getNextLine() {
+        return line;
+    }
+
+    // UTF-8 bytes of input consumed so far, i.e. the file offset just past the current record
+    public long getByteOffset() {
+        return byteOffset;
+    }
+
+    // A surrogate is half of a 4-byte sequence, unless it is a byte escaped by Utf8Reader
+    static int utf8Length(char c, char previous) {
+        if (c < 0x80) {
+            return 1;
+        }
+        if (c < 0x800) {
+            return 2;
+        }
+        if (Character.isSurrogate(c)) {
+            return Utf8Reader.isEscapedByte(c, previous) ? 1 : 2;
+        }
+        return 3;
+    }
+
+    private StringBuilder startField() {
+        StringBuilder field;
+        if (fieldCount < fields.size()) {
+            field = fields.get(fieldCount);
+            field.setLength(0);
+        } else {
+            field = new StringBuilder(32);
+            fields.add(field);
+        }
+        fieldCount++;
+        return field;
+    }
+
+    private boolean fill() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+        int read;
+        do {
+            read = reader.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0) {
+            limit = position = 0;
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,157 @@
+package com.frozenassets.app.importexport;
+
+import android.database.Cursor;
+
+import com.frozenassets.app.models.InventoryItem;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a compressed export bundle: a zip holding tags.json (the tag vocabulary),
+ * items.json (compact JSON, same element format as a plain JSON export) and
+ * manifest.json. Everything is deflated as it streams; the manifest goes last
+ * because it carries the row counts and CRCs of the entries before it.
+ * A change bundle (changesSince set) only holds rows written since then, plus
+ * deleted.json listing the ids deleted since then.
+ */
+public class ExportBundleWriter implements Closeable {
+    public static final String ITEMS_ENTRY = "items.json";
+    public static final String TAGS_ENTRY = "tags.json";
+    public static final String DELETED_ENTRY = "deleted.json";
+    public static final String MANIFEST_ENTRY = "manifest.json";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ZipOutputStream zip;
+    private final BundleManifest manifest;
+    private boolean closed = false;
+
+    public ExportBundleWriter(OutputStream out, int schemaVersion) {
+        this(out, schemaVersion, null);
+    }
+
+    public ExportBundleWriter(OutputStream out, int schemaVersion, Long changesSince) {
+        zip = new ZipOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+        zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+        manifest = new BundleManifest(schemaVersion, Instant.now().toString());
+        manifest.setChangesSince(changesSince);
+    }
+
+    // Tag vocabulary from ExportSnapshot.tags (name, isDefault)
+    public void writeTags(Cursor cursor) throws IOException {
+        BundleManifest.Entry entry = new BundleManifest.Entry(TAGS_ENTRY);
+        int name = cursor.getColumnIndexOrThrow("name");
+        int isDefault = cursor.getColumnIndexOrThrow("isDefault");
+        try (JsonWriter json = new JsonWriter(openEntry(entry))) {
+            json.beginArray();
+            while (cursor.moveToNext()) {
+                TagTypeAdapter.write(json, cursor.getString(name), cursor.getInt(isDefault) != 0);
+                entry.rows++;
+            }
+            json.endArray();
+        }
+    }
+
+    // Deleted ids from ExportSnapshot.tombstonesSince (item_id, deleted_at)
+    public void writeDeletions(Cursor cursor) throws IOException {
+        BundleManifest.Entry entry = new BundleManifest.Entry(DELETED_ENTRY);
+        int itemId = cursor.getColumnIndexOrThrow("item_id");
+        int deletedAt = cursor.getColumnIndexOrThrow("deleted_at");
+        try (JsonWriter json = new JsonWriter(openEntry(entry))) {
+            json.beginArray();
+            while (cursor.moveToNext()) {
+                json.beginObject();
+                json.name("id").value(cursor.getInt(itemId));
+                json.name("deletedAt").value(cursor.getLong(deletedAt));
+                json.endObject();
+                entry.rows++;
+            }
+            json.endArray();
+        }
+    }
+
+    // Sink for items.json; close it before closing the bundle
+    public ItemSink openItems() throws IOException {
+        BundleManifest.Entry entry = new BundleManifest.Entry(ITEMS_ENTRY);
+        JsonItemWriter items = new JsonItemWriter(openEntry(entry), false);
+        return new ItemSink() {
+            @Override
+            public void write(InventoryItem item) throws IOException {
+                items.write(item);
+                entry.rows++;
+            }
+
+            @Override
+            public void close() throws IOException {
+                items.close();
+            }
+        };
+    }
+
+    private Writer openEntry(BundleManifest.Entry entry) throws IOException {
+        zip.putNextEntry(new ZipEntry(entry.name));
+        return new BufferedWriter(new OutputStreamWriter(new EntryStream(entry), StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    // Writes the manifest and finishes the zip
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        zip.putNextEntry(new ZipEntry(MANIFEST_ENTRY));
+        JsonWriter json = new JsonWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+        json.setIndent("  ");
+        manifest.write(json);
+        json.flush();
+        zip.closeEntry();
+        zip.close();
+    }
+
+    // Checksums an entry's uncompressed bytes; closing it ends the entry, not the zip
+    private class EntryStream extends FilterOutputStream {
+        private final BundleManifest.Entry entry;
+        private final CRC32 crc = new CRC32();
+
+        EntryStream(BundleManifest.Entry entry) {
+            super(zip);
+            this.entry = entry;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            crc.update(b);
+            entry.bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            crc.update(b, off, len);
+            entry.bytes += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.closeEntry();
+            entry.crc32 = crc.getValue();
+            manifest.getEntries().add(entry);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.frozenassets.app.importexport;
+
+/**
+ * Rows written by an export and how long the pass over the table took.
+ */
+public class ExportResult {
+    private final long rowsExported;
+    private final long elapsedMillis;
+
+    public ExportResult(long rowsExported, long elapsedMillis) {
+        this.rowsExported = rowsExported;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRowsExported() { return rowsExported; }
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    public long getRowsPerSecond() {
+        return rowsExported * 1000L / Math.max(1L, elapsedMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "ExportResult{" +
+                "rowsExported=" + rowsExported +
+                ", elapsedMillis=" + elapsedMillis +
+                ", rowsPerSecond=" + getRowsPerSecond() +
+                '}';
+    }
+}
@@ -0,0 +1,71 @@
+package com.frozenassets.app.importexport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a streamed import: how many rows were written and skipped, plus
+ * the first few problems so a bad file can be explained without logging every row.
+ */
+public class ImportResult {
+    private static final int MAX_PROBLEMS = 20;
+
+    private long rowsImported = 0;
+    private long rowsSkipped = 0;
+    private long rowsDeleted = 0;
+    private long problemCount = 0;
+    private final List<String> problems = new ArrayList<>();
+
+    void rowImported() {
+        rowsImported++;
+    }
+
+    void rowSkipped(String reason) {
+        rowsSkipped++;
+        problem(reason);
+    }
+
+    // Rows removed by a change bundle's deleted.json
+    void rowsDeleted(long count) {
+        rowsDeleted += count;
+    }
+
+    // Recoverable issue on a row that was still imported (e.g. a bad date)
+    void problem(String message) {
+        problemCount++;
+        if (problems.size() < MAX_PROBLEMS) {
+            problems.add(message);
+        }
+    }
+
+    // Folds in the result of a later part of the same file, keeping problems in file order
+    void merge(ImportResult other) {
+        rowsImported += other.rowsImported;
+        rowsSkipped += other.rowsSkipped;
+        rowsDeleted += other.rowsDeleted;
+        problemCount += other.problemCount;
+        for (String problem : other.problems) {
+            if (problems.size() >= MAX_PROBLEMS) {
+                break;
+            }
+            problems.add(problem);
+        }
+    }
+
+    public long getRowsImported() { return rowsImported; }
+    public long getRowsSkipped() { return rowsSkipped; }
+    public long getRowsDeleted() { return rowsDeleted; }
+    public long getProblemCount() { return problemCount; }
+    public List<String> getProblems() { return Collections.unmodifiableList(problems); }
+
+    @Override
+    public String toString() {
+        return "ImportResult{" +
+                "rowsImported=" + rowsImported +
+                ", rowsSkipped=" + rowsSkipped +
+                ", rowsDeleted=" + rowsDeleted +
+                ", problemCount=" + problemCount +
+                '}';
+    }
+}
@@ -0,0 +1,49 @@
+package com.frozenassets.app.importexport;
+
+import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.models.Tag;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+
+import java.util.List;
+
+/**
+ * The app's single Gson instance. Every type it handles has a hand-written
+ * adapter registered here, so nothing is serialized by reflection and R8 can
+ * rename or strip model fields without changing the export format.
+ */
+public final class InventoryGson {
+    // Parameterized directly rather than through an anonymous TypeToken subclass,
+    // whose generic signature R8 would otherwise have to keep
+    @SuppressWarnings("unchecked")
+    public static final TypeToken<List<String>> TAG_LIST_TYPE =
+            (TypeToken<List<String>>) TypeToken.getParameterized(List.class, String.class);
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(InventoryItem.class, new InventoryItemTypeAdapter(new TagListTypeAdapter()))
+            .registerTypeAdapter(Tag.class, new TagTypeAdapter())
+            .registerTypeAdapter(TAG_LIST_TYPE.getType(), new TagListTypeAdapter())
+            .disableHtmlEscaping()
+            .create();
+
+    private InventoryGson() {
+    }
+
+    public static Gson get() {
+        return GSON;
+    }
+
+    public static TypeAdapter<InventoryItem> itemAdapter() {
+        return GSON.getAdapter(InventoryItem.class);
+    }
+
+    public static TypeAdapter<Tag> tagAdapter() {
+        return GSON.getAdapter(Tag.class);
+    }
+
+    public static TypeAdapter<List<String>> tagListAdapter() {
+        return GSON.getAdapter(TAG_LIST_TYPE);
+    }
+}
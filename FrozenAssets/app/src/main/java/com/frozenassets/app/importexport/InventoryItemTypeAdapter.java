@@ -0,0 +1,181 @@
+package com.frozenassets.app.importexport;
+
+import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.utils.DateUtils;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * JSON form of an InventoryItem, using the same keys and yyyy-MM-dd dates the
+ * reflective Gson export produced. Derived columns (category key, epoch days)
+ * are left out and rebuilt from the dates on import.
+ *
+ * A bad value inside an object is consumed before the error is thrown, so the
+ * reader is always left just past the element and the caller can carry on with the next one.
+ */
+public class InventoryItemTypeAdapter extends TypeAdapter<InventoryItem> {
+    private final TypeAdapter<List<String>> tagsAdapter;
+
+    public InventoryItemTypeAdapter() {
+        this(new TagListTypeAdapter());
+    }
+
+    // Registered on InventoryGson with the shared tag list adapter
+    InventoryItemTypeAdapter(TypeAdapter<List<String>> tagsAdapter) {
+        this.tagsAdapter = tagsAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, InventoryItem item) throws IOException {
+        if (item == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("id").value(item.getId());
+        out.name("name").value(item.getName());
+        out.name("category").value(item.getCategory());
+        out.name("quantity").value(item.getQuantity());
+        writeIfPresent(out, "notes", item.getNotes());
+        out.name("maxFreezeDays").value(item.getMaxFreezeDays());
+        writeIfPresent(out, "dateFrozen", DateUtils.formatEpochDay(item.getFrozenEpochDay()));
+        writeIfPresent(out, "expirationDate", DateUtils.formatEpochDay(item.getExpirationEpochDay()));
+        if (item.getTags() != null) {
+            out.name("tags");
+            tagsAdapter.write(out, item.getTags());
+        }
+        writeIfPresent(out, "weight", item.getWeight());
+        writeIfPresent(out, "weightUnit", item.getWeightUnit());
+        out.endObject();
+    }
+
+    @Override
+    public InventoryItem read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token != JsonToken.BEGIN_OBJECT) {
+            in.skipValue();
+            throw new JsonSyntaxException("Expected an object but was " + token + " at " + in.getPath());
+        }
+
+        InventoryItem item = new InventoryItem();
+        String error = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            String key = in.nextName();
+            try {
+                switch (key) {
+                    case "id":
+                        item.setId(nextInt(in));
+                        break;
+                    case "name":
+                        item.setName(nextString(in));
+                        break;
+                    case "category":
+                        item.setCategory(nextString(in));
+                        break;
+                    case "quantity":
+                        item.setQuantity(nextInt(in));
+                        break;
+                    case "notes":
+                        item.setNotes(nextString(in));
+                        break;
+                    case "maxFreezeDays":
+                        item.setMaxFreezeDays(nextInt(in));
+                        break;
+                    case "dateFrozen":
+                        item.setDateFrozen(nextDate(in));
+                        break;
+                    case "expirationDate":
+                        item.setExpirationDate(nextDate(in));
+                        break;
+                    case "tags":
+                        item.setTags(tagsAdapter.read(in));
+                        break;
+                    case "weight":
+                        item.setWeight(nextString(in));
+                        break;
+                    case "weightUnit":
+                        item.setWeightUnit(nextString(in));
+                        break;
+                    default:
+                        in.skipValue(); // Derived or unknown field
+                        break;
+                }
+            } catch (IllegalStateException | NumberFormatException e) {
+                // Wrong type for this field; the value is still unread, so drop it to keep the reader in step
+                in.skipValue();
+                if (error == null) {
+                    error = "Invalid '" + key + "': " + e.getMessage();
+                }
+            } catch (JsonSyntaxException e) {
+                // Value was read but rejected
+                if (error == null) {
+                    error = "Invalid '" + key + "': " + e.getMessage();
+                }
+            }
+        }
+        in.endObject();
+
+        if (error == null && (isBlank(item.getName()) || isBlank(item.getCategory()))) {
+            error = "Missing name or category";
+        }
+        if (error != null) {
+            throw new JsonSyntaxException(error);
+        }
+        return item;
+    }
+
+    private static void writeIfPresent(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static int nextInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextInt();
+    }
+
+    private static Date nextDate(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.NUMBER) {
+            return new Date(in.nextLong()); // Epoch millis
+        }
+        String text = in.nextString();
+        Date date = DateUtils.parseIsoDate(text.trim());
+        if (date == null) {
+            throw new JsonSyntaxException("Unparseable date '" + text + "'");
+        }
+        return date;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
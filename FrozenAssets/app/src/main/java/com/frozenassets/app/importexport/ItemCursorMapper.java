@@ -0,0 +1,74 @@
+package com.frozenassets.app.importexport;
+
+import android.database.Cursor;
+
+import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.utils.ListConverter;
+
+import java.util.Date;
+
+/**
+ * Reads inventory_items rows from a raw Cursor into one reused InventoryItem,
+ * so walking the whole table for an export allocates next to nothing per row.
+ * Column indexes are looked up once, when the mapper is created.
+ */
+public class ItemCursorMapper {
+    private final Cursor cursor;
+    private final int id;
+    private final int name;
+    private final int category;
+    private final int quantity;
+    private final int notes;
+    private final int maxFreezeDays;
+    private final int dateFrozen;
+    private final int expirationDate;
+    private final int frozenEpochDay;
+    private final int expirationEpochDay;
+    private final int tags;
+    private final int weight;
+    private final int weightUnit;
+    private final InventoryItem item = new InventoryItem();
+
+    public ItemCursorMapper(Cursor cursor) {
+        this.cursor = cursor;
+        id = cursor.getColumnIndexOrThrow("id");
+        name = cursor.getColumnIndexOrThrow("name");
+        category = cursor.getColumnIndexOrThrow("category");
+        quantity = cursor.getColumnIndexOrThrow("quantity");
+        notes = cursor.getColumnIndexOrThrow("notes");
+        maxFreezeDays = cursor.getColumnIndexOrThrow("maxFreezeDays");
+        dateFrozen = cursor.getColumnIndexOrThrow("dateFrozen");
+        expirationDate = cursor.getColumnIndexOrThrow("expirationDate");
+        frozenEpochDay = cursor.getColumnIndexOrThrow("frozen_epoch_day");
+        expirationEpochDay = cursor.getColumnIndexOrThrow("expiration_epoch_day");
+        tags = cursor.getColumnIndexOrThrow("tags");
+        weight = cursor.getColumnIndexOrThrow("weight");
+        weightUnit = cursor.getColumnIndexOrThrow("weightUnit");
+    }
+
+    // The returned item is overwritten by the next call
+    public InventoryItem current() {
+        item.setId(cursor.getInt(id));
+        item.setName(cursor.getString(name));
+        item.setCategory(cursor.getString(category));
+        item.setQuantity(cursor.getInt(quantity));
+        item.setNotes(cursor.getString(notes));
+        item.setMaxFreezeDays(cursor.getInt(maxFreezeDays));
+        item.setDateFrozen(getDate(dateFrozen));
+        item.setExpirationDate(getDate(expirationDate));
+        item.setFrozenEpochDay(getInteger(frozenEpochDay));
+        item.setExpirationEpochDay(getInteger(expirationEpochDay));
+        item.setTags(ListConverter.toList(cursor.getString(tags)));
+        item.setWeight(cursor.getString(weight));
+        item.setWeightUnit(cursor.getString(weightUnit));
+        return item;
+    }
+
+    private Date getDate(int column) {
+        return cursor.isNull(column) ? null : new Date(cursor.getLong(column));
+    }
+
+    private Integer getInteger(int column) {
+        return cursor.isNull(column) ? null : cursor.getInt(column);
+    }
+}
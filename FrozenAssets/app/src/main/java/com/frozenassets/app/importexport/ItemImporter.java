@@ -0,0 +1,178 @@
+package com.frozenassets.app.importexport;
+
+import android.util.Log;
+
+import com.frozenassets.app.models.ImportCheckpoint;
+import com.frozenassets.app.repositories.ImportBatchWriter;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Single entry point for imports. Sniffs the first bytes of the stream to pick
+ * the reader, so a binary snapshot, a backup bundle, a gzipped export or a plain
+ * CSV/JSON file all import the same way regardless of file name or MIME type.
+ */
+public class ItemImporter {
+    private static final String TAG = "ItemImporter";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SNIFF_LIMIT = 512;
+
+    public enum Format { CSV, JSON, BUNDLE, GZIP, SNAPSHOT }
+
+    private ItemImporter() {
+    }
+
+    public static ImportResult importStream(InputStream raw, ImportBatchWriter writer) throws IOException {
+        return importStream(raw, writer, null, 0, null);
+    }
+
+    // Reports bytes read out of size (the source file's length, 0 if unknown) as it goes
+    public static ImportResult importStream(InputStream raw, ImportBatchWriter writer, long size,
+                                            ProgressListener progress) throws IOException {
+        return importStream(raw, writer, null, size, progress);
+    }
+
+    /**
+     * Carries on an interrupted import from its checkpoint. CSV seeks to the byte after
+     * the last committed record; JSON and bundles skip the item elements already consumed.
+     * Snapshots restore rows under their own ids, so they simply run again.
+     */
+    public static ImportResult resumeStream(InputStream raw, ImportCheckpoint checkpoint, ImportBatchWriter writer,
+                                            long size, ProgressListener progress) throws IOException {
+        return importStream(raw, writer, checkpoint, size, progress);
+    }
+
+    private static ImportResult importStream(InputStream raw, ImportBatchWriter writer, ImportCheckpoint resumeFrom,
+                                             long size, ProgressListener progress) throws IOException {
+        // Local documents come back as a FileInputStream; a snapshot there is mapped, not copied
+        if (raw instanceof FileInputStream) {
+            FileChannel channel = ((FileInputStream) raw).getChannel();
+            boolean snapshot = false;
+            try {
+                snapshot = SnapshotReader.isSnapshot(channel);
+            } catch (IOException e) {
+                Log.d(TAG, "Stream is not seekable, reading it sequentially");
+            }
+            if (snapshot) {
+                Log.d(TAG, "Detected import format: " + Format.SNAPSHOT + " (memory-mapped)");
+                ImportResult result = SnapshotReader.importSnapshot(channel, writer);
+                if (progress != null) {
+                    progress.onProgress(size, size);
+                }
+                return result;
+            }
+        }
+
+        long skipItems = resumeFrom != null ? resumeFrom.getRecordsRead() : 0;
+        BufferedInputStream in = new BufferedInputStream(raw, BUFFER_SIZE);
+        Format format = detect(in);
+        if (format == Format.BUNDLE) {
+            // Read once to verify before anything is written; progress follows the importing pass
+            Log.d(TAG, "Detected import format: " + format);
+            return BundleImporter.importBundle(in, writer, skipItems, progress);
+        }
+        // Counting the compressed source bytes gives progress for every other format
+        if (progress != null && size > 0) {
+            in = new BufferedInputStream(new CountingInputStream(in, size, progress), BUFFER_SIZE);
+        }
+        if (format == Format.GZIP) {
+            in = new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+            format = detect(in);
+        }
+        Log.d(TAG, "Detected import format: " + format);
+
+        switch (format) {
+            case SNAPSHOT:
+                return SnapshotReader.importSnapshot(in, writer);
+            case BUNDLE:
+                // Only reached inside gzip, whose source bytes are already counted
+                return BundleImporter.importBundle(in, writer, skipItems, null);
+            case JSON:
+                skipByteOrderMark(in);
+                return JsonItemImporter.importItems(reader(in), writer, resumeFrom);
+            case CSV:
+                if (resumeFrom != null) {
+                    skipFully(in, resumeFrom.getByteOffset());
+                    Log.d(TAG, "Resuming CSV at byte " + resumeFrom.getByteOffset()
+                            + ", line " + resumeFrom.getNextLine());
+                }
+                // Tokenizing is CPU-bound, so spread a large file over a few cores
+                // Checkpoint offsets count raw bytes, so undecodable ones must survive decoding
+                Reader csv = new Utf8Reader(in, BUFFER_SIZE);
+                return ParallelCsvImporter.isWorthwhile(size)
+                        ? ParallelCsvImporter.importItems(csv, writer, resumeFrom)
+                        : CsvItemImporter.importItems(csv, writer, resumeFrom);
+            default:
+                throw new IOException("Nested compression is not supported");
+        }
+    }
+
+    // Looks at the first bytes without consuming them
+    static Format detect(BufferedInputStream in) throws IOException {
+        byte[] head = new byte[SNIFF_LIMIT];
+        in.mark(SNIFF_LIMIT);
+        int length = 0;
+        int read;
+        while (length < head.length && (read = in.read(head, length, head.length - length)) > 0) {
+            length += read;
+        }
+        in.reset();
+
+        if (length >= 4 && head[0] == 'P' && head[1] == 'K' && head[2] == 3 && head[3] == 4) {
+            return Format.BUNDLE;
+        }
+        if (SnapshotReader.hasMagic(Arrays.copyOf(head, length))) {
+            return Format.SNAPSHOT;
+        }
+        if (length >= 2 && (head[0] & 0xff) == 0x1f && (head[1] & 0xff) == 0x8b) {
+            return Format.GZIP;
+        }
+        int i = 0;
+        if (length >= 3 && (head[0] & 0xff) == 0xef && (head[1] & 0xff) == 0xbb && (head[2] & 0xff) == 0xbf) {
+            i = 3; // UTF-8 byte order mark
+        }
+        while (i < length && Character.isWhitespace(head[i])) {
+            i++;
+        }
+        if (i < length && (head[i] == '[' || head[i] == '{')) {
+            return Format.JSON;
+        }
+        return Format.CSV;
+    }
+
+    // JsonReader rejects a leading BOM (CsvTokenizer skips it itself)
+    private static void skipByteOrderMark(BufferedInputStream in) throws IOException {
+        in.mark(3);
+        if (in.read() != 0xef || in.read() != 0xbb || in.read() != 0xbf) {
+            in.reset();
+        }
+    }
+
+    private static void skipFully(InputStream in, long count) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException("File is shorter than the saved import position; it may have changed");
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static Reader reader(InputStream in) {
+        return new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,21 @@
+package com.frozenassets.app.importexport;
+
+import com.frozenassets.app.models.InventoryItem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Destination for a streamed export. Items may be reused between calls, so
+ * implementations must not keep a reference after write returns. close()
+ * finishes the document and flushes it.
+ */
+public interface ItemSink extends Closeable {
+    void write(InventoryItem item) throws IOException;
+
+    // Opens a sink over a character stream, e.g. CsvItemWriter::new
+    interface Factory {
+        ItemSink open(Writer writer) throws IOException;
+    }
+}
@@ -0,0 +1,77 @@
+package com.frozenassets.app.importexport;
+
+import android.util.Log;
+
+import com.frozenassets.app.models.ImportCheckpoint;
+import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.repositories.ImportBatchWriter;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streams a JSON export (a top-level array of items) into an ImportBatchWriter,
+ * reading one element at a time so memory stays flat whatever the file size.
+ */
+public class JsonItemImporter {
+    private static final String TAG = "JsonItemImporter";
+    private static final TypeAdapter<InventoryItem> ITEM_ADAPTER = InventoryGson.itemAdapter();
+
+    private JsonItemImporter() {
+    }
+
+    // Elements that don't map to an item are skipped and reported; broken JSON syntax
+    // still aborts, since there is no reliable way to find the next element after it
+    public static ImportResult importItems(Reader reader, ImportBatchWriter writer) throws IOException {
+        return importItems(reader, writer, null);
+    }
+
+    // Resuming re-reads the array from the start but skips the elements already consumed
+    static ImportResult importItems(Reader reader, ImportBatchWriter writer, ImportCheckpoint resumeFrom)
+            throws IOException {
+        ImportResult result = new ImportResult();
+        try (JsonReader json = new JsonReader(reader)) {
+            importItems(json, writer, result, resumeFrom != null ? resumeFrom.getRecordsRead() : 0);
+        }
+        Log.d(TAG, "JSON import finished: " + result);
+        return result;
+    }
+
+    // Reads the array at the reader's position, adding to an existing result (used by bundles)
+    static void importItems(JsonReader json, ImportBatchWriter writer, ImportResult result) throws IOException {
+        importItems(json, writer, result, 0);
+    }
+
+    // Skips the first elements unread, e.g. those an interrupted import already committed
+    static void importItems(JsonReader json, ImportBatchWriter writer, ImportResult result, long skip)
+            throws IOException {
+        if (json.peek() != JsonToken.BEGIN_ARRAY) {
+            throw new IOException("Expected a JSON array of items but found " + json.peek());
+        }
+        json.beginArray();
+        long index = 0;
+        for (; index < skip && json.hasNext(); index++) {
+            json.skipValue();
+        }
+        while (json.hasNext()) {
+            try {
+                InventoryItem item = ITEM_ADAPTER.read(json);
+                if (item != null) {
+                    writer.markSourcePosition(0, 1, index + 1);
+                    writer.add(item);
+                    result.rowImported();
+                } else {
+                    result.rowSkipped("Element " + index + ": null");
+                }
+            } catch (JsonSyntaxException e) {
+                result.rowSkipped("Element " + index + ": " + e.getMessage());
+            }
+            index++;
+        }
+        json.endArray();
+    }
+}
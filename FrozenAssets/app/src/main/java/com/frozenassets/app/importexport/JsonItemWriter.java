@@ -0,0 +1,42 @@
+package com.frozenassets.app.importexport;
+
+import com.frozenassets.app.models.InventoryItem;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes items as a top-level JSON array, one element at a time, in the format
+ * JsonItemImporter reads back.
+ */
+public class JsonItemWriter implements ItemSink {
+    private static final TypeAdapter<InventoryItem> ITEM_ADAPTER = InventoryGson.itemAdapter();
+
+    private final JsonWriter json;
+
+    public JsonItemWriter(Writer writer) throws IOException {
+        this(writer, true);
+    }
+
+    // Pretty output matches the old export; bundles write compact JSON
+    public JsonItemWriter(Writer writer, boolean pretty) throws IOException {
+        json = new JsonWriter(writer);
+        if (pretty) {
+            json.setIndent("  ");
+        }
+        json.beginArray();
+    }
+
+    @Override
+    public void write(InventoryItem item) throws IOException {
+        ITEM_ADAPTER.write(json, item);
+    }
+
+    @Override
+    public void close() throws IOException {
+        json.endArray();
+        json.close();
+    }
+}
@@ -0,0 +1,149 @@
+package com.frozenassets.app.importexport;
+
+import android.os.Process;
+import android.util.Log;
+
+import com.frozenassets.app.importexport.CsvItemParser.Chunk;
+import com.frozenassets.app.importexport.CsvItemParser.ChunkSplitter;
+import com.frozenassets.app.importexport.CsvItemParser.ParsedChunk;
+import com.frozenassets.app.models.ImportCheckpoint;
+import com.frozenassets.app.repositories.ImportBatchWriter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Same result as CsvItemImporter, but tokenizing and field parsing run on a
+ * fork-join pool. The calling thread only splits the input into chunks of whole
+ * records (a quote-aware scan, far cheaper than tokenizing) and feeds the parsed
+ * chunks to the writer in file order, so rows and problems come out exactly as a
+ * sequential import would produce them, with the same line numbers and the same
+ * source positions marked on the writer for checkpointing.
+ *
+ * Each import gets its own small pool, shut down when it ends, so parsing never
+ * competes with whatever else uses the common pool. Only files of at least
+ * MIN_PARALLEL_BYTES are worth it; below that, starting the threads costs more
+ * than it saves and ItemImporter parses on the calling thread.
+ */
+public class ParallelCsvImporter {
+    private static final String TAG = "ParallelCsvImporter";
+    public static final long MIN_PARALLEL_BYTES = 1024 * 1024;
+    // One writer drains the parsed chunks, so more threads than this only add contention
+    private static final int MAX_PARSER_THREADS = 4;
+
+    private ParallelCsvImporter() {
+    }
+
+    public static ImportResult importItems(Reader reader, ImportBatchWriter writer) throws IOException {
+        return importItems(reader, writer, null);
+    }
+
+    // With resumeFrom, the reader must already be positioned at its byte offset (past the header)
+    static ImportResult importItems(Reader reader, ImportBatchWriter writer, ImportCheckpoint resumeFrom)
+            throws IOException {
+        ForkJoinPool pool = newParserPool(parserThreads());
+        try {
+            return importItems(reader, writer, resumeFrom, pool, CsvItemParser.DEFAULT_CHUNK_SIZE);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Whether a file of this many bytes (or -1 if unknown) should be parsed in parallel
+    static boolean isWorthwhile(long size) {
+        return size >= MIN_PARALLEL_BYTES && parserThreads() > 1;
+    }
+
+    private static int parserThreads() {
+        return Math.min(Runtime.getRuntime().availableProcessors(), MAX_PARSER_THREADS);
+    }
+
+    private static ForkJoinPool newParserPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = new ForkJoinWorkerThread(pool) {
+                @Override
+                protected void onStart() {
+                    super.onStart();
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                }
+            };
+            thread.setName("csv-parser-" + count.incrementAndGet());
+            return thread;
+        }, null, false);
+    }
+
+    static ImportResult importItems(Reader reader, ImportBatchWriter writer, ImportCheckpoint resumeFrom,
+                                    ForkJoinPool pool, int chunkSize) throws IOException {
+        long start = System.nanoTime();
+        ImportResult result = new ImportResult();
+        // Bounds memory: the splitter never gets more than this many chunks ahead of the writer
+        int maxInFlight = Math.max(2, pool.getParallelism() * 2);
+        ArrayDeque<Future<ParsedChunk>> inFlight = new ArrayDeque<>();
+        int chunks = 0;
+        // Records before the current chunk, counted in file order as chunks are written
+        long[] recordsBefore = {resumeFrom != null ? resumeFrom.getRecordsRead() : 0};
+
+        try (Reader in = reader) {
+            ChunkSplitter splitter = resumeFrom != null
+                    ? new ChunkSplitter(in, chunkSize, resumeFrom.getNextLine(), resumeFrom.getByteOffset())
+                    : new ChunkSplitter(in, chunkSize);
+            Chunk chunk;
+            while ((chunk = splitter.next()) != null) {
+                Chunk next = chunk;
+                inFlight.add(pool.submit(() -> CsvItemParser.parse(next)));
+                chunks++;
+                if (inFlight.size() >= maxInFlight) {
+                    write(await(inFlight.poll()), writer, result, recordsBefore);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                write(await(inFlight.poll()), writer, result, recordsBefore);
+            }
+        } finally {
+            for (Future<ParsedChunk> pending : inFlight) {
+                pending.cancel(true);
+            }
+        }
+
+        Log.d(TAG, "Parallel CSV import finished in " + (System.nanoTime() - start) / 1_000_000L + " ms ("
+                + chunks + " chunks, parallelism " + pool.getParallelism() + "): " + result);
+        return result;
+    }
+
+    private static void write(ParsedChunk parsed, ImportBatchWriter writer, ImportResult result,
+                              long[] recordsBefore) {
+        for (int i = 0; i < parsed.items.size(); i++) {
+            writer.markSourcePosition(parsed.byteOffsets[i], parsed.nextLines[i],
+                    recordsBefore[0] + parsed.records[i]);
+            writer.add(parsed.items.get(i));
+        }
+        recordsBefore[0] += parsed.recordCount;
+        result.merge(parsed.result);
+    }
+
+    private static ParsedChunk await(Future<ParsedChunk> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("CSV import interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("CSV chunk failed", cause);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.frozenassets.app.importexport;
+
+import java.io.IOException;
+
+/**
+ * Told how far a long import or export has got. Throwing (e.g. an
+ * InterruptedIOException once the user cancels) aborts the transfer.
+ */
+public interface ProgressListener {
+    // total is 0 when the size isn't known up front
+    void onProgress(long done, long total) throws IOException;
+}
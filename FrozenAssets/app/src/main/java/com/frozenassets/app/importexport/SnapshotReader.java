@@ -0,0 +1,284 @@
+package com.frozenassets.app.importexport;
+
+import android.util.Log;
+
+import com.frozenassets.app.database.InventoryDatabase;
+import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.repositories.ImportBatchWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Reads a binary snapshot written by SnapshotWriter. Layout:
+ * <pre>
+ *   "FASN" varint(formatVersion) varint(schemaVersion) varint(createdAtMillis)
+ *   records: 1 = tag, 2 = item, 0 = end
+ *   varint(itemCount) varint(tagCount) crc32 (4 bytes, big-endian, over everything before it)
+ * </pre>
+ * Integers are LEB128 varints (zig-zag for signed values), text is a varint byte
+ * length followed by UTF-8, and dictionary strings are either a back-reference
+ * (index << 1) or 1 followed by a new string. The whole buffer is checksummed
+ * before anything is inserted, so a damaged file never half-restores.
+ */
+public class SnapshotReader {
+    private static final String TAG = "SnapshotReader";
+
+    private final ByteBuffer buffer;
+    private final List<String> dictionary = new ArrayList<>();
+    private byte[] scratch = new byte[256];
+    private int previousId = 0;
+    private int formatVersion;
+    private int schemaVersion;
+    private long createdAt;
+
+    SnapshotReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    // True if the channel starts with the snapshot magic; throws if it can't be read positionally
+    public static boolean isSnapshot(FileChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(SnapshotWriter.MAGIC.length);
+        while (head.hasRemaining() && channel.read(head, head.position()) > 0) {
+            // Positional reads leave the channel where it was
+        }
+        return head.position() == head.capacity() && hasMagic(head.array());
+    }
+
+    static boolean hasMagic(byte[] head) {
+        for (int i = 0; i < SnapshotWriter.MAGIC.length; i++) {
+            if (head.length <= i || head[i] != SnapshotWriter.MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Memory-maps the file rather than copying it onto the heap
+    public static ImportResult importSnapshot(FileChannel channel, ImportBatchWriter writer) throws IOException {
+        ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        return importSnapshot(mapped, writer);
+    }
+
+    // For streams that can't be mapped (e.g. a pipe from a cloud provider)
+    public static ImportResult importSnapshot(InputStream in, ImportBatchWriter writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        byte[] chunk = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            bytes.write(chunk, 0, read);
+        }
+        return importSnapshot(ByteBuffer.wrap(bytes.toByteArray()), writer);
+    }
+
+    public static ImportResult importSnapshot(ByteBuffer buffer, ImportBatchWriter writer) throws IOException {
+        SnapshotReader reader = new SnapshotReader(buffer);
+        ImportResult result = new ImportResult();
+        reader.readHeader();
+        // A snapshot is a restore: rows go back under their own ids
+        writer.setDuplicatePolicy(ImportBatchWriter.DuplicatePolicy.BY_ID);
+        if (reader.schemaVersion > InventoryDatabase.SCHEMA_VERSION) {
+            result.problem("Snapshot was written by a newer app (schema " + reader.schemaVersion + ")");
+        }
+
+        List<String> tagNames = new ArrayList<>();
+        InventoryItem item;
+        while ((item = reader.next(tagNames)) != null) {
+            if (!tagNames.isEmpty()) {
+                // Tags precede items, so the vocabulary is complete before the first insert
+                writer.addTagNames(tagNames);
+                tagNames.clear();
+            }
+            writer.add(item);
+            result.rowImported();
+        }
+        if (!tagNames.isEmpty()) {
+            writer.addTagNames(tagNames);
+        }
+        Log.d(TAG, "Snapshot import finished: " + result);
+        return result;
+    }
+
+    // Checks the magic, version and trailing checksum, then leaves the buffer at the first record
+    void readHeader() throws IOException {
+        buffer.clear();
+        if (buffer.remaining() < SnapshotWriter.MAGIC.length + 4) {
+            throw new IOException("Snapshot is truncated");
+        }
+        for (byte expected : SnapshotWriter.MAGIC) {
+            if (buffer.get() != expected) {
+                throw new IOException("Not a snapshot file");
+            }
+        }
+        int bodyLength = buffer.limit() - 4;
+        int storedCrc = buffer.getInt(bodyLength);
+        if ((int) checksum(bodyLength) != storedCrc) {
+            throw new IOException("Snapshot checksum mismatch; the file is damaged");
+        }
+        buffer.position(SnapshotWriter.MAGIC.length);
+        buffer.limit(bodyLength);
+
+        try {
+            formatVersion = (int) readVarLong();
+            if (formatVersion > SnapshotWriter.FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot version " + formatVersion);
+            }
+            schemaVersion = (int) readVarLong();
+            createdAt = readVarLong();
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Snapshot is truncated", e);
+        }
+    }
+
+    private long checksum(int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.position(0);
+        body.limit(length);
+        if (body.hasArray()) {
+            crc.update(body.array(), body.arrayOffset(), length);
+        } else {
+            byte[] chunk = new byte[64 * 1024];
+            while (body.hasRemaining()) {
+                int n = Math.min(chunk.length, body.remaining());
+                body.get(chunk, 0, n);
+                crc.update(chunk, 0, n);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Reads records up to the next item. Tag records met on the way are added to
+     * tagNames. Returns null at the end marker.
+     */
+    InventoryItem next(List<String> tagNames) throws IOException {
+        try {
+            while (true) {
+                int type = buffer.get();
+                switch (type) {
+                    case SnapshotWriter.RECORD_TAG:
+                        tagNames.add(readDictionary());
+                        buffer.get(); // isDefault; the defaults are seeded by the database itself
+                        break;
+                    case SnapshotWriter.RECORD_ITEM:
+                        return readItem();
+                    case SnapshotWriter.RECORD_END:
+                        return null;
+                    default:
+                        throw new IOException("Unknown snapshot record type " + type);
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Snapshot is truncated", e);
+        }
+    }
+
+    private InventoryItem readItem() throws IOException {
+        int flags = (int) readVarLong();
+        InventoryItem item = new InventoryItem();
+        previousId += (int) unZigZag(readVarLong());
+        item.setId(previousId);
+        if ((flags & SnapshotWriter.HAS_NAME) != 0) item.setName(readText());
+        if ((flags & SnapshotWriter.HAS_CATEGORY) != 0) item.setCategory(readDictionary());
+        item.setQuantity((int) unZigZag(readVarLong()));
+        item.setMaxFreezeDays((int) unZigZag(readVarLong()));
+        if ((flags & SnapshotWriter.HAS_NOTES) != 0) item.setNotes(readText());
+
+        // Dates first: their setters clear the epoch-day columns
+        Integer frozenEpochDay = null;
+        Integer expirationEpochDay = null;
+        if ((flags & SnapshotWriter.HAS_FROZEN_EPOCH_DAY) != 0) {
+            frozenEpochDay = (int) unZigZag(readVarLong());
+        }
+        if ((flags & SnapshotWriter.HAS_DATE_FROZEN) != 0) {
+            item.setDateFrozen(readDate(frozenEpochDay));
+        }
+        if ((flags & SnapshotWriter.HAS_EXPIRATION_EPOCH_DAY) != 0) {
+            expirationEpochDay = (int) unZigZag(readVarLong());
+        }
+        if ((flags & SnapshotWriter.HAS_EXPIRATION_DATE) != 0) {
+            item.setExpirationDate(readDate(expirationEpochDay));
+        }
+        item.setFrozenEpochDay(frozenEpochDay);
+        item.setExpirationEpochDay(expirationEpochDay);
+
+        if ((flags & SnapshotWriter.HAS_TAGS) != 0) {
+            int count = (int) readVarLong();
+            List<String> tags = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                tags.add(readDictionary());
+            }
+            item.setTags(tags);
+        }
+        if ((flags & SnapshotWriter.HAS_WEIGHT) != 0) item.setWeight(readText());
+        if ((flags & SnapshotWriter.HAS_WEIGHT_UNIT) != 0) item.setWeightUnit(readDictionary());
+        return item;
+    }
+
+    private Date readDate(Integer epochDay) {
+        long base = epochDay != null ? epochDay * SnapshotWriter.MILLIS_PER_DAY : 0L;
+        return new Date(base + unZigZag(readVarLong()));
+    }
+
+    private String readDictionary() throws IOException {
+        long ref = readVarLong();
+        if (ref == 1) {
+            String value = readText();
+            dictionary.add(value);
+            return value;
+        }
+        long index = ref >>> 1;
+        if ((ref & 1) != 0 || index >= dictionary.size()) {
+            throw new IOException("Bad dictionary reference " + ref);
+        }
+        return dictionary.get((int) index);
+    }
+
+    private String readText() throws IOException {
+        long length = readVarLong();
+        if (length > buffer.remaining()) {
+            throw new IOException("Text runs past the end of the snapshot");
+        }
+        int n = (int) length;
+        if (buffer.hasArray()) {
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), n, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + n);
+            return value;
+        }
+        if (scratch.length < n) {
+            scratch = new byte[Math.max(n, scratch.length * 2)];
+        }
+        buffer.get(scratch, 0, n);
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 64);
+        return value;
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    int getFormatVersion() { return formatVersion; }
+    int getSchemaVersion() { return schemaVersion; }
+    long getCreatedAt() { return createdAt; }
+}
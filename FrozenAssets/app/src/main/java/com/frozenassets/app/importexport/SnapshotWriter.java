@@ -0,0 +1,199 @@
+package com.frozenassets.app.importexport;
+
+import com.frozenassets.app.models.InventoryItem;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Streams a binary snapshot (see SnapshotReader for the layout). Tags should be
+ * written before items. Category, tag and weight-unit strings go through a
+ * dictionary defined inline on first use, so the writer never needs a second pass.
+ */
+public class SnapshotWriter implements ItemSink {
+    static final byte[] MAGIC = {'F', 'A', 'S', 'N'};
+    static final int FORMAT_VERSION = 1;
+
+    static final int RECORD_END = 0;
+    static final int RECORD_TAG = 1;
+    static final int RECORD_ITEM = 2;
+
+    // Presence bits for an item's optional fields
+    static final int HAS_NAME = 1;
+    static final int HAS_CATEGORY = 1 << 1;
+    static final int HAS_NOTES = 1 << 2;
+    static final int HAS_DATE_FROZEN = 1 << 3;
+    static final int HAS_EXPIRATION_DATE = 1 << 4;
+    static final int HAS_FROZEN_EPOCH_DAY = 1 << 5;
+    static final int HAS_EXPIRATION_EPOCH_DAY = 1 << 6;
+    static final int HAS_TAGS = 1 << 7;
+    static final int HAS_WEIGHT = 1 << 8;
+    static final int HAS_WEIGHT_UNIT = 1 << 9;
+
+    static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0;
+    private final CRC32 crc = new CRC32();
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private int previousId = 0;
+    private long itemCount = 0;
+    private long tagCount = 0;
+    private boolean closed = false;
+
+    public SnapshotWriter(OutputStream out, int schemaVersion) throws IOException {
+        this.out = out;
+        writeBytes(MAGIC, 0, MAGIC.length);
+        writeVarLong(FORMAT_VERSION);
+        writeVarLong(schemaVersion);
+        writeVarLong(System.currentTimeMillis());
+    }
+
+    public void writeTag(String name, boolean isDefault) throws IOException {
+        writeByte(RECORD_TAG);
+        writeDictionary(name != null ? name : "");
+        writeByte(isDefault ? 1 : 0);
+        tagCount++;
+    }
+
+    @Override
+    public void write(InventoryItem item) throws IOException {
+        Date dateFrozen = item.getDateFrozen();
+        Date expirationDate = item.getExpirationDate();
+        Integer frozenEpochDay = item.getFrozenEpochDay();
+        Integer expirationEpochDay = item.getExpirationEpochDay();
+        List<String> tags = item.getTags();
+
+        int flags = 0;
+        if (item.getName() != null) flags |= HAS_NAME;
+        if (item.getCategory() != null) flags |= HAS_CATEGORY;
+        if (item.getNotes() != null) flags |= HAS_NOTES;
+        if (dateFrozen != null) flags |= HAS_DATE_FROZEN;
+        if (expirationDate != null) flags |= HAS_EXPIRATION_DATE;
+        if (frozenEpochDay != null) flags |= HAS_FROZEN_EPOCH_DAY;
+        if (expirationEpochDay != null) flags |= HAS_EXPIRATION_EPOCH_DAY;
+        if (tags != null) flags |= HAS_TAGS;
+        if (item.getWeight() != null) flags |= HAS_WEIGHT;
+        if (item.getWeightUnit() != null) flags |= HAS_WEIGHT_UNIT;
+
+        writeByte(RECORD_ITEM);
+        writeVarLong(flags);
+        // Rows come out ordered by id, so the delta is usually a single byte
+        writeVarLong(zigZag(item.getId() - (long) previousId));
+        previousId = item.getId();
+        if ((flags & HAS_NAME) != 0) writeText(item.getName());
+        if ((flags & HAS_CATEGORY) != 0) writeDictionary(item.getCategory());
+        writeVarLong(zigZag(item.getQuantity()));
+        writeVarLong(zigZag(item.getMaxFreezeDays()));
+        if ((flags & HAS_NOTES) != 0) writeText(item.getNotes());
+        // Dates are stored as an epoch day plus the millisecond offset from that day's UTC
+        // midnight, which keeps the exact timestamp at a few bytes per date
+        if ((flags & HAS_FROZEN_EPOCH_DAY) != 0) writeVarLong(zigZag(frozenEpochDay));
+        if ((flags & HAS_DATE_FROZEN) != 0) writeDate(dateFrozen, frozenEpochDay);
+        if ((flags & HAS_EXPIRATION_EPOCH_DAY) != 0) writeVarLong(zigZag(expirationEpochDay));
+        if ((flags & HAS_EXPIRATION_DATE) != 0) writeDate(expirationDate, expirationEpochDay);
+        if ((flags & HAS_TAGS) != 0) {
+            writeVarLong(tags.size());
+            for (String tag : tags) {
+                writeDictionary(tag != null ? tag : "");
+            }
+        }
+        if ((flags & HAS_WEIGHT) != 0) writeText(item.getWeight());
+        if ((flags & HAS_WEIGHT_UNIT) != 0) writeDictionary(item.getWeightUnit());
+        itemCount++;
+    }
+
+    public long getItemCount() {
+        return itemCount;
+    }
+
+    // Writes the end marker, counts and CRC-32 trailer; closes the stream
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writeByte(RECORD_END);
+        writeVarLong(itemCount);
+        writeVarLong(tagCount);
+        flushBuffer();
+        int value = (int) crc.getValue();
+        out.write(new byte[] {(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value});
+        out.close();
+    }
+
+    private void writeDate(Date date, Integer epochDay) throws IOException {
+        long base = epochDay != null ? epochDay * MILLIS_PER_DAY : 0L;
+        writeVarLong(zigZag(date.getTime() - base));
+    }
+
+    private void writeDictionary(String value) throws IOException {
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            writeVarLong((long) index << 1);
+        } else {
+            dictionary.put(value, dictionary.size());
+            writeVarLong(1);
+            writeText(value);
+        }
+    }
+
+    private void writeText(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        if (position + 10 > buffer.length) {
+            flushBuffer();
+        }
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeByte(int value) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        if (length > buffer.length - position) {
+            flushBuffer();
+            if (length > buffer.length) {
+                crc.update(bytes, offset, length);
+                out.write(bytes, offset, length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            crc.update(buffer, 0, position);
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.frozenassets.app.importexport;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An item's tags as a JSON array of strings. Reading is lenient: anything in
+ * the array that isn't a string is skipped rather than failing the whole item.
+ */
+public class TagListTypeAdapter extends TypeAdapter<List<String>> {
+
+    @Override
+    public void write(JsonWriter out, List<String> tags) throws IOException {
+        if (tags == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (int i = 0; i < tags.size(); i++) {
+            out.value(tags.get(i));
+        }
+        out.endArray();
+    }
+
+    @Override
+    public List<String> read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<String> tags = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.STRING) {
+                tags.add(in.nextString());
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endArray();
+        return tags;
+    }
+}
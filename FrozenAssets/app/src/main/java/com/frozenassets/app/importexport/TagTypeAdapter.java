@@ -0,0 +1,60 @@
+package com.frozenassets.app.importexport;
+
+import com.frozenassets.app.models.Tag;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * A tag vocabulary entry as {"name": ..., "isDefault": ...}, the form used by
+ * tags.json in export bundles. The row id is local to each database and left out.
+ * An entry without a name reads as null so the caller can skip it.
+ */
+public class TagTypeAdapter extends TypeAdapter<Tag> {
+
+    @Override
+    public void write(JsonWriter out, Tag tag) throws IOException {
+        if (tag == null) {
+            out.nullValue();
+            return;
+        }
+        write(out, tag.getName(), tag.isDefault());
+    }
+
+    // Same output without building a Tag, for rows streamed straight from a cursor
+    public static void write(JsonWriter out, String name, boolean isDefault) throws IOException {
+        out.beginObject();
+        out.name("name").value(name);
+        out.name("isDefault").value(isDefault);
+        out.endObject();
+    }
+
+    @Override
+    public Tag read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String name = null;
+        boolean isDefault = false;
+        in.beginObject();
+        while (in.hasNext()) {
+            String key = in.nextName();
+            JsonToken token = in.peek();
+            if ("name".equals(key) && token == JsonToken.STRING) {
+                name = in.nextString();
+            } else if ("isDefault".equals(key) && token == JsonToken.BOOLEAN) {
+                isDefault = in.nextBoolean();
+            } else if ("isDefault".equals(key) && token == JsonToken.NUMBER) {
+                isDefault = in.nextInt() != 0;
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return name != null ? new Tag(name, isDefault) : null;
+    }
+}
@@ -0,0 +1,79 @@
+package com.frozenassets.app.importexport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UTF-8 decoder that keeps the byte count recoverable from the chars it returns.
+ * InputStreamReader turns an undecodable sequence of any length into a single
+ * U+FFFD, so the bytes behind it are lost; here each undecodable byte becomes its
+ * own lone low surrogate U+DC80..U+DCFF instead, which valid UTF-8 never decodes to.
+ * CsvTokenizer counts such a char as one byte and reads it back as U+FFFD, so
+ * checkpoint offsets stay exact on Latin-1 or otherwise mis-encoded files.
+ */
+final class Utf8Reader extends Reader {
+    private static final char ESCAPE_BASE = '\uDC00';
+
+    private final InputStream in;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    private final ByteBuffer bytes;
+    private boolean endOfInput = false;
+
+    Utf8Reader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.bytes = ByteBuffer.allocate(bufferSize);
+        bytes.flip();
+    }
+
+    // True for a char standing in for one undecodable byte; previous is the char before it
+    static boolean isEscapedByte(char c, char previous) {
+        return c >= '\uDC80' && c <= '\uDCFF' && !Character.isHighSurrogate(previous);
+    }
+
+    @Override
+    public int read(char[] chars, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        CharBuffer out = CharBuffer.wrap(chars, offset, length);
+        while (out.hasRemaining()) {
+            CoderResult result = decoder.decode(bytes, out, endOfInput);
+            if (result.isError()) {
+                // One byte at a time, so the rest of a bad sequence is retried on its own
+                out.put((char) (ESCAPE_BASE | (bytes.get() & 0xff)));
+            } else if (result.isOverflow() || endOfInput || out.position() > offset) {
+                // Hand back what is decoded rather than block for more input
+                break;
+            } else {
+                refill();
+            }
+        }
+        int read = out.position() - offset;
+        return read == 0 && endOfInput ? -1 : read;
+    }
+
+    private void refill() throws IOException {
+        bytes.compact();
+        int read = in.read(bytes.array(), bytes.position(), bytes.remaining());
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            bytes.position(bytes.position() + read);
+        }
+        bytes.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
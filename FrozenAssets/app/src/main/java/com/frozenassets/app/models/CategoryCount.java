@@ -0,0 +1,16 @@
+package com.frozenassets.app.models;
+
+import androidx.room.ColumnInfo;
+
+// Row of InventoryDao.getCategoryCounts
+public class CategoryCount {
+    @ColumnInfo(name = "category_key")
+    public String categoryKey;
+
+    // One of the spellings stored under this key, for display
+    @ColumnInfo(name = "category")
+    public String category;
+
+    @ColumnInfo(name = "item_count")
+    public int itemCount;
+}
@@ -1,8 +1,10 @@
 package com.frozenassets.app.models;
 
 import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -60,12 +62,28 @@ public class FoodCategory {
         return categoryDurations.getOrDefault(category, DEFAULT_DURATION);
     }
 
+    // Normalized lookup key stored in inventory_items.category_key; mirrors LOWER(TRIM(category))
+    public static String toCategoryKey(String category) {
+        if (category == null) {
+            return "";
+        }
+        return category.trim().toLowerCase(Locale.ROOT);
+    }
+
     // Get expiration duration for a category in milliseconds
     public static long getDurationForCategory(String category) {
         int days = categoryDurations.getOrDefault(category, DEFAULT_DURATION);
         return TimeUnit.DAYS.toMillis(days);
     }
 
+    // Expiration for an item frozen on dateFrozen that has none of its own
+    public static Date getDefaultExpiration(Date dateFrozen, String category) {
+        if (dateFrozen == null) {
+            return null;
+        }
+        return new Date(dateFrozen.getTime() + getDurationForCategory(category));
+    }
+
     // Update duration for a category
     public static void setDurationForCategory(String category, int days) {
         if (days > 0) {
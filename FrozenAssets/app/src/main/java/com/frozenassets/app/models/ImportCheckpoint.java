@@ -0,0 +1,111 @@
+package com.frozenassets.app.models;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+// Progress of the current import, written in the same transaction as each batch so it
+// never disagrees with what was inserted. At most one row; deleted when an import completes.
+@Entity(tableName = "import_checkpoint")
+public class ImportCheckpoint {
+    public static final int SINGLETON_ID = 1;
+
+    @PrimaryKey
+    @ColumnInfo(name = "id")
+    private int id = SINGLETON_ID;
+
+    @NonNull
+    @ColumnInfo(name = "source_uri")
+    private String sourceUri = "";
+
+    // ImportBatchWriter.DuplicatePolicy name, reapplied on resume
+    @NonNull
+    @ColumnInfo(name = "duplicate_policy")
+    private String duplicatePolicy = "";
+
+    // Length and last-modified time of the source when the import began, or -1 when the
+    // provider doesn't report them; a resume refuses a source that no longer matches
+    @ColumnInfo(name = "source_size", defaultValue = "-1")
+    private long sourceSize = -1;
+
+    @ColumnInfo(name = "source_modified_at", defaultValue = "-1")
+    private long sourceModifiedAt = -1;
+
+    // Offset in the raw (decompressed) bytes just past the last committed record; CSV only
+    @ColumnInfo(name = "byte_offset")
+    private long byteOffset;
+
+    // Line on which the next CSV record starts, so resumed error messages stay correct
+    @ColumnInfo(name = "next_line")
+    private long nextLine = 1;
+
+    // Records consumed, valid or not; JSON resumes by skipping this many elements
+    @ColumnInfo(name = "records_read")
+    private long recordsRead;
+
+    @ColumnInfo(name = "rows_written")
+    private long rowsWritten;
+
+    // Highest id before the import began; keeps natural-key matching stable across a resume
+    @ColumnInfo(name = "import_floor_id")
+    private Integer importFloorId;
+
+    @ColumnInfo(name = "batch_number")
+    private int batchNumber;
+
+    @ColumnInfo(name = "updated_at")
+    private long updatedAt;
+
+    public ImportCheckpoint() {}
+
+    @Ignore
+    public ImportCheckpoint(@NonNull String sourceUri, @NonNull String duplicatePolicy) {
+        this.sourceUri = sourceUri;
+        this.duplicatePolicy = duplicatePolicy;
+    }
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    @NonNull
+    public String getSourceUri() { return sourceUri; }
+    public void setSourceUri(@NonNull String sourceUri) { this.sourceUri = sourceUri; }
+
+    @NonNull
+    public String getDuplicatePolicy() { return duplicatePolicy; }
+    public void setDuplicatePolicy(@NonNull String duplicatePolicy) { this.duplicatePolicy = duplicatePolicy; }
+
+    public long getSourceSize() { return sourceSize; }
+    public void setSourceSize(long sourceSize) { this.sourceSize = sourceSize; }
+
+    public long getSourceModifiedAt() { return sourceModifiedAt; }
+    public void setSourceModifiedAt(long sourceModifiedAt) { this.sourceModifiedAt = sourceModifiedAt; }
+
+    public long getByteOffset() { return byteOffset; }
+    public void setByteOffset(long byteOffset) { this.byteOffset = byteOffset; }
+
+    public long getNextLine() { return nextLine; }
+    public void setNextLine(long nextLine) { this.nextLine = nextLine; }
+
+    public long getRecordsRead() { return recordsRead; }
+    public void setRecordsRead(long recordsRead) { this.recordsRead = recordsRead; }
+
+    public long getRowsWritten() { return rowsWritten; }
+    public void setRowsWritten(long rowsWritten) { this.rowsWritten = rowsWritten; }
+
+    public Integer getImportFloorId() { return importFloorId; }
+    public void setImportFloorId(Integer importFloorId) { this.importFloorId = importFloorId; }
+
+    public int getBatchNumber() { return batchNumber; }
+    public void setBatchNumber(int batchNumber) { this.batchNumber = batchNumber; }
+
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+
+    // True once something has been committed, i.e. there is progress worth resuming
+    public boolean hasProgress() {
+        return batchNumber > 0;
+    }
+}
@@ -9,13 +9,21 @@ import androidx.room.TypeConverters;
 import androidx.room.Ignore;
 
 import com.frozenassets.app.utils.DateConverter;
+import com.frozenassets.app.utils.DateUtils;
 import com.frozenassets.app.utils.ListConverter;
 
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
-@Entity(tableName = "inventory_items", indices = {@Index("id")})
+@Entity(tableName = "inventory_items",
+        indices = {
+                @Index(value = {"category_key", "expirationDate"}),
+                @Index(value = {"expiration_epoch_day", "expirationDate"}),
+                @Index(value = {"frozen_epoch_day"}),
+                @Index(value = {"modified_at"}),
+                @Index(value = {"natural_key"})
+        })
 public class InventoryItem {
     @PrimaryKey(autoGenerate = true)
     private int id;
@@ -28,6 +36,11 @@ public class InventoryItem {
     @ColumnInfo(name = "category")
     private String category;
 
+    // Normalized copy of category (see FoodCategory.toCategoryKey) so lookups can seek the index
+    @NonNull
+    @ColumnInfo(name = "category_key", defaultValue = "''")
+    private String categoryKey = "";
+
     @ColumnInfo(name = "quantity")
     private int quantity;
 
@@ -45,6 +58,13 @@ public class InventoryItem {
     @ColumnInfo(name = "expirationDate")
     private Date expirationDate;
 
+    // Local calendar days since 1970-01-01, kept in step with the dates above
+    @ColumnInfo(name = "frozen_epoch_day")
+    private Integer frozenEpochDay;
+
+    @ColumnInfo(name = "expiration_epoch_day")
+    private Integer expirationEpochDay;
+
     @TypeConverters(ListConverter.class)
     @ColumnInfo(name = "tags")
     private List<String> tags;
@@ -55,6 +75,14 @@ public class InventoryItem {
     @ColumnInfo(name = "weightUnit")
     private String weightUnit;
 
+    // Wall-clock millis of the last write, stamped by the repository; drives incremental exports
+    @ColumnInfo(name = "modified_at", defaultValue = "0")
+    private long modifiedAt;
+
+    // NaturalKey hash of name, category, day frozen and weight; matches re-imported rows
+    @ColumnInfo(name = "natural_key")
+    private String naturalKey;
+
     // Default constructor for Room
     public InventoryItem() {}
 
@@ -64,10 +92,10 @@ public class InventoryItem {
                          Date dateFrozen, Date expirationDate, List<String> tags,
                          String weight, String weightUnit, int maxFreezeDays) {
         this.name = name;
-        this.category = category;
+        setCategory(category);
         this.quantity = quantity;
-        this.dateFrozen = dateFrozen;
-        this.expirationDate = expirationDate;
+        setDateFrozen(dateFrozen);
+        setExpirationDate(expirationDate);
         this.tags = tags;
         this.weight = weight;
         this.weightUnit = weightUnit;
@@ -101,7 +129,20 @@ public class InventoryItem {
 
     @NonNull
     public String getCategory() { return category; }
-    public void setCategory(@NonNull String category) { this.category = category; }
+    public void setCategory(@NonNull String category) {
+        this.category = category;
+        this.categoryKey = FoodCategory.toCategoryKey(category);
+    }
+
+    @NonNull
+    public String getCategoryKey() {
+        // Items built by reflection (e.g. Gson on import) never go through setCategory
+        if ((categoryKey == null || categoryKey.isEmpty()) && category != null) {
+            categoryKey = FoodCategory.toCategoryKey(category);
+        }
+        return categoryKey;
+    }
+    public void setCategoryKey(@NonNull String categoryKey) { this.categoryKey = categoryKey; }
 
     public int getQuantity() { return quantity; }
     public void setQuantity(int quantity) { this.quantity = quantity; }
@@ -113,10 +154,32 @@ public class InventoryItem {
     public void setMaxFreezeDays(int maxFreezeDays) { this.maxFreezeDays = maxFreezeDays; }
 
     public Date getDateFrozen() { return dateFrozen; }
-    public void setDateFrozen(Date dateFrozen) { this.dateFrozen = dateFrozen; }
+    public void setDateFrozen(Date dateFrozen) {
+        this.dateFrozen = dateFrozen;
+        this.frozenEpochDay = null; // recomputed lazily by getFrozenEpochDay
+    }
 
     public Date getExpirationDate() { return expirationDate; }
-    public void setExpirationDate(Date expirationDate) { this.expirationDate = expirationDate; }
+    public void setExpirationDate(Date expirationDate) {
+        this.expirationDate = expirationDate;
+        this.expirationEpochDay = null; // recomputed lazily by getExpirationEpochDay
+    }
+
+    public Integer getFrozenEpochDay() {
+        if (frozenEpochDay == null && dateFrozen != null) {
+            frozenEpochDay = DateUtils.toEpochDay(dateFrozen);
+        }
+        return frozenEpochDay;
+    }
+    public void setFrozenEpochDay(Integer frozenEpochDay) { this.frozenEpochDay = frozenEpochDay; }
+
+    public Integer getExpirationEpochDay() {
+        if (expirationEpochDay == null && expirationDate != null) {
+            expirationEpochDay = DateUtils.toEpochDay(expirationDate);
+        }
+        return expirationEpochDay;
+    }
+    public void setExpirationEpochDay(Integer expirationEpochDay) { this.expirationEpochDay = expirationEpochDay; }
 
     public List<String> getTags() { return tags; }
     public void setTags(List<String> tags) { this.tags = tags; }
@@ -127,6 +190,12 @@ public class InventoryItem {
     public String getWeightUnit() { return weightUnit; }
     public void setWeightUnit(String weightUnit) { this.weightUnit = weightUnit; }
 
+    public long getModifiedAt() { return modifiedAt; }
+    public void setModifiedAt(long modifiedAt) { this.modifiedAt = modifiedAt; }
+
+    public String getNaturalKey() { return naturalKey; }
+    public void setNaturalKey(String naturalKey) { this.naturalKey = naturalKey; }
+
     // Helper method to get formatted weight and unit for display
     public String getFormattedWeight() {
         if (weight == null || weightUnit == null) {
@@ -0,0 +1,36 @@
+package com.frozenassets.app.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+
+// External-content FTS index over inventory_items. Room installs the triggers
+// that keep it in sync, so it only ever needs to be written by migrations.
+@Fts4(contentEntity = InventoryItem.class)
+@Entity(tableName = "inventory_items_fts")
+public class InventoryItemFts {
+    @ColumnInfo(name = "name")
+    private String name;
+
+    @ColumnInfo(name = "category")
+    private String category;
+
+    @ColumnInfo(name = "notes")
+    private String notes;
+
+    // Raw tags column text; the tokenizer drops the JSON punctuation
+    @ColumnInfo(name = "tags")
+    private String tags;
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public String getNotes() { return notes; }
+    public void setNotes(String notes) { this.notes = notes; }
+
+    public String getTags() { return tags; }
+    public void setTags(String tags) { this.tags = tags; }
+}
@@ -0,0 +1,63 @@
+package com.frozenassets.app.models;
+
+import androidx.room.ColumnInfo;
+
+import java.util.Date;
+
+// Just the inventory_items columns a list row displays. Notes and tags stay
+// out of the cursor; screens that need them load the full InventoryItem.
+public class InventoryListRow {
+    // Column list for queries that fill this class
+    public static final String COLUMNS =
+            "inventory_items.id, inventory_items.name, inventory_items.category, inventory_items.quantity, " +
+            "inventory_items.weight, inventory_items.dateFrozen, inventory_items.expirationDate, " +
+            "inventory_items.expiration_epoch_day";
+
+    @ColumnInfo(name = "id")
+    private int id;
+
+    @ColumnInfo(name = "name")
+    private String name;
+
+    @ColumnInfo(name = "category")
+    private String category;
+
+    @ColumnInfo(name = "quantity")
+    private int quantity;
+
+    @ColumnInfo(name = "weight")
+    private String weight;
+
+    @ColumnInfo(name = "dateFrozen")
+    private Date dateFrozen;
+
+    @ColumnInfo(name = "expirationDate")
+    private Date expirationDate;
+
+    @ColumnInfo(name = "expiration_epoch_day")
+    private Integer expirationEpochDay;
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    public String getWeight() { return weight; }
+    public void setWeight(String weight) { this.weight = weight; }
+
+    public Date getDateFrozen() { return dateFrozen; }
+    public void setDateFrozen(Date dateFrozen) { this.dateFrozen = dateFrozen; }
+
+    public Date getExpirationDate() { return expirationDate; }
+    public void setExpirationDate(Date expirationDate) { this.expirationDate = expirationDate; }
+
+    public Integer getExpirationEpochDay() { return expirationEpochDay; }
+    public void setExpirationEpochDay(Integer expirationEpochDay) { this.expirationEpochDay = expirationEpochDay; }
+}
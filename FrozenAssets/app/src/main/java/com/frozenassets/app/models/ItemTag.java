@@ -0,0 +1,39 @@
+package com.frozenassets.app.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+// Links an inventory item to an entry in the tags vocabulary
+@Entity(tableName = "item_tags",
+        primaryKeys = {"item_id", "tag_id"},
+        foreignKeys = {
+                @ForeignKey(entity = InventoryItem.class,
+                        parentColumns = "id",
+                        childColumns = "item_id",
+                        onDelete = ForeignKey.CASCADE),
+                @ForeignKey(entity = Tag.class,
+                        parentColumns = "id",
+                        childColumns = "tag_id",
+                        onDelete = ForeignKey.CASCADE)
+        },
+        indices = {@Index("tag_id")})
+public class ItemTag {
+    @ColumnInfo(name = "item_id")
+    private int itemId;
+
+    @ColumnInfo(name = "tag_id")
+    private int tagId;
+
+    public ItemTag(int itemId, int tagId) {
+        this.itemId = itemId;
+        this.tagId = tagId;
+    }
+
+    public int getItemId() { return itemId; }
+    public void setItemId(int itemId) { this.itemId = itemId; }
+
+    public int getTagId() { return tagId; }
+    public void setTagId(int tagId) { this.tagId = tagId; }
+}
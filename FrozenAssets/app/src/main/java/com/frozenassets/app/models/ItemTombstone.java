@@ -0,0 +1,30 @@
+package com.frozenassets.app.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+// Records a deleted inventory item so incremental exports can carry the deletion.
+// Maintained by triggers (see InventoryDatabase.createChangeTrackingTriggers)
+@Entity(tableName = "item_tombstones",
+        indices = {@Index("deleted_at")})
+public class ItemTombstone {
+    @PrimaryKey
+    @ColumnInfo(name = "item_id")
+    private int itemId;
+
+    @ColumnInfo(name = "deleted_at")
+    private long deletedAt;
+
+    public ItemTombstone(int itemId, long deletedAt) {
+        this.itemId = itemId;
+        this.deletedAt = deletedAt;
+    }
+
+    public int getItemId() { return itemId; }
+    public void setItemId(int itemId) { this.itemId = itemId; }
+
+    public long getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(long deletedAt) { this.deletedAt = deletedAt; }
+}
@@ -0,0 +1,38 @@
+package com.frozenassets.app.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+// Entry in the tag vocabulary offered when adding an item; items link to it through ItemTag.
+// Default tags come with the app, the rest are added by the user or by imports
+@Entity(tableName = "tags")
+public class Tag {
+    @PrimaryKey(autoGenerate = true)
+    @ColumnInfo(name = "id")
+    private int id;
+
+    @ColumnInfo(name = "name")
+    private String name;
+
+    @ColumnInfo(name = "isDefault")
+    private boolean isDefault;
+
+    public Tag() {}
+
+    @Ignore
+    public Tag(String name, boolean isDefault) {
+        this.name = name;
+        this.isDefault = isDefault;
+    }
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public boolean isDefault() { return isDefault; }
+    public void setDefault(boolean isDefault) { this.isDefault = isDefault; }
+}
@@ -0,0 +1,15 @@
+package com.frozenassets.app.models;
+
+import androidx.room.ColumnInfo;
+
+// Row of ItemTagDao.getTagCounts
+public class TagCount {
+    @ColumnInfo(name = "tag_id")
+    public int tagId;
+
+    @ColumnInfo(name = "name")
+    public String name;
+
+    @ColumnInfo(name = "item_count")
+    public int itemCount;
+}
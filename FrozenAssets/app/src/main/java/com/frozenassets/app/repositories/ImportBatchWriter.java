@@ -0,0 +1,300 @@
+package com.frozenassets.app.repositories;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import com.frozenassets.app.AppExecutors;
+import com.frozenassets.app.database.InventoryDao;
+import com.frozenassets.app.database.InventoryDatabase;
+import com.frozenassets.app.database.ItemTagDao;
+import com.frozenassets.app.models.ImportCheckpoint;
+import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.utils.NaturalKey;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buffers imported items and commits them in bounded transactions, so a large
+ * import costs one commit and one Room invalidation per batch instead of per row.
+ * Not thread-safe; feed it from a single background thread and close it when done.
+ *
+ * Every row gets a NaturalKey. Under the SKIP/UPDATE policies each batch's keys go
+ * into a temp table and are joined against the natural_key index in one query,
+ * matching only rows that existed before the import began, so duplicates inside
+ * the file itself are not collapsed.
+ *
+ * With a checkpoint set, each batch transaction also saves the source position
+ * marked for its last row, so the saved position never runs ahead of or behind
+ * what was actually committed.
+ *
+ * Every write runs on the app's serial writer (AppExecutors.diskWrite()), one batch
+ * transaction per task, so edits made on screen during a long import queue between
+ * batches instead of waiting on the database lock.
+ */
+public class ImportBatchWriter implements Closeable {
+    private static final String TAG = "ImportBatchWriter";
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    public enum DuplicatePolicy {
+        // Rows keep the ids they carry, updating an existing row in place; used for restores and change bundles
+        BY_ID,
+        // Rows matching an existing item's natural key are dropped
+        SKIP_EXISTING,
+        // Rows matching an existing item's natural key overwrite that item
+        UPDATE_EXISTING,
+        // Every row becomes a new item, whatever id it carries
+        INSERT_AS_NEW
+    }
+
+    public interface BatchListener {
+        // Called on the writing thread after each batch commits
+        void onBatchCommitted(int batchNumber, int batchRows, long totalRows, long elapsedMillis);
+    }
+
+    private final InventoryDatabase database;
+    private final AppExecutors executors;
+    private final InventoryDao inventoryDao;
+    private final ItemTagDao itemTagDao;
+    private final int batchSize;
+    private final BatchListener listener;
+    private final List<InventoryItem> pending;
+    private DuplicatePolicy duplicatePolicy = DuplicatePolicy.BY_ID;
+    private Integer importFloorId;
+    private int batchCount = 0;
+    private long rowsWritten = 0;
+    private long rowsUpdated = 0;
+    private long duplicatesSkipped = 0;
+    private ImportCheckpoint checkpoint;
+    private long markByteOffset;
+    private long markNextLine = 1;
+    private long markRecordsRead;
+
+    ImportBatchWriter(InventoryDatabase database, AppExecutors executors, int batchSize, BatchListener listener) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.database = database;
+        this.executors = executors;
+        this.inventoryDao = database.inventoryDao();
+        this.itemTagDao = database.itemTagDao();
+        this.batchSize = batchSize;
+        this.listener = listener;
+        this.pending = new ArrayList<>(batchSize);
+    }
+
+    // Applies to rows added after the call; buffered rows are committed under the old policy first
+    public void setDuplicatePolicy(DuplicatePolicy policy) {
+        if (policy != duplicatePolicy) {
+            flush();
+            duplicatePolicy = policy;
+        }
+    }
+
+    public DuplicatePolicy getDuplicatePolicy() {
+        return duplicatePolicy;
+    }
+
+    // Saves progress with every batch; pass a stored checkpoint to carry on from it
+    public void setCheckpoint(ImportCheckpoint checkpoint) {
+        flush();
+        this.checkpoint = checkpoint;
+        markByteOffset = checkpoint.getByteOffset();
+        markNextLine = checkpoint.getNextLine();
+        markRecordsRead = checkpoint.getRecordsRead();
+        if (checkpoint.getImportFloorId() != null) {
+            importFloorId = checkpoint.getImportFloorId();
+        }
+    }
+
+    public ImportCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    // Source position just past the record about to be added; call before add()
+    public void markSourcePosition(long byteOffset, long nextLine, long recordsRead) {
+        markByteOffset = byteOffset;
+        markNextLine = nextLine;
+        markRecordsRead = recordsRead;
+    }
+
+    // Commits what is buffered and drops the checkpoint; the import no longer needs resuming
+    public void completeCheckpoint() {
+        flush();
+        if (checkpoint != null) {
+            executors.runOnDiskWrite(() -> database.importCheckpointDao().clear());
+            checkpoint = null;
+        }
+    }
+
+    public void add(InventoryItem item) {
+        if (item == null) {
+            return;
+        }
+        pending.add(item);
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    public void addAll(List<InventoryItem> items) {
+        for (InventoryItem item : items) {
+            add(item);
+        }
+    }
+
+    // Adds tag names to the vocabulary straight away, outside the item batches
+    public void addTagNames(Collection<String> tagNames) {
+        executors.runOnDiskWrite(() -> itemTagDao.ensureTagNames(tagNames));
+    }
+
+    // Deletes by id after committing what is buffered, so a delta applies in file order
+    public int deleteItems(List<Integer> ids) {
+        flush();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int[] deleted = new int[1];
+        executors.runOnDiskWrite(() -> deleted[0] = inventoryDao.deleteByIds(ids));
+        Log.d(TAG, "Deleted " + deleted[0] + " of " + ids.size() + " items");
+        return deleted[0];
+    }
+
+    // Commits whatever is buffered as one transaction
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long[] counts = new long[3]; // written, updated, skipped
+        int batchRows = pending.size();
+        try {
+            executors.runOnDiskWrite(() -> database.runInTransaction(() -> {
+                long modifiedAt = System.currentTimeMillis();
+                for (InventoryItem item : pending) {
+                    InventoryRepository.applyDefaultExpiration(item);
+                    item.setModifiedAt(modifiedAt);
+                    item.setNaturalKey(NaturalKey.of(item));
+                }
+                Map<String, Integer> existing = matchesExisting()
+                        ? findExisting(pending) : new HashMap<>();
+
+                for (InventoryItem item : pending) {
+                    if (duplicatePolicy != DuplicatePolicy.BY_ID) {
+                        Integer existingId = existing.get(item.getNaturalKey());
+                        if (existingId != null && duplicatePolicy == DuplicatePolicy.SKIP_EXISTING) {
+                            counts[2]++;
+                            continue;
+                        }
+                        if (existingId != null) {
+                            counts[1]++;
+                        }
+                        item.setId(existingId != null ? existingId : 0);
+                    }
+                    long id = inventoryDao.upsert(item);
+                    itemTagDao.replaceTagsForItem((int) id, item.getTags());
+                    counts[0]++;
+                }
+                if (checkpoint != null) {
+                    saveCheckpoint(counts[0], modifiedAt);
+                }
+            }));
+        } finally {
+            // A failed batch is rolled back and dropped, so close() doesn't retry the same rows
+            pending.clear();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+
+        batchCount++;
+        rowsWritten += counts[0];
+        rowsUpdated += counts[1];
+        duplicatesSkipped += counts[2];
+        Log.d(TAG, "Committed batch " + batchCount + ": " + counts[0] + " rows written, " + counts[2]
+                + " duplicates skipped in " + elapsedMillis + " ms (" + rowsWritten + " total)");
+        if (listener != null) {
+            listener.onBatchCommitted(batchCount, batchRows, rowsWritten + duplicatesSkipped, elapsedMillis);
+        }
+    }
+
+    private void saveCheckpoint(long batchRowsWritten, long now) {
+        checkpoint.setByteOffset(markByteOffset);
+        checkpoint.setNextLine(markNextLine);
+        checkpoint.setRecordsRead(markRecordsRead);
+        checkpoint.setRowsWritten(checkpoint.getRowsWritten() + batchRowsWritten);
+        checkpoint.setBatchNumber(checkpoint.getBatchNumber() + 1);
+        checkpoint.setDuplicatePolicy(duplicatePolicy.name());
+        checkpoint.setImportFloorId(importFloorId);
+        checkpoint.setUpdatedAt(now);
+        database.importCheckpointDao().save(checkpoint);
+    }
+
+    private boolean matchesExisting() {
+        return duplicatePolicy == DuplicatePolicy.SKIP_EXISTING
+                || duplicatePolicy == DuplicatePolicy.UPDATE_EXISTING;
+    }
+
+    // Natural key -> lowest matching id among rows older than the import; runs inside the batch transaction
+    private Map<String, Integer> findExisting(List<InventoryItem> items) {
+        if (importFloorId == null) {
+            importFloorId = inventoryDao.getMaxId();
+        }
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        db.execSQL("CREATE TEMP TABLE IF NOT EXISTS import_keys (natural_key TEXT PRIMARY KEY)");
+        db.execSQL("DELETE FROM import_keys");
+        SupportSQLiteStatement insertKey = db.compileStatement(
+                "INSERT OR IGNORE INTO import_keys (natural_key) VALUES (?)");
+        try {
+            for (InventoryItem item : items) {
+                insertKey.bindString(1, item.getNaturalKey());
+                insertKey.executeInsert();
+            }
+        } finally {
+            try {
+                insertKey.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Error closing import key statement", e);
+            }
+        }
+
+        Map<String, Integer> found = new HashMap<>();
+        try (Cursor cursor = db.query(
+                "SELECT k.natural_key, MIN(i.id) FROM import_keys k " +
+                "JOIN inventory_items i ON i.natural_key = k.natural_key " +
+                "WHERE i.id <= ? GROUP BY k.natural_key", new Object[] {importFloorId})) {
+            while (cursor.moveToNext()) {
+                found.put(cursor.getString(0), cursor.getInt(1));
+            }
+        }
+        return found;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public long getRowsUpdated() {
+        return rowsUpdated;
+    }
+
+    public long getDuplicatesSkipped() {
+        return duplicatesSkipped;
+    }
+
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
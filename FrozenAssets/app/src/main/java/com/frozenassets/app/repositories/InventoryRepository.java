@@ -1,28 +1,88 @@
 package com.frozenassets.app.repositories;
 
 import android.app.Application;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
+import androidx.paging.PagingSource;
 import androidx.room.Room;
 
+import com.frozenassets.app.AppExecutors;
+import com.frozenassets.app.database.DatabaseBackup;
+import com.frozenassets.app.database.DatabaseMerger;
+import com.frozenassets.app.database.ExportSnapshot;
 import com.frozenassets.app.database.InventoryDao;
 import com.frozenassets.app.database.InventoryDatabase;
+import com.frozenassets.app.database.ItemTagDao;
+import com.frozenassets.app.importexport.ExportBundleWriter;
+import com.frozenassets.app.importexport.ExportResult;
+import com.frozenassets.app.importexport.ItemCursorMapper;
+import com.frozenassets.app.importexport.ItemSink;
+import com.frozenassets.app.importexport.ProgressListener;
+import com.frozenassets.app.importexport.SnapshotWriter;
+import com.frozenassets.app.models.CategoryCount;
+import com.frozenassets.app.models.ImportCheckpoint;
 import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.models.InventoryListRow;
 import com.frozenassets.app.models.FoodCategory;
 import com.frozenassets.app.models.SortOrder;
+import com.frozenassets.app.models.TagCount;
 import com.frozenassets.app.utils.DateUtils;
+import com.frozenassets.app.utils.FtsQueryBuilder;
+import com.frozenassets.app.utils.NaturalKey;
 
-import java.util.Date;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import kotlin.jvm.functions.Function0;
 
 public class InventoryRepository {
+    // Enough rows to fill a couple of screens; placeholders off so the adapter
+    // only ever sees loaded rows
+    private static final PagingConfig PAGING_CONFIG = new PagingConfig(
+            /* pageSize */ 40, /* prefetchDistance */ 20, /* enablePlaceholders */ false);
+
+    private static final String EXPORT_STATE_PREFS = "export_state";
+    private static final String KEY_LAST_EXPORT_AT = "last_export_at";
+    // Only exportChanges moves this one: a CSV or full export in between must not
+    // narrow the next change bundle, or the device it goes to would miss changes
+    private static final String KEY_LAST_CHANGE_EXPORT_AT = "last_change_export_at";
+    // Change exports reach back this far before the last change export, so a write stamped just
+    // before it but committed just after is never missed (re-applying a row is harmless)
+    private static final long CHANGE_OVERLAP_MILLIS = 5_000L;
+    private static final int EXPORT_PROGRESS_INTERVAL = 500;
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
+    private final Application application;
+    private final InventoryDatabase database;
     private final InventoryDao inventoryDao;
-    private final ExecutorService executorService;
+    private final ItemTagDao itemTagDao;
+    // The app's serial writer; every write of every repository goes through it
+    private final Executor writeExecutor;
+    private final SharedPreferences exportState;
     private final LiveData<List<InventoryItem>> allItems;
     private final LiveData<List<String>> allCategories;
+    private final LiveData<List<CategoryCount>> categoryCounts;
 
     public InventoryRepository(Application application) {
         InventoryDatabase database = null;
@@ -45,15 +105,21 @@ public class InventoryRepository {
             }
         }
 
+        this.application = application;
+        this.database = database;
+        this.exportState = application.getSharedPreferences(EXPORT_STATE_PREFS, Context.MODE_PRIVATE);
+
         try {
             inventoryDao = database.inventoryDao();
-            if (inventoryDao == null) {
+            itemTagDao = database.itemTagDao();
+            if (inventoryDao == null || itemTagDao == null) {
                 throw new RuntimeException("DAO creation returned null");
             }
             
-            executorService = Executors.newFixedThreadPool(4);
+            writeExecutor = AppExecutors.get(application).diskWrite();
             allItems = inventoryDao.getAllItems();
             allCategories = inventoryDao.getAllCategories();
+            categoryCounts = inventoryDao.getCategoryCounts();
             
             Log.d("InventoryRepository", "Repository initialized successfully");
         } catch (Exception e) {
@@ -85,29 +151,30 @@ public class InventoryRepository {
 
     // Get items by category
     public LiveData<List<InventoryItem>> getItemsByCategory(String category) {
-        return inventoryDao.getItemsByCategory(category);
+        return inventoryDao.getItemsByCategory(FoodCategory.toCategoryKey(category));
     }
 
     // Get items by category with sorting
     public LiveData<List<InventoryItem>> getItemsByCategory(String category, SortOrder sortOrder) {
+        String categoryKey = FoodCategory.toCategoryKey(category);
         switch (sortOrder) {
             case EXPIRATION_DESC:
-                return inventoryDao.getItemsByCategorySortedDesc(category);
+                return inventoryDao.getItemsByCategorySortedDesc(categoryKey);
             case EXPIRATION_ASC:
             default:
-                return inventoryDao.getItemsByCategory(category);
+                return inventoryDao.getItemsByCategory(categoryKey);
         }
     }
 
     // Get items nearing expiration (within two months)
     public LiveData<List<InventoryItem>> getItemsNearingExpiration() {
-        Date threshold = DateUtils.getExpirationThreshold();
+        int threshold = DateUtils.getExpirationThresholdEpochDay();
         return inventoryDao.getItemsNearingExpiration(threshold);
     }
 
     // Get items nearing expiration with sorting
     public LiveData<List<InventoryItem>> getItemsNearingExpiration(SortOrder sortOrder) {
-        Date threshold = DateUtils.getExpirationThreshold();
+        int threshold = DateUtils.getExpirationThresholdEpochDay();
         switch (sortOrder) {
             case EXPIRATION_DESC:
                 return inventoryDao.getItemsNearingExpirationSortedDesc(threshold);
@@ -117,6 +184,50 @@ public class InventoryRepository {
         }
     }
 
+    // Get items frozen between two local days (inclusive)
+    public LiveData<List<InventoryItem>> getItemsFrozenBetween(int fromEpochDay, int toEpochDay) {
+        return inventoryDao.getItemsFrozenBetween(fromEpochDay, toEpochDay);
+    }
+
+    // Paged list screens. Each call builds a new Pager; callers cache the result
+    // (see InventoryViewModel) so rotation doesn't reload from scratch.
+    public LiveData<PagingData<InventoryListRow>> getPagedRows(SortOrder sortOrder) {
+        if (sortOrder == SortOrder.EXPIRATION_DESC) {
+            return page(inventoryDao::getAllRowsSortedDescPaged);
+        }
+        return page(inventoryDao::getAllRowsPaged);
+    }
+
+    public LiveData<PagingData<InventoryListRow>> getPagedRowsByCategory(String category, SortOrder sortOrder) {
+        String categoryKey = FoodCategory.toCategoryKey(category);
+        if (sortOrder == SortOrder.EXPIRATION_DESC) {
+            return page(() -> inventoryDao.getRowsByCategorySortedDescPaged(categoryKey));
+        }
+        return page(() -> inventoryDao.getRowsByCategoryPaged(categoryKey));
+    }
+
+    public LiveData<PagingData<InventoryListRow>> getPagedRowsNearingExpiration(SortOrder sortOrder) {
+        int threshold = DateUtils.getExpirationThresholdEpochDay();
+        if (sortOrder == SortOrder.EXPIRATION_DESC) {
+            return page(() -> inventoryDao.getRowsNearingExpirationSortedDescPaged(threshold));
+        }
+        return page(() -> inventoryDao.getRowsNearingExpirationPaged(threshold));
+    }
+
+    public LiveData<PagingData<InventoryListRow>> searchPagedRows(String query) {
+        String anyMatch = FtsQueryBuilder.prefixQuery(query);
+        if (anyMatch == null) {
+            return getPagedRows(SortOrder.EXPIRATION_ASC);
+        }
+        String nameMatch = FtsQueryBuilder.columnPrefixQuery("name", query);
+        return page(() -> inventoryDao.searchRowsPaged(nameMatch, anyMatch));
+    }
+
+    private LiveData<PagingData<InventoryListRow>> page(
+            Function0<PagingSource<Integer, InventoryListRow>> pagingSourceFactory) {
+        return PagingLiveData.getLiveData(new Pager<>(PAGING_CONFIG, pagingSourceFactory));
+    }
+
     // Insert item
     public void insert(InventoryItem item) {
         if (item == null) {
@@ -125,15 +236,16 @@ public class InventoryRepository {
         }
         
         try {
-            // Calculate expiration date if not set
-            if (item.getExpirationDate() == null && item.getDateFrozen() != null) {
-                long duration = FoodCategory.getDurationForCategory(item.getCategory());
-                item.setExpirationDate(new Date(item.getDateFrozen().getTime() + duration));
-            }
+            applyDefaultExpiration(item);
 
-            executorService.execute(() -> {
+            writeExecutor.execute(() -> {
                 try {
-                    inventoryDao.insert(item);
+                    database.runInTransaction(() -> {
+                        item.setModifiedAt(System.currentTimeMillis());
+                        item.setNaturalKey(NaturalKey.of(item));
+                        long id = inventoryDao.insert(item);
+                        itemTagDao.replaceTagsForItem((int) id, item.getTags());
+                    });
                 } catch (Exception e) {
                     Log.e("InventoryRepository", "Error inserting item: " + item.getName(), e);
                 }
@@ -150,9 +262,14 @@ public class InventoryRepository {
             return;
         }
         
-        executorService.execute(() -> {
+        writeExecutor.execute(() -> {
             try {
-                inventoryDao.update(item);
+                database.runInTransaction(() -> {
+                    item.setModifiedAt(System.currentTimeMillis());
+                    item.setNaturalKey(NaturalKey.of(item));
+                    inventoryDao.update(item);
+                    itemTagDao.replaceTagsForItem(item.getId(), item.getTags());
+                });
             } catch (Exception e) {
                 Log.e("InventoryRepository", "Error updating item: " + item.getName(), e);
             }
@@ -166,7 +283,7 @@ public class InventoryRepository {
             return;
         }
         
-        executorService.execute(() -> {
+        writeExecutor.execute(() -> {
             try {
                 inventoryDao.delete(item);
             } catch (Exception e) {
@@ -175,9 +292,69 @@ public class InventoryRepository {
         });
     }
 
+    // Delete item by id, for list rows that never loaded the full entity
+    public void deleteById(int id) {
+        writeExecutor.execute(() -> {
+            try {
+                inventoryDao.deleteById(id);
+            } catch (Exception e) {
+                Log.e("InventoryRepository", "Error deleting item with id: " + id, e);
+            }
+        });
+    }
+
+    // Delete a multi-select in one transaction so observers re-query once
+    public void deleteByIds(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+
+        List<Integer> idsCopy = new ArrayList<>(ids);
+        writeExecutor.execute(() -> {
+            try {
+                int deleted = inventoryDao.deleteByIds(idsCopy);
+                Log.d("InventoryRepository", "Bulk deleted " + deleted + " of " + idsCopy.size() + " items");
+            } catch (Exception e) {
+                Log.e("InventoryRepository", "Error bulk deleting " + idsCopy.size() + " items", e);
+            }
+        });
+    }
+
+    // "Select all" on All Items: every item except the ones tapped off
+    public void deleteAllItemsExcept(Set<Integer> except) {
+        Set<Integer> exceptCopy = new HashSet<>(except);
+        writeExecutor.execute(() -> {
+            try {
+                int deleted = inventoryDao.deleteAllExcept(exceptCopy);
+                Log.d("InventoryRepository", "Bulk deleted " + deleted + " items, kept " + exceptCopy.size());
+            } catch (Exception e) {
+                Log.e("InventoryRepository", "Error bulk deleting all items", e);
+            }
+        });
+    }
+
+    // "Select all" on Eat Soon: every item nearing expiration except the ones tapped off
+    public void deleteItemsNearingExpirationExcept(Set<Integer> except) {
+        int threshold = DateUtils.getExpirationThresholdEpochDay();
+        Set<Integer> exceptCopy = new HashSet<>(except);
+        writeExecutor.execute(() -> {
+            try {
+                int deleted = inventoryDao.deleteNearingExpirationExcept(threshold, exceptCopy);
+                Log.d("InventoryRepository", "Bulk deleted " + deleted + " expiring items, kept " + exceptCopy.size());
+            } catch (Exception e) {
+                Log.e("InventoryRepository", "Error bulk deleting expiring items", e);
+            }
+        });
+    }
+
     // Search items
     public LiveData<List<InventoryItem>> searchItems(String query) {
-        return inventoryDao.searchItems(query);
+        String anyMatch = FtsQueryBuilder.prefixQuery(query);
+        if (anyMatch == null) {
+            // Nothing searchable left after tokenizing, same as an empty LIKE pattern
+            return allItems;
+        }
+        return inventoryDao.searchItems(FtsQueryBuilder.columnPrefixQuery("name", query), anyMatch);
     }
 
     // Get item by ID
@@ -190,13 +367,250 @@ public class InventoryRepository {
         return inventoryDao.getItemCount();
     }
 
+    public LiveData<Integer> getItemCountNearingExpiration() {
+        return inventoryDao.getItemCountNearingExpiration(DateUtils.getExpirationThresholdEpochDay());
+    }
+
+    // Get item counts for every category
+    public LiveData<List<CategoryCount>> getCategoryCounts() {
+        return categoryCounts;
+    }
+
     // Get item count by category
     public LiveData<Integer> getItemCountByCategory(String category) {
-        return inventoryDao.getItemCountByCategory(category);
+        return inventoryDao.getItemCountByCategory(FoodCategory.toCategoryKey(category));
+    }
+
+    // Get items linked to a tag through item_tags
+    public LiveData<List<InventoryItem>> getItemsByTag(String tagName) {
+        return itemTagDao.getItemsByTagName(tagName);
+    }
+
+    // Get every tag with the number of items carrying it
+    public LiveData<List<TagCount>> getTagCounts() {
+        return itemTagDao.getTagCounts();
     }
 
-    // Batch insert items
+    // Calculate expiration date if not set
+    static void applyDefaultExpiration(InventoryItem item) {
+        if (item.getExpirationDate() == null && item.getDateFrozen() != null) {
+            item.setExpirationDate(FoodCategory.getDefaultExpiration(item.getDateFrozen(), item.getCategory()));
+        }
+    }
+
+    // Batch insert items, committed in bounded transactions
     public void insertAll(List<InventoryItem> items) {
-        executorService.execute(() -> inventoryDao.insertAll(items));
+        writeExecutor.execute(() -> {
+            try (ImportBatchWriter writer = newImportWriter(null)) {
+                writer.addAll(items);
+            } catch (Exception e) {
+                Log.e("InventoryRepository", "Error batch inserting " + items.size() + " items", e);
+            }
+        });
+    }
+
+    // Streams every item from one consistent snapshot as the document the factory writes.
+    // Blocking, so call off the main thread. Every export takes an optional progress listener.
+    public ExportResult exportItems(OutputStream out, ItemSink.Factory format, ProgressListener progress)
+            throws IOException {
+        long startedAt = System.currentTimeMillis();
+        long start = System.nanoTime();
+        long rows = stageExport(out, (snapshot, staged) -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(staged, StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE);
+            try (ItemSink sink = format.open(writer)) {
+                return writeAllItems(snapshot, sink, progress);
+            }
+        });
+        ExportResult result = new ExportResult(rows, (System.nanoTime() - start) / 1_000_000L);
+        recordExport(startedAt);
+        Log.d("InventoryRepository", "Exported items: " + result);
+        return result;
+    }
+
+    // Compressed bundle of items, tag vocabulary and manifest.
+    // Blocking, so call off the main thread.
+    public ExportResult exportBundle(OutputStream out, ProgressListener progress) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        long start = System.nanoTime();
+        long rows = stageExport(out, (snapshot, staged) -> {
+            try (ExportBundleWriter bundle = new ExportBundleWriter(staged, InventoryDatabase.SCHEMA_VERSION)) {
+                try (Cursor tags = snapshot.tags()) {
+                    bundle.writeTags(tags);
+                }
+                try (ItemSink items = bundle.openItems()) {
+                    return writeAllItems(snapshot, items, progress);
+                }
+            }
+        });
+        ExportResult result = new ExportResult(rows, (System.nanoTime() - start) / 1_000_000L);
+        recordExport(startedAt);
+        Log.d("InventoryRepository", "Exported bundle: " + result);
+        return result;
+    }
+
+    // Change bundle: items written and ids deleted since the last change export, plus the
+    // tag vocabulary. Tombstones older than the window are dropped, since the previous
+    // change export already carried them. Blocking, so call off the main thread.
+    public ExportResult exportChanges(OutputStream out, ProgressListener progress) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        long lastChangeExportAt = exportState.getLong(KEY_LAST_CHANGE_EXPORT_AT, 0L);
+        long since = lastChangeExportAt > 0 ? lastChangeExportAt - CHANGE_OVERLAP_MILLIS : 0L;
+        long start = System.nanoTime();
+        long rows = stageExport(out, (snapshot, staged) -> {
+            try (ExportBundleWriter bundle = new ExportBundleWriter(staged, InventoryDatabase.SCHEMA_VERSION, since)) {
+                try (Cursor tags = snapshot.tags()) {
+                    bundle.writeTags(tags);
+                }
+                try (Cursor deleted = snapshot.tombstonesSince(since)) {
+                    bundle.writeDeletions(deleted);
+                }
+                try (ItemSink items = bundle.openItems();
+                     Cursor cursor = snapshot.itemsModifiedSince(since)) {
+                    return writeItems(cursor, items, progress);
+                }
+            }
+        });
+        ExportResult result = new ExportResult(rows, (System.nanoTime() - start) / 1_000_000L);
+        recordExport(startedAt);
+        exportState.edit().putLong(KEY_LAST_CHANGE_EXPORT_AT, startedAt).apply();
+        // A short write of its own once the bundle is out; a failure only leaves old tombstones behind
+        writeExecutor.execute(() -> {
+            try {
+                inventoryDao.purgeTombstones(since);
+            } catch (Exception e) {
+                Log.e("InventoryRepository", "Error purging tombstones before " + since, e);
+            }
+        });
+        Log.d("InventoryRepository", "Exported changes since " + since + ": " + result);
+        return result;
+    }
+
+    // Binary snapshot of tags and items; ids and timestamps round-trip exactly
+    public ExportResult exportSnapshot(OutputStream out, ProgressListener progress) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        long start = System.nanoTime();
+        long rows = stageExport(out, (source, staged) -> {
+            try (SnapshotWriter snapshot = new SnapshotWriter(staged, InventoryDatabase.SCHEMA_VERSION)) {
+                try (Cursor tags = source.tags()) {
+                    int name = tags.getColumnIndexOrThrow("name");
+                    int isDefault = tags.getColumnIndexOrThrow("isDefault");
+                    while (tags.moveToNext()) {
+                        snapshot.writeTag(tags.getString(name), tags.getInt(isDefault) != 0);
+                    }
+                }
+                return writeAllItems(source, snapshot, progress);
+            }
+        });
+        ExportResult result = new ExportResult(rows, (System.nanoTime() - start) / 1_000_000L);
+        recordExport(startedAt);
+        Log.d("InventoryRepository", "Exported snapshot: " + result);
+        return result;
+    }
+
+    private interface StagedExport {
+        long writeTo(ExportSnapshot snapshot, OutputStream staged) throws IOException;
+    }
+
+    // Encodes from one read snapshot, which takes no write lock, into a cache file that is
+    // only copied to the destination once the snapshot is closed; a slow document provider
+    // (a cloud drive, say) would otherwise keep the WAL from being checkpointed.
+    private long stageExport(OutputStream out, StagedExport export) throws IOException {
+        File staged = File.createTempFile("export-", ".tmp", application.getCacheDir());
+        try {
+            long rows;
+            try (ExportSnapshot snapshot = ExportSnapshot.open(application);
+                 OutputStream file = new FileOutputStream(staged)) {
+                rows = export.writeTo(snapshot, file);
+            }
+            try (InputStream in = new FileInputStream(staged)) {
+                byte[] buffer = new byte[EXPORT_BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+            out.flush();
+            return rows;
+        } finally {
+            if (!staged.delete()) {
+                Log.w("InventoryRepository", "Could not delete staged export " + staged);
+            }
+        }
+    }
+
+    // Copy of the database file itself; progress is in bytes. Not an export, so change exports ignore it
+    public long backupDatabase(OutputStream out, ProgressListener progress) throws IOException {
+        return DatabaseBackup.backup(application, database, out, progress);
+    }
+
+    // Swaps the database file for the backup read from in; this repository is unusable afterwards
+    public void restoreDatabase(InputStream in, long size, ProgressListener progress) throws IOException {
+        DatabaseBackup.restore(application, in, size, progress);
+    }
+
+    // Merges another device's database file in one transaction, matching items on their natural keys
+    public DatabaseMerger.Result mergeDatabase(InputStream in, long size, ImportBatchWriter.DuplicatePolicy policy,
+                                               ProgressListener progress) throws IOException {
+        return DatabaseMerger.merge(application, database, in, size, policy, progress);
+    }
+
+    private static long writeAllItems(ExportSnapshot snapshot, ItemSink sink, ProgressListener progress)
+            throws IOException {
+        try (Cursor cursor = snapshot.items()) {
+            return writeItems(cursor, sink, progress);
+        }
+    }
+
+    private static long writeItems(Cursor cursor, ItemSink sink, ProgressListener progress) throws IOException {
+        long count = 0;
+        // getCount() walks the result once up front, which is cheap next to writing it
+        long total = progress != null ? cursor.getCount() : 0;
+        ItemCursorMapper mapper = new ItemCursorMapper(cursor);
+        while (cursor.moveToNext()) {
+            sink.write(mapper.current());
+            count++;
+            if (progress != null && count % EXPORT_PROGRESS_INTERVAL == 0) {
+                progress.onProgress(count, total);
+            }
+        }
+        if (progress != null) {
+            progress.onProgress(count, total);
+        }
+        return count;
+    }
+
+    // Start time of the last successful export of any kind in epoch millis, or 0 if there never was one
+    public long getLastExportTime() {
+        return exportState.getLong(KEY_LAST_EXPORT_AT, 0L);
+    }
+
+    private void recordExport(long startedAt) {
+        exportState.edit().putLong(KEY_LAST_EXPORT_AT, startedAt).apply();
+    }
+
+    // Progress of an interrupted import, or null when there is nothing to resume
+    public LiveData<ImportCheckpoint> getImportCheckpoint() {
+        return database.importCheckpointDao().observe();
+    }
+
+    // Blocking; call from a background thread
+    public ImportCheckpoint loadImportCheckpoint() {
+        return database.importCheckpointDao().get();
+    }
+
+    public void discardImportCheckpoint() {
+        writeExecutor.execute(() -> {
+            try {
+                database.importCheckpointDao().clear();
+            } catch (Exception e) {
+                Log.e("InventoryRepository", "Error discarding import checkpoint", e);
+            }
+        });
+    }
+
+    // Writer for imports; must be used (and closed) off the main thread
+    public ImportBatchWriter newImportWriter(ImportBatchWriter.BatchListener listener) {
+        return new ImportBatchWriter(database, AppExecutors.get(application), ImportBatchWriter.DEFAULT_BATCH_SIZE,
+                listener);
     }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.frozenassets.app.utils;
+
+import android.content.Context;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.SubMenu;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LiveData;
+
+import com.frozenassets.app.R;
+import com.frozenassets.app.models.CategoryCount;
+import com.frozenassets.app.models.FoodCategory;
+import com.google.android.material.navigation.NavigationView;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills the drawer's Categories submenu from InventoryDao.getCategoryCounts.
+ * The default categories are always listed (even when empty), followed by any
+ * other category found in the inventory, each with its live item count.
+ */
+public class CategoryDrawerMenu {
+    private final Context context;
+    private final SubMenu categoriesMenu;
+    private final Map<Integer, String> categoriesByItemId = new HashMap<>();
+
+    public CategoryDrawerMenu(@NonNull Context context, @NonNull NavigationView navigationView) {
+        this.context = context;
+        MenuItem categoriesItem = navigationView.getMenu().findItem(R.id.nav_categories);
+        this.categoriesMenu = categoriesItem != null ? categoriesItem.getSubMenu() : null;
+    }
+
+    public void observe(@NonNull LifecycleOwner owner, @NonNull LiveData<List<CategoryCount>> categoryCounts) {
+        categoryCounts.observe(owner, this::render);
+    }
+
+    // Category name behind a drawer item, or null if the item isn't a category
+    @Nullable
+    public String getCategory(@NonNull MenuItem item) {
+        if (item.getGroupId() != R.id.nav_category_group) {
+            return null;
+        }
+        return categoriesByItemId.get(item.getItemId());
+    }
+
+    private void render(List<CategoryCount> counts) {
+        if (categoriesMenu == null) {
+            return;
+        }
+
+        // Key -> display name, defaults first in their usual order
+        Map<String, String> names = new LinkedHashMap<>();
+        for (String category : FoodCategory.getDefaultCategories()) {
+            names.put(FoodCategory.toCategoryKey(category), category);
+        }
+        Map<String, Integer> itemCounts = new HashMap<>();
+        if (counts != null) {
+            for (CategoryCount count : counts) {
+                if (count.categoryKey == null || count.categoryKey.isEmpty()) {
+                    continue;
+                }
+                names.putIfAbsent(count.categoryKey, count.category);
+                itemCounts.put(count.categoryKey, count.itemCount);
+            }
+        }
+
+        categoriesMenu.removeGroup(R.id.nav_category_group);
+        categoriesByItemId.clear();
+        int itemId = Menu.FIRST;
+        for (Map.Entry<String, String> entry : names.entrySet()) {
+            Integer count = itemCounts.get(entry.getKey());
+            String title = context.getString(R.string.drawer_category_count,
+                    entry.getValue(), count != null ? count : 0);
+            categoriesMenu.add(R.id.nav_category_group, itemId, Menu.NONE, title)
+                    .setIcon(android.R.drawable.ic_menu_sort_by_size)
+                    .setCheckable(true);
+            categoriesByItemId.put(itemId, entry.getValue());
+            itemId++;
+        }
+    }
+}
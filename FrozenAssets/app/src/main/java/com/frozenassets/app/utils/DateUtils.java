@@ -1,21 +1,34 @@
 package com.frozenassets.app.utils;
 
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.Date;
 
 public class DateUtils {
     public static final long TWO_WEEKS_IN_MILLIS = 14L * 24 * 60 * 60 * 1000; // 14 days
     public static final long TWO_MONTHS_IN_MILLIS = 60L * 24 * 60 * 60 * 1000; // 60 days
+    public static final int TWO_WEEKS_IN_DAYS = 14;
+    public static final int TWO_MONTHS_IN_DAYS = 60;
+
+    // Today's epoch day, recomputed only once the local day rolls over
+    private static volatile long cachedTodayEpochDay;
+    private static volatile long cachedTodayEndMillis;
 
     public static int getExpirationStatus(Date expirationDate) {
-        if (expirationDate == null) return 0;
+        return getExpirationStatus(toEpochDay(expirationDate));
+    }
 
-        long now = System.currentTimeMillis();
-        long timeUntilExpiration = expirationDate.getTime() - now;
+    public static int getExpirationStatus(Integer expirationEpochDay) {
+        if (expirationEpochDay == null) return 0;
+
+        long daysUntilExpiration = getDaysUntil(expirationEpochDay);
 
-        if (timeUntilExpiration <= TWO_WEEKS_IN_MILLIS) {
+        if (daysUntilExpiration <= TWO_WEEKS_IN_DAYS) {
             return 2; // Critical - Red
-        } else if (timeUntilExpiration <= TWO_MONTHS_IN_MILLIS) {
+        } else if (daysUntilExpiration <= TWO_MONTHS_IN_DAYS) {
             return 1; // Warning - Yellow
         } else {
             return 0; // Normal
@@ -27,4 +40,84 @@ public class DateUtils {
         calendar.add(Calendar.MONTH, 2);
         return calendar.getTime();
     }
-}
\ No newline at end of file
+
+    // Last epoch day (inclusive) that counts as "eat soon"
+    public static int getExpirationThresholdEpochDay() {
+        return (int) LocalDate.ofEpochDay(todayEpochDay()).plusMonths(2).toEpochDay();
+    }
+
+    // Days from today until the given epoch day; negative once it has passed
+    public static long getDaysUntil(Integer epochDay) {
+        if (epochDay == null) {
+            return Long.MAX_VALUE; // Treat null as never expires
+        }
+        return epochDay - todayEpochDay();
+    }
+
+    public static long todayEpochDay() {
+        long now = System.currentTimeMillis();
+        if (now >= cachedTodayEndMillis) {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate today = Instant.ofEpochMilli(now).atZone(zone).toLocalDate();
+            cachedTodayEpochDay = today.toEpochDay();
+            cachedTodayEndMillis = today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+        return cachedTodayEpochDay;
+    }
+
+    // Parses the yyyy-MM-dd dates used by import/export as local midnight. Unlike a
+    // shared SimpleDateFormat this is safe on any thread; returns null if unparseable.
+    public static Date parseIsoDate(String text) {
+        if (text == null) {
+            return null;
+        }
+        int[] parts = new int[3];
+        int part = 0;
+        int digits = 0;
+        for (int i = 0; i < text.length() && part < 3; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                parts[part] = parts[part] * 10 + (c - '0');
+                if (++digits > 4) return null;
+            } else if (c == '-' && digits > 0 && part < 2) {
+                part++;
+                digits = 0;
+            } else {
+                break; // Trailing text such as a time of day is ignored
+            }
+        }
+        if (part != 2 || digits == 0) {
+            return null;
+        }
+        try {
+            LocalDate date = LocalDate.of(parts[0], parts[1], parts[2]);
+            return new Date(date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    // yyyy-MM-dd in the local zone, the inverse of parseIsoDate
+    public static String formatIsoDate(Date date) {
+        if (date == null) {
+            return null;
+        }
+        return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate().toString();
+    }
+
+    // yyyy-MM-dd for a stored epoch day, skipping the time zone lookup
+    public static String formatEpochDay(Integer epochDay) {
+        return epochDay == null ? null : LocalDate.ofEpochDay(epochDay).toString();
+    }
+
+    // Local calendar day of a timestamp, matching the SQL backfill in MIGRATION_11_12
+    public static Integer toEpochDay(Date date) {
+        if (date == null) {
+            return null;
+        }
+        return (int) Instant.ofEpochMilli(date.getTime())
+                .atZone(ZoneId.systemDefault())
+                .toLocalDate()
+                .toEpochDay();
+    }
+}
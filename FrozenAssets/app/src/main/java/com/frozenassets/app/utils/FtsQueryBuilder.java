@@ -0,0 +1,41 @@
+package com.frozenassets.app.utils;
+
+import java.util.Locale;
+
+public class FtsQueryBuilder {
+
+    private FtsQueryBuilder() {}
+
+    // "chick bre" -> "chick* bre*": every term must match, each as a prefix
+    public static String prefixQuery(String userQuery) {
+        return build(userQuery, null);
+    }
+
+    // Same as prefixQuery but restricted to one FTS column, e.g. "name:chick* name:bre*"
+    public static String columnPrefixQuery(String column, String userQuery) {
+        return build(userQuery, column);
+    }
+
+    private static String build(String userQuery, String column) {
+        if (userQuery == null) {
+            return null;
+        }
+        // Lower-casing keeps words like "or"/"not" from being read as FTS operators,
+        // and splitting on anything but letters/digits strips quotes, '*', '-' and ':'
+        String[] terms = userQuery.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+        StringBuilder match = new StringBuilder();
+        for (String term : terms) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            if (column != null) {
+                match.append(column).append(':');
+            }
+            match.append(term).append('*');
+        }
+        return match.length() > 0 ? match.toString() : null;
+    }
+}
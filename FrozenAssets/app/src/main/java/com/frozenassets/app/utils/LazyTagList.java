@@ -0,0 +1,74 @@
+package com.frozenassets.app.utils;
+
+import androidx.annotation.NonNull;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+
+/**
+ * Tag list backed by the raw tags column text. The text is decoded into an
+ * ArrayList the first time the list is read, so cursor rows that never show
+ * their tags cost one small wrapper instead of a parsed list.
+ */
+public class LazyTagList extends AbstractList<String> {
+    private volatile String encoded;
+    private volatile ArrayList<String> decoded;
+
+    LazyTagList(@NonNull String encoded) {
+        this.encoded = encoded;
+    }
+
+    private ArrayList<String> tags() {
+        ArrayList<String> tags = decoded;
+        if (tags == null) {
+            synchronized (this) {
+                tags = decoded;
+                if (tags == null) {
+                    tags = ListConverter.decode(encoded);
+                    decoded = tags;
+                }
+            }
+        }
+        return tags;
+    }
+
+    // Column text that can be written back as-is, or null once the list was modified
+    // or came from the legacy JSON format
+    String getEncodedIfUnchanged() {
+        String value = encoded;
+        return value != null && ListConverter.isCurrentFormat(value) ? value : null;
+    }
+
+    @Override
+    public String get(int index) {
+        return tags().get(index);
+    }
+
+    @Override
+    public int size() {
+        return tags().size();
+    }
+
+    @Override
+    public String set(int index, String element) {
+        ArrayList<String> tags = tags();
+        encoded = null;
+        return tags.set(index, element);
+    }
+
+    @Override
+    public void add(int index, String element) {
+        ArrayList<String> tags = tags();
+        encoded = null;
+        modCount++;
+        tags.add(index, element);
+    }
+
+    @Override
+    public String remove(int index) {
+        ArrayList<String> tags = tags();
+        encoded = null;
+        modCount++;
+        return tags.remove(index);
+    }
+}
@@ -1,22 +1,45 @@
 package com.frozenassets.app.utils;
 
+import android.util.Log;
+
 import androidx.room.TypeConverter;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import java.lang.reflect.Type;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Room converter for the inventory_items.tags column.
+ *
+ * Tags are written as "|Raw|Meal Prep": every element is preceded by '|', and
+ * '|' or '\' inside a tag is escaped with '\'. An empty list is "". Rows
+ * written before this format hold a JSON array ("[\"Raw\",\"Meal Prep\"]");
+ * those are still read and get rewritten in the new format on their next save.
+ *
+ * Reading a row only wraps the column text in a {@link LazyTagList}; nothing is
+ * parsed until the list is actually used.
+ */
 public class ListConverter {
-    private static final Gson gson = new Gson();
-    private static final Type listType = new TypeToken<ArrayList<String>>(){}.getType();
+    private static final String TAG = "ListConverter";
+    static final char SEPARATOR = '|';
+    static final char ESCAPE = '\\';
 
     @TypeConverter
     public static String fromList(List<String> list) {
         if (list == null) {
             return null;
         }
-        return gson.toJson(list);
+        if (list instanceof LazyTagList) {
+            String encoded = ((LazyTagList) list).getEncodedIfUnchanged();
+            if (encoded != null) {
+                return encoded;
+            }
+        }
+        return encode(list);
     }
 
     @TypeConverter
@@ -24,6 +47,93 @@ public class ListConverter {
         if (value == null) {
             return null;
         }
-        return gson.fromJson(value, listType);
+        return new LazyTagList(value);
+    }
+
+    static String encode(List<String> list) {
+        StringBuilder out = new StringBuilder(list.size() * 8);
+        for (int i = 0; i < list.size(); i++) {
+            String tag = list.get(i);
+            out.append(SEPARATOR);
+            if (tag == null) {
+                continue; // no null marker in this format, stored as an empty tag
+            }
+            for (int j = 0; j < tag.length(); j++) {
+                char c = tag.charAt(j);
+                if (c == SEPARATOR || c == ESCAPE) {
+                    out.append(ESCAPE);
+                }
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    static boolean isCurrentFormat(String value) {
+        return value.isEmpty() || value.charAt(0) == SEPARATOR;
+    }
+
+    static ArrayList<String> decode(String value) {
+        if (isCurrentFormat(value)) {
+            return decodeDelimited(value);
+        }
+        return decodeLegacyJson(value);
+    }
+
+    private static ArrayList<String> decodeDelimited(String value) {
+        ArrayList<String> tags = new ArrayList<>();
+        StringBuilder current = null;
+        int start = 1;
+        int i = 1;
+        int length = value.length();
+        if (length == 0) {
+            return tags;
+        }
+        while (i < length) {
+            char c = value.charAt(i);
+            if (c == SEPARATOR) {
+                tags.add(current == null ? value.substring(start, i) : current.toString());
+                current = null;
+                start = ++i;
+            } else if (c == ESCAPE && i + 1 < length) {
+                // Only tags that contain escapes pay for a builder
+                if (current == null) {
+                    current = new StringBuilder(value.substring(start, i));
+                }
+                current.append(value.charAt(i + 1));
+                i += 2;
+            } else {
+                if (current != null) {
+                    current.append(c);
+                }
+                i++;
+            }
+        }
+        tags.add(current == null ? value.substring(start) : current.toString());
+        return tags;
+    }
+
+    // Streaming parse of the old Gson output, without reflection or a TypeToken
+    private static ArrayList<String> decodeLegacyJson(String value) {
+        ArrayList<String> tags = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(new StringReader(value))) {
+            if (reader.peek() == JsonToken.NULL) {
+                return tags;
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    tags.add(null);
+                } else {
+                    tags.add(reader.nextString());
+                }
+            }
+            reader.endArray();
+        } catch (IOException | IllegalStateException e) {
+            Log.w(TAG, "Unreadable tags value, treating as empty", e);
+            tags.clear();
+        }
+        return tags;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,101 @@
+package com.frozenassets.app.utils;
+
+import com.frozenassets.app.models.FoodCategory;
+import com.frozenassets.app.models.InventoryItem;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/**
+ * Content hash identifying "the same item" across imports: name, category, day
+ * frozen and weight, normalized so case, spacing and "1.50" vs "1.5" don't matter.
+ * Stored in inventory_items.natural_key; 128 bits of SHA-256 as hex.
+ */
+public final class NaturalKey {
+    private static final char SEPARATOR = '\u001f';
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<MessageDigest> DIGEST = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 unavailable", e);
+            }
+        }
+    };
+
+    private NaturalKey() {
+    }
+
+    public static String of(InventoryItem item) {
+        return of(item.getName(), item.getCategory(), item.getFrozenEpochDay(),
+                item.getWeight(), item.getWeightUnit());
+    }
+
+    public static String of(String name, String category, Integer frozenEpochDay,
+                            String weight, String weightUnit) {
+        StringBuilder canonical = new StringBuilder(64)
+                .append(normalizeText(name)).append(SEPARATOR)
+                .append(FoodCategory.toCategoryKey(category)).append(SEPARATOR)
+                .append(frozenEpochDay != null ? frozenEpochDay.toString() : "").append(SEPARATOR)
+                .append(normalizeWeight(weight)).append(SEPARATOR)
+                .append(normalizeText(weightUnit));
+
+        MessageDigest digest = DIGEST.get();
+        byte[] hash = digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+        char[] hex = new char[32];
+        for (int i = 0; i < 16; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    // Trimmed, lower-cased, runs of whitespace collapsed to one space
+    static String normalizeText(String value) {
+        if (value == null) {
+            return "";
+        }
+        String trimmed = value.trim();
+        // Same as replaceAll("\\s+", " ") without a regex; bulk merges hash every row.
+        // Most values need no change, so nothing is copied until a run has to collapse.
+        StringBuilder collapsed = null;
+        boolean previousSpace = false;
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            boolean space = isRegexSpace(c);
+            if (collapsed == null && space && (previousSpace || c != ' ')) {
+                collapsed = new StringBuilder(trimmed.length()).append(trimmed, 0, i);
+            }
+            if (collapsed != null && (!space || !previousSpace)) {
+                collapsed.append(space ? ' ' : c);
+            }
+            previousSpace = space;
+        }
+        return (collapsed != null ? collapsed.toString() : trimmed).toLowerCase(Locale.ROOT);
+    }
+
+    // The characters \s matches
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000b' || c == '\f' || c == '\r';
+    }
+
+    // Numeric weights compare by value; anything else falls back to text
+    static String normalizeWeight(String weight) {
+        String text = normalizeText(weight);
+        if (text.isEmpty()) {
+            return text;
+        }
+        try {
+            BigDecimal value = new BigDecimal(text.replace(',', '.'));
+            return value.signum() == 0 ? "0" : value.stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException e) {
+            return text;
+        }
+    }
+}
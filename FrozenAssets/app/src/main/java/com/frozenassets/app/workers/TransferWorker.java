@@ -0,0 +1,487 @@
+package com.frozenassets.app.workers;
+
+import android.app.AlarmManager;
+import android.app.Application;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.content.pm.ServiceInfo;
+import android.content.res.AssetFileDescriptor;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.provider.DocumentsContract;
+import android.provider.OpenableColumns;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.ForegroundInfo;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.OutOfQuotaPolicy;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.frozenassets.app.R;
+import com.frozenassets.app.activities.MainActivity;
+import com.frozenassets.app.database.DatabaseMerger;
+import com.frozenassets.app.importexport.CsvItemWriter;
+import com.frozenassets.app.importexport.ExportResult;
+import com.frozenassets.app.importexport.ImportResult;
+import com.frozenassets.app.importexport.ItemImporter;
+import com.frozenassets.app.importexport.ItemSink;
+import com.frozenassets.app.importexport.JsonItemWriter;
+import com.frozenassets.app.models.ImportCheckpoint;
+import com.frozenassets.app.repositories.ImportBatchWriter;
+import com.frozenassets.app.repositories.InventoryRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Runs one import or export (or a database backup or restore) outside any activity,
+ * as expedited work promoted to a dataSync foreground service, so a long transfer keeps
+ * going (at full speed) after the Settings screen is gone. Progress is published both as WorkInfo progress and
+ * as a determinate notification with a cancel action. Only one transfer runs at a time.
+ */
+public class TransferWorker extends Worker {
+    private static final String TAG = "TransferWorker";
+    public static final String UNIQUE_WORK_NAME = "import_export";
+
+    private static final String CHANNEL_ID = "transfers";
+    private static final int NOTIFICATION_ID = 1001;
+    private static final long PROGRESS_INTERVAL_MILLIS = 500;
+    private static final long RELAUNCH_DELAY_MILLIS = 500;
+    private static final String TRANSFER_STATE_PREFS = "transfer_state";
+    private static final String KEY_RESTORED_WORK_ID = "restored_work_id";
+
+    // Input
+    public static final String KEY_MODE = "mode";
+    public static final String KEY_URI = "uri";
+    public static final String KEY_FORMAT = "format";
+    public static final String KEY_DUPLICATE_POLICY = "duplicate_policy";
+    public static final String MODE_IMPORT = "import";
+    public static final String MODE_RESUME = "resume";
+    public static final String MODE_EXPORT = "export";
+    public static final String MODE_RESTORE = "restore";
+    public static final String MODE_MERGE = "merge";
+
+    // Progress
+    public static final String KEY_DONE = "done";
+    public static final String KEY_TOTAL = "total";
+
+    // Output
+    public static final String KEY_ROWS_WRITTEN = "rows_written";
+    public static final String KEY_ROWS_SKIPPED = "rows_skipped";
+    public static final String KEY_ROWS_DELETED = "rows_deleted";
+    public static final String KEY_DUPLICATES = "duplicates";
+    public static final String KEY_ROWS_EXPORTED = "rows_exported";
+    public static final String KEY_ROWS_PER_SECOND = "rows_per_second";
+    public static final String KEY_BYTES_WRITTEN = "bytes_written";
+    public static final String KEY_ERROR = "error";
+    public static final String KEY_RESUMABLE = "resumable";
+
+    private boolean foreground = false;
+    private long lastReportAt = 0;
+
+    public TransferWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    public static OneTimeWorkRequest importRequest(Uri uri, ImportBatchWriter.DuplicatePolicy duplicatePolicy) {
+        return request(MODE_IMPORT, new Data.Builder()
+                .putString(KEY_MODE, MODE_IMPORT)
+                .putString(KEY_URI, uri.toString())
+                .putString(KEY_DUPLICATE_POLICY, duplicatePolicy.name())
+                .build());
+    }
+
+    // The source and policy come from the stored checkpoint
+    public static OneTimeWorkRequest resumeRequest() {
+        return request(MODE_RESUME, new Data.Builder().putString(KEY_MODE, MODE_RESUME).build());
+    }
+
+    // format is one of "csv", "json", "zip", "changes", "fasnap" or "db" (a database backup)
+    public static OneTimeWorkRequest exportRequest(Uri uri, String format) {
+        return request(MODE_EXPORT, new Data.Builder()
+                .putString(KEY_MODE, MODE_EXPORT)
+                .putString(KEY_URI, uri.toString())
+                .putString(KEY_FORMAT, format)
+                .build());
+    }
+
+    // Merges another device's database file (e.g. a "db" export) into this one
+    public static OneTimeWorkRequest mergeRequest(Uri uri, ImportBatchWriter.DuplicatePolicy duplicatePolicy) {
+        return request(MODE_MERGE, new Data.Builder()
+                .putString(KEY_MODE, MODE_MERGE)
+                .putString(KEY_URI, uri.toString())
+                .putString(KEY_DUPLICATE_POLICY, duplicatePolicy.name())
+                .build());
+    }
+
+    // Replaces the whole database with a backup made by a "db" export
+    public static OneTimeWorkRequest restoreRequest(Uri uri) {
+        return request(MODE_RESTORE, new Data.Builder()
+                .putString(KEY_MODE, MODE_RESTORE)
+                .putString(KEY_URI, uri.toString())
+                .build());
+    }
+
+    // The mode is also a tag, so observers can tell imports from exports before any progress arrives
+    private static OneTimeWorkRequest request(String mode, Data input) {
+        return new OneTimeWorkRequest.Builder(TransferWorker.class)
+                .setInputData(input)
+                .addTag(mode)
+                .setExpedited(OutOfQuotaPolicy.RUN_AS_NON_EXPEDITED_WORK_REQUEST)
+                .build();
+    }
+
+    // Ignored while another transfer is queued or running
+    public static void enqueue(Context context, OneTimeWorkRequest request) {
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork(UNIQUE_WORK_NAME, ExistingWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String mode = getInputData().getString(KEY_MODE);
+        InventoryRepository repository = new InventoryRepository((Application) getApplicationContext());
+        startForeground();
+        try {
+            if (MODE_EXPORT.equals(mode)) {
+                return "db".equals(getInputData().getString(KEY_FORMAT))
+                        ? runBackup(repository) : runExport(repository);
+            }
+            if (MODE_RESTORE.equals(mode)) {
+                return runRestore(repository);
+            }
+            if (MODE_MERGE.equals(mode)) {
+                return runMerge(repository);
+            }
+            return runImport(repository, MODE_RESUME.equals(mode));
+        } catch (Exception e) {
+            if (isStopped()) {
+                Log.d(TAG, "Transfer cancelled");
+            } else {
+                Log.e(TAG, "Transfer failed", e);
+            }
+            return Result.failure(new Data.Builder()
+                    .putString(KEY_ERROR, String.valueOf(e.getMessage()))
+                    .putBoolean(KEY_RESUMABLE, (MODE_IMPORT.equals(mode) || MODE_RESUME.equals(mode))
+                            && hasCheckpoint(repository))
+                    .build());
+        }
+    }
+
+    private Result runImport(InventoryRepository repository, boolean resume) throws IOException {
+        ImportCheckpoint checkpoint;
+        if (resume) {
+            checkpoint = repository.loadImportCheckpoint();
+            if (checkpoint == null) {
+                throw new IOException("There is no interrupted import to resume");
+            }
+            Log.d(TAG, "Resuming import of " + checkpoint.getSourceUri() + " after batch "
+                    + checkpoint.getBatchNumber() + " (" + checkpoint.getRowsWritten() + " rows)");
+        } else {
+            checkpoint = new ImportCheckpoint(getInputData().getString(KEY_URI),
+                    getInputData().getString(KEY_DUPLICATE_POLICY));
+        }
+        Uri uri = Uri.parse(checkpoint.getSourceUri());
+        ContentResolver resolver = getApplicationContext().getContentResolver();
+        long size = querySize(resolver, uri);
+        long modifiedAt = queryLastModified(resolver, uri);
+        if (!resume) {
+            checkpoint.setSourceSize(size > 0 ? size : -1);
+            checkpoint.setSourceModifiedAt(modifiedAt);
+        } else if (hasChanged(checkpoint, size, modifiedAt)) {
+            // The saved offset points into the old contents; only a fresh import is safe
+            repository.discardImportCheckpoint();
+            throw new IOException("The file has changed since the import was interrupted; import it again");
+        }
+
+        try (ImportBatchWriter writer = repository.newImportWriter(
+                (batchNumber, batchRows, totalRows, elapsedMillis) -> {
+                    Log.d(TAG, "Import batch " + batchNumber + ": " + batchRows
+                        + " rows in " + elapsedMillis + " ms, " + totalRows + " total");
+                    // Also stops imports whose size is unknown, which never report byte progress
+                    if (isStopped()) {
+                        throw new CancellationException("Cancelled");
+                    }
+                })) {
+            // Snapshots and change bundles switch back to BY_ID themselves
+            writer.setDuplicatePolicy(ImportBatchWriter.DuplicatePolicy.valueOf(checkpoint.getDuplicatePolicy()));
+            writer.setCheckpoint(checkpoint);
+            ImportResult result;
+            try (InputStream raw = resolver.openInputStream(uri)) {
+                if (raw == null) {
+                    throw new IOException("Could not open " + uri);
+                }
+                result = resume
+                        ? ItemImporter.resumeStream(raw, checkpoint, writer, size, this::reportProgress)
+                        : ItemImporter.importStream(raw, writer, size, this::reportProgress);
+            }
+            writer.completeCheckpoint();
+            for (String problem : result.getProblems()) {
+                Log.w(TAG, problem);
+            }
+            return Result.success(new Data.Builder()
+                    .putLong(KEY_ROWS_WRITTEN, writer.getRowsWritten())
+                    .putLong(KEY_ROWS_SKIPPED, result.getRowsSkipped())
+                    .putLong(KEY_ROWS_DELETED, result.getRowsDeleted())
+                    .putLong(KEY_DUPLICATES, writer.getDuplicatesSkipped())
+                    .build());
+        }
+    }
+
+    private Result runExport(InventoryRepository repository) throws IOException {
+        Uri uri = Uri.parse(getInputData().getString(KEY_URI));
+        String format = getInputData().getString(KEY_FORMAT);
+        ContentResolver resolver = getApplicationContext().getContentResolver();
+        ExportResult result;
+        try (OutputStream out = resolver.openOutputStream(uri, "wt")) {
+            if (out == null) {
+                throw new IOException("Could not open " + uri);
+            }
+            if ("zip".equals(format)) {
+                result = repository.exportBundle(out, this::reportProgress);
+            } else if ("changes".equals(format)) {
+                result = repository.exportChanges(out, this::reportProgress);
+            } else if ("fasnap".equals(format)) {
+                result = repository.exportSnapshot(out, this::reportProgress);
+            } else {
+                ItemSink.Factory sink = "csv".equals(format) ? CsvItemWriter::new : JsonItemWriter::new;
+                result = repository.exportItems(out, sink, this::reportProgress);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (isStopped()) {
+                deletePartialFile(resolver, uri);
+            }
+            throw e;
+        }
+        Log.d(TAG, "Export finished: " + result);
+        return Result.success(new Data.Builder()
+                .putLong(KEY_ROWS_EXPORTED, result.getRowsExported())
+                .putLong(KEY_ROWS_PER_SECOND, result.getRowsPerSecond())
+                .build());
+    }
+
+    private Result runBackup(InventoryRepository repository) throws IOException {
+        Uri uri = Uri.parse(getInputData().getString(KEY_URI));
+        ContentResolver resolver = getApplicationContext().getContentResolver();
+        long bytes;
+        try (OutputStream out = resolver.openOutputStream(uri, "wt")) {
+            if (out == null) {
+                throw new IOException("Could not open " + uri);
+            }
+            bytes = repository.backupDatabase(out, this::reportProgress);
+        } catch (IOException | RuntimeException e) {
+            if (isStopped()) {
+                deletePartialFile(resolver, uri);
+            }
+            throw e;
+        }
+        return Result.success(new Data.Builder().putLong(KEY_BYTES_WRITTEN, bytes).build());
+    }
+
+    private Result runMerge(InventoryRepository repository) throws IOException {
+        Uri uri = Uri.parse(getInputData().getString(KEY_URI));
+        ImportBatchWriter.DuplicatePolicy policy =
+                ImportBatchWriter.DuplicatePolicy.valueOf(getInputData().getString(KEY_DUPLICATE_POLICY));
+        ContentResolver resolver = getApplicationContext().getContentResolver();
+        DatabaseMerger.Result result;
+        try (InputStream in = resolver.openInputStream(uri)) {
+            if (in == null) {
+                throw new IOException("Could not open " + uri);
+            }
+            result = repository.mergeDatabase(in, querySize(resolver, uri), policy, this::reportProgress);
+        }
+        return Result.success(new Data.Builder()
+                .putLong(KEY_ROWS_WRITTEN, result.rowsInserted + result.rowsUpdated)
+                .putLong(KEY_DUPLICATES, result.duplicatesSkipped)
+                .build());
+    }
+
+    // Once the file is swapped, every repository, PagingSource and LiveData in the process
+    // holds the closed database, so the process ends right there and relaunches on the backup
+    private Result runRestore(InventoryRepository repository) throws IOException {
+        SharedPreferences state = getApplicationContext()
+                .getSharedPreferences(TRANSFER_STATE_PREFS, Context.MODE_PRIVATE);
+        String workId = getId().toString();
+        if (workId.equals(state.getString(KEY_RESTORED_WORK_ID, null))) {
+            // WorkManager reruns work whose process died mid-run; this one did swap the file in
+            Log.d(TAG, "Restore " + workId + " already completed before the restart");
+            return Result.success();
+        }
+
+        Uri uri = Uri.parse(getInputData().getString(KEY_URI));
+        ContentResolver resolver = getApplicationContext().getContentResolver();
+        try (InputStream in = resolver.openInputStream(uri)) {
+            if (in == null) {
+                throw new IOException("Could not open " + uri);
+            }
+            repository.restoreDatabase(in, querySize(resolver, uri), this::reportProgress);
+        }
+        state.edit().putString(KEY_RESTORED_WORK_ID, workId).commit();
+        relaunchProcess();
+        return Result.success(); // Not reached
+    }
+
+    // The alarm outlives this process and opens MainActivity in a fresh one
+    private void relaunchProcess() {
+        Context context = getApplicationContext();
+        Intent intent = new Intent(context, MainActivity.class)
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        PendingIntent relaunch = PendingIntent.getActivity(context, 0, intent,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_CANCEL_CURRENT);
+        AlarmManager alarms = context.getSystemService(AlarmManager.class);
+        if (alarms != null) {
+            alarms.set(AlarmManager.ELAPSED_REALTIME, SystemClock.elapsedRealtime() + RELAUNCH_DELAY_MILLIS,
+                    relaunch);
+        }
+        Log.d(TAG, "Database restored; restarting the process");
+        Process.killProcess(Process.myPid());
+    }
+
+    // Called from the import/export loops; also where cancellation takes effect
+    private void reportProgress(long done, long total) throws IOException {
+        if (isStopped()) {
+            throw new InterruptedIOException("Cancelled");
+        }
+        long now = SystemClock.elapsedRealtime();
+        if (now - lastReportAt < PROGRESS_INTERVAL_MILLIS && done < total) {
+            return;
+        }
+        lastReportAt = now;
+        setProgressAsync(new Data.Builder().putLong(KEY_DONE, done).putLong(KEY_TOTAL, total).build());
+        if (foreground) {
+            setForegroundAsync(createForegroundInfo(done, total));
+        }
+    }
+
+    // May be refused (e.g. when the app is in the background on Android 12+); the
+    // work then still runs, just without the ongoing notification
+    private void startForeground() {
+        try {
+            setForegroundAsync(createForegroundInfo(0, 0)).get();
+            foreground = true;
+        } catch (ExecutionException | IllegalStateException e) {
+            Log.w(TAG, "Could not run transfer in the foreground", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Used by WorkManager when expedited work runs as a foreground service (before Android 12)
+    @NonNull
+    @Override
+    public ForegroundInfo getForegroundInfo() {
+        return createForegroundInfo(0, 0);
+    }
+
+    private ForegroundInfo createForegroundInfo(long done, long total) {
+        Context context = getApplicationContext();
+        createChannel(context);
+        String mode = getInputData().getString(KEY_MODE);
+        boolean export = MODE_EXPORT.equals(mode);
+        int title = MODE_RESTORE.equals(mode) ? R.string.transfer_restoring
+                : "db".equals(getInputData().getString(KEY_FORMAT)) ? R.string.transfer_backing_up
+                : export ? R.string.transfer_exporting : R.string.transfer_importing;
+        int percent = total > 0 ? (int) Math.min(100, done * 100 / total) : 0;
+        PendingIntent cancel = WorkManager.getInstance(context).createCancelPendingIntent(getId());
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(export ? android.R.drawable.stat_sys_upload : android.R.drawable.stat_sys_download)
+                .setContentTitle(context.getString(title))
+                .setProgress(100, percent, total <= 0)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .setSilent(true)
+                .addAction(android.R.drawable.ic_menu_close_clear_cancel, context.getString(R.string.cancel), cancel);
+        if (total > 0) {
+            builder.setContentText(context.getString(R.string.transfer_progress_percent, percent));
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return new ForegroundInfo(NOTIFICATION_ID, builder.build(), ServiceInfo.FOREGROUND_SERVICE_TYPE_DATA_SYNC);
+        }
+        return new ForegroundInfo(NOTIFICATION_ID, builder.build());
+    }
+
+    private static void createChannel(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationManager manager = context.getSystemService(NotificationManager.class);
+            if (manager != null && manager.getNotificationChannel(CHANNEL_ID) == null) {
+                manager.createNotificationChannel(new NotificationChannel(CHANNEL_ID,
+                        context.getString(R.string.transfer_channel_name), NotificationManager.IMPORTANCE_LOW));
+            }
+        }
+    }
+
+    // Size of the picked document, or 0 if the provider doesn't say
+    private static long querySize(ContentResolver resolver, Uri uri) {
+        try (Cursor cursor = resolver.query(uri, new String[] {OpenableColumns.SIZE}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Could not query size of " + uri, e);
+        }
+        try (AssetFileDescriptor fd = resolver.openAssetFileDescriptor(uri, "r")) {
+            return fd != null ? Math.max(0, fd.getLength()) : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    // Last-modified time of the picked document, or -1 if the provider doesn't say
+    private static long queryLastModified(ContentResolver resolver, Uri uri) {
+        try (Cursor cursor = resolver.query(uri, new String[] {DocumentsContract.Document.COLUMN_LAST_MODIFIED},
+                null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Could not query last-modified time of " + uri, e);
+        }
+        return -1;
+    }
+
+    // Only values known both then and now can tell; -1 means the provider didn't say
+    private static boolean hasChanged(ImportCheckpoint checkpoint, long size, long modifiedAt) {
+        return (checkpoint.getSourceSize() >= 0 && size > 0 && checkpoint.getSourceSize() != size)
+                || (checkpoint.getSourceModifiedAt() >= 0 && modifiedAt >= 0
+                        && checkpoint.getSourceModifiedAt() != modifiedAt);
+    }
+
+    private static boolean hasCheckpoint(InventoryRepository repository) {
+        try {
+            ImportCheckpoint checkpoint = repository.loadImportCheckpoint();
+            return checkpoint != null && checkpoint.hasProgress();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // A cancelled export would otherwise leave a truncated file behind
+    private static void deletePartialFile(ContentResolver resolver, Uri uri) {
+        try {
+            DocumentsContract.deleteDocument(resolver, uri);
+        } catch (Exception e) {
+            Log.w(TAG, "Could not delete partial export " + uri, e);
+        }
+    }
+}
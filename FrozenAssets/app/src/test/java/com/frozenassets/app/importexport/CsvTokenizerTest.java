@@ -0,0 +1,93 @@
+package com.frozenassets.app.importexport;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class CsvTokenizerTest {
+
+    @Test
+    public void readsQuotedFieldsAcrossLinesAndBufferRefills() throws IOException {
+        String csv = "Name,Notes\r\n"
+                + "\"Stew, beef\",\"line one\nline \"\"two\"\"\"\r\n"
+                + "Peas,plain\n";
+        // Tiny buffer so quotes and CRLF pairs straddle refills
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv), 3);
+
+        assertTrue(tokenizer.nextRecord());
+        assertEquals(1, tokenizer.getRecordLine());
+
+        assertTrue(tokenizer.nextRecord());
+        assertEquals(2, tokenizer.getFieldCount());
+        assertEquals("Stew, beef", tokenizer.getRaw(0));
+        assertEquals("line one\nline \"two\"", tokenizer.getRaw(1));
+        assertEquals(2, tokenizer.getRecordLine());
+
+        assertTrue(tokenizer.nextRecord());
+        assertEquals("Peas", tokenizer.getRaw(0));
+        assertEquals(4, tokenizer.getRecordLine());
+
+        assertFalse(tokenizer.nextRecord());
+    }
+
+    @Test
+    public void handlesBomBlankLinesAndMissingTrailingNewline() throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("\uFEFFa,b\n\n  c , d"));
+
+        assertTrue(tokenizer.nextRecord());
+        assertEquals("a", tokenizer.getRaw(0));
+
+        assertTrue(tokenizer.nextRecord());
+        assertTrue(tokenizer.isBlank());
+
+        assertTrue(tokenizer.nextRecord());
+        assertEquals("c", tokenizer.getTrimmed(0));
+        assertEquals("d", tokenizer.getTrimmed(1));
+        assertEquals("", tokenizer.getTrimmed(5));
+
+        assertFalse(tokenizer.nextRecord());
+    }
+
+    @Test
+    public void countsRawBytesOfInvalidUtf8() throws IOException {
+        // Accented letters in Latin-1, then a 4-byte emoji and a truncated 3-byte sequence
+        byte[] latin1 = "P\u00e2t\u00e9,1\n".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] utf8 = "Ice \uD83E\uDDCA,2\n".getBytes(StandardCharsets.UTF_8);
+        byte[] truncated = {'B', (byte) 0xe2, (byte) 0x82, ',', '3', '\n'};
+        ByteArrayInputStream in = new ByteArrayInputStream(concat(latin1, utf8, truncated));
+        CsvTokenizer tokenizer = new CsvTokenizer(new Utf8Reader(in, 4), 3);
+
+        assertTrue(tokenizer.nextRecord());
+        assertEquals("P\uFFFDt\uFFFD", tokenizer.getRaw(0));
+        assertEquals(latin1.length, tokenizer.getByteOffset());
+
+        assertTrue(tokenizer.nextRecord());
+        assertEquals("Ice \uD83E\uDDCA", tokenizer.getRaw(0));
+        assertEquals(latin1.length + utf8.length, tokenizer.getByteOffset());
+
+        assertTrue(tokenizer.nextRecord());
+        assertEquals("B\uFFFD\uFFFD", tokenizer.getRaw(0));
+        assertEquals(latin1.length + utf8.length + truncated.length, tokenizer.getByteOffset());
+
+        assertFalse(tokenizer.nextRecord());
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] joined = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, joined, offset, part.length);
+            offset += part.length;
+        }
+        return joined;
+    }
+}
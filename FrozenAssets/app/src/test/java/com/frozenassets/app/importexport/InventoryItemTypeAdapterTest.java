@@ -0,0 +1,82 @@
+package com.frozenassets.app.importexport;
+
+import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.models.Tag;
+import com.frozenassets.app.utils.DateUtils;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class InventoryItemTypeAdapterTest {
+    private final InventoryItemTypeAdapter adapter = new InventoryItemTypeAdapter();
+
+    @Test
+    public void roundTripsExportedFields() throws IOException {
+        InventoryItem item = new InventoryItem();
+        item.setId(7);
+        item.setName("Chili");
+        item.setCategory("Cooked Meals");
+        item.setQuantity(2);
+        item.setNotes("Spicy");
+        item.setDateFrozen(DateUtils.parseIsoDate("2024-01-05"));
+        item.setTags(Arrays.asList("Meal Prep", "Batch"));
+
+        String json = adapter.toJson(item);
+        assertFalse(json.contains("categoryKey"));
+        InventoryItem copy = adapter.fromJson(json);
+
+        assertEquals(7, copy.getId());
+        assertEquals("Chili", copy.getName());
+        assertEquals("cooked meals", copy.getCategoryKey());
+        assertEquals(2, copy.getQuantity());
+        assertEquals(item.getDateFrozen(), copy.getDateFrozen());
+        assertNull(copy.getExpirationDate());
+        assertEquals(item.getTags(), copy.getTags());
+    }
+
+    @Test
+    public void badElementLeavesReaderAtNextElement() throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(
+                "[{\"name\":\"A\",\"category\":\"Fish\",\"quantity\":{\"n\":[1]},\"notes\":\"x\"},"
+                        + "{\"name\":\"B\",\"category\":\"Fish\",\"dateFrozen\":\"soon\"},"
+                        + "{\"name\":\"C\",\"category\":\"Fish\",\"quantity\":\"3\"}]"));
+        reader.beginArray();
+
+        assertThrows(JsonSyntaxException.class, () -> adapter.read(reader));
+        assertThrows(JsonSyntaxException.class, () -> adapter.read(reader));
+        InventoryItem item = adapter.read(reader);
+        assertEquals("C", item.getName());
+        assertEquals(3, item.getQuantity());
+
+        reader.endArray();
+    }
+
+    @Test
+    public void sharedGsonUsesTheHandWrittenAdapters() throws IOException {
+        InventoryItem item = new InventoryItem();
+        item.setName("Peas");
+        item.setCategory("Vegetables");
+        item.setTags(Arrays.asList("Garden", "Bulk"));
+
+        String json = InventoryGson.get().toJson(item, InventoryItem.class);
+        assertEquals(adapter.toJson(item), json);
+        assertEquals(item.getTags(), InventoryGson.get().fromJson(json, InventoryItem.class).getTags());
+
+        List<String> tags = InventoryGson.tagListAdapter().fromJson("[\"Garden\",3,null,\"Bulk\"]");
+        assertEquals(Arrays.asList("Garden", "Bulk"), tags);
+
+        Tag tag = InventoryGson.tagAdapter().fromJson("{\"id\":4,\"name\":\"Garden\",\"isDefault\":true}");
+        assertEquals("Garden", tag.getName());
+        assertTrue(tag.isDefault());
+        assertEquals("{\"name\":\"Garden\",\"isDefault\":true}", InventoryGson.tagAdapter().toJson(tag));
+        assertNull(InventoryGson.tagAdapter().fromJson("{\"isDefault\":false}"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.frozenassets.app.importexport;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParallelCsvImporterTest {
+
+    private static List<CsvItemParser.Chunk> split(String csv, int targetSize) throws IOException {
+        CsvItemParser.ChunkSplitter splitter =
+                new CsvItemParser.ChunkSplitter(new StringReader(csv), targetSize);
+        List<CsvItemParser.Chunk> chunks = new ArrayList<>();
+        CsvItemParser.Chunk chunk;
+        while ((chunk = splitter.next()) != null) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    @Test
+    public void neverSplitsInsideQuotedLineBreaks() throws IOException {
+        String csv = "Name,Category,Quantity\r\n"
+                + "\"Soup\nwith\nlines\",Cooked Meals,1\r\n"
+                + "Peas,Vegetables,2\r\n"
+                + "\"Say \"\"hi\"\"\",Fish,3\n";
+        List<CsvItemParser.Chunk> chunks = split(csv, 1);
+
+        StringBuilder joined = new StringBuilder();
+        for (CsvItemParser.Chunk chunk : chunks) {
+            joined.append(chunk);
+        }
+        assertEquals(csv, joined.toString());
+        assertEquals(4, chunks.size());
+        assertEquals("\"Soup\nwith\nlines\",Cooked Meals,1\r\n", chunks.get(1).toString());
+        assertEquals(1, chunks.get(0).firstLine);
+        assertEquals(2, chunks.get(1).firstLine);
+        assertEquals(5, chunks.get(2).firstLine);
+        assertEquals(6, chunks.get(3).firstLine);
+    }
+
+    @Test
+    public void reportsProblemsWithFileLineNumbers() throws IOException {
+        String csv = "Name,Category,Quantity\n"
+                + "\"Soup\nwith lines\",Cooked Meals,1\n"
+                + "Peas,Vegetables,lots\n"
+                + "\n"
+                + ",Fish,1\n";
+        List<String> problems = new ArrayList<>();
+        int items = 0;
+        for (CsvItemParser.Chunk chunk : split(csv, 1)) {
+            CsvItemParser.ParsedChunk parsed = CsvItemParser.parse(chunk);
+            items += parsed.items.size();
+            problems.addAll(parsed.result.getProblems());
+        }
+        assertEquals(2, items);
+        assertEquals(2, problems.size());
+        assertTrue(problems.get(0).startsWith("Line 4: invalid quantity"));
+        assertTrue(problems.get(1).startsWith("Line 6: missing name"));
+    }
+
+    @Test
+    public void itemPositionsResumeAtTheNextRecord() throws IOException {
+        String csv = "Name,Category,Quantity\n"
+                + "Cr\u00e8me br\u00fbl\u00e9e,Desserts,1\n"
+                + "\"Soup\r\nwith lines\",Cooked Meals,2\r\n"
+                + "\uD83C\uDF53 Berries,Fruit,3\n"
+                + "Peas,Vegetables,4\n";
+        byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+        List<CsvItemParser.Chunk> chunks = split(csv, 1);
+        assertEquals(bytes.length - "Peas,Vegetables,4\n".length(), chunks.get(4).firstByteOffset);
+
+        CsvItemParser.ParsedChunk parsed = CsvItemParser.parse(chunks.get(2));
+        assertEquals(1, parsed.items.size());
+        long offset = parsed.byteOffsets[0];
+        String rest = new String(bytes, (int) offset, bytes.length - (int) offset, StandardCharsets.UTF_8);
+        assertTrue(rest.startsWith("\uD83C\uDF53 Berries"));
+
+        try (CsvTokenizer resumed = new CsvTokenizer(new StringReader(rest), 16, parsed.nextLines[0], offset)) {
+            assertTrue(resumed.nextRecord());
+            assertEquals(5, resumed.getRecordLine());
+            assertEquals("Fruit", resumed.getTrimmed(1));
+            assertTrue(resumed.nextRecord());
+            assertFalse(resumed.nextRecord());
+            assertEquals(bytes.length, resumed.getByteOffset());
+        }
+    }
+}
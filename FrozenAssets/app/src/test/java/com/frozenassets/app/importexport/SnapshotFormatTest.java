@@ -0,0 +1,104 @@
+package com.frozenassets.app.importexport;
+
+import com.frozenassets.app.models.InventoryItem;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SnapshotFormatTest {
+
+    private static InventoryItem item(int id, String name, String category) {
+        InventoryItem item = new InventoryItem();
+        item.setId(id);
+        item.setName(name);
+        item.setCategory(category);
+        item.setQuantity(1);
+        item.setMaxFreezeDays(90);
+        return item;
+    }
+
+    private static byte[] write(List<String> tags, InventoryItem... items) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SnapshotWriter writer = new SnapshotWriter(out, 14)) {
+            for (String tag : tags) {
+                writer.writeTag(tag, false);
+            }
+            for (InventoryItem item : items) {
+                writer.write(item);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void roundTripsEveryField() throws IOException {
+        InventoryItem full = item(3, "Chili \u00e9t\u00e9", "Cooked Meals");
+        full.setQuantity(-2);
+        full.setNotes("");
+        full.setDateFrozen(new Date(1704412800123L));
+        full.setExpirationDate(new Date(1712188800000L - 3_600_000L));
+        full.setTags(Arrays.asList("Meal Prep", "Batch"));
+        full.setWeight("1.5");
+        full.setWeightUnit("kg");
+        InventoryItem sparse = item(250, "Peas", "Vegetables");
+        sparse.setTags(new ArrayList<>());
+
+        SnapshotReader reader = new SnapshotReader(ByteBuffer.wrap(write(Arrays.asList("Batch"), full, sparse)));
+        reader.readHeader();
+        assertEquals(14, reader.getSchemaVersion());
+
+        List<String> tags = new ArrayList<>();
+        InventoryItem copy = reader.next(tags);
+        assertEquals(Arrays.asList("Batch"), tags);
+        assertEquals(3, copy.getId());
+        assertEquals(full.getName(), copy.getName());
+        assertEquals("cooked meals", copy.getCategoryKey());
+        assertEquals(-2, copy.getQuantity());
+        assertEquals("", copy.getNotes());
+        assertEquals(full.getDateFrozen(), copy.getDateFrozen());
+        assertEquals(full.getExpirationDate(), copy.getExpirationDate());
+        assertEquals(full.getFrozenEpochDay(), copy.getFrozenEpochDay());
+        assertEquals(full.getExpirationEpochDay(), copy.getExpirationEpochDay());
+        assertEquals(full.getTags(), copy.getTags());
+        assertEquals("1.5", copy.getWeight());
+        assertEquals("kg", copy.getWeightUnit());
+
+        copy = reader.next(tags);
+        assertEquals(250, copy.getId());
+        assertNull(copy.getNotes());
+        assertNull(copy.getDateFrozen());
+        assertNull(copy.getFrozenEpochDay());
+        assertTrue(copy.getTags().isEmpty());
+        assertNull(copy.getWeightUnit());
+
+        assertNull(reader.next(tags));
+    }
+
+    @Test
+    public void repeatedStringsAreStoredOnce() throws IOException {
+        InventoryItem[] items = new InventoryItem[100];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = item(i + 1, "Item", "Frozen Vegetables and Sides");
+        }
+        byte[] bytes = write(new ArrayList<>(), items);
+        String text = new String(bytes, "ISO-8859-1");
+        assertEquals(text.indexOf("Frozen Vegetables"), text.lastIndexOf("Frozen Vegetables"));
+    }
+
+    @Test
+    public void damagedSnapshotIsRejectedBeforeReading() throws IOException {
+        byte[] bytes = write(new ArrayList<>(), item(1, "Peas", "Vegetables"));
+        bytes[bytes.length / 2] ^= 0x10;
+        SnapshotReader reader = new SnapshotReader(ByteBuffer.wrap(bytes));
+        assertThrows(IOException.class, reader::readHeader);
+    }
+}
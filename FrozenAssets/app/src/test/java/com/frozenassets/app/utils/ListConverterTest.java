@@ -0,0 +1,47 @@
+package com.frozenassets.app.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ListConverterTest {
+
+    @Test
+    public void roundTripsTagsWithSeparatorsAndEscapes() {
+        List<String> tags = Arrays.asList("Raw", "Meal Prep", "a|b", "c\\d", "");
+        String encoded = ListConverter.fromList(tags);
+        assertEquals("|Raw|Meal Prep|a\\|b|c\\\\d|", encoded);
+        assertEquals(tags, ListConverter.toList(encoded));
+    }
+
+    @Test
+    public void emptyAndNullAreDistinct() {
+        assertEquals("", ListConverter.fromList(Collections.emptyList()));
+        assertTrue(ListConverter.toList("").isEmpty());
+        assertNull(ListConverter.fromList(null));
+        assertNull(ListConverter.toList(null));
+    }
+
+    @Test
+    public void readsLegacyJsonAndRewritesInNewFormat() {
+        List<String> tags = ListConverter.toList("[\"Raw\",\"Meal Prep\"]");
+        assertEquals(Arrays.asList("Raw", "Meal Prep"), tags);
+        assertEquals("|Raw|Meal Prep", ListConverter.fromList(tags));
+    }
+
+    @Test
+    public void unchangedListIsWrittenBackWithoutReencoding() {
+        String encoded = "|Raw|Cooked";
+        List<String> tags = ListConverter.toList(encoded);
+        assertSame(encoded, ListConverter.fromList(tags));
+
+        tags.add("Leftover");
+        assertEquals("|Raw|Cooked|Leftover", ListConverter.fromList(tags));
+        assertEquals(new ArrayList<>(tags), Arrays.asList("Raw", "Cooked", "Leftover"));
+    }
+}
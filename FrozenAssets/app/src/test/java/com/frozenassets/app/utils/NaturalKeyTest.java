@@ -0,0 +1,33 @@
+package com.frozenassets.app.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NaturalKeyTest {
+
+    @Test
+    public void ignoresCaseSpacingAndWeightFormatting() {
+        String key = NaturalKey.of("Ground Beef", "Beef", 19800, "1.5", "lbs");
+        assertEquals(key, NaturalKey.of("  ground   beef ", "BEEF ", 19800, "1.50", "LBS"));
+        assertEquals(32, key.length());
+    }
+
+    @Test
+    public void differsOnEachKeyField() {
+        String key = NaturalKey.of("Ground Beef", "Beef", 19800, "1.5", "lbs");
+        assertNotEquals(key, NaturalKey.of("Ground Pork", "Beef", 19800, "1.5", "lbs"));
+        assertNotEquals(key, NaturalKey.of("Ground Beef", "Pork", 19800, "1.5", "lbs"));
+        assertNotEquals(key, NaturalKey.of("Ground Beef", "Beef", 19801, "1.5", "lbs"));
+        assertNotEquals(key, NaturalKey.of("Ground Beef", "Beef", null, "1.5", "lbs"));
+        assertNotEquals(key, NaturalKey.of("Ground Beef", "Beef", 19800, "2", "lbs"));
+        assertNotEquals(key, NaturalKey.of("Ground Beef", "Beef", 19800, "1.5", "kg"));
+    }
+
+    @Test
+    public void nonNumericWeightsCompareAsText() {
+        assertEquals("0", NaturalKey.normalizeWeight("0.00"));
+        assertEquals("2 bags", NaturalKey.normalizeWeight(" 2  Bags"));
+        assertEquals("", NaturalKey.normalizeWeight(null));
+    }
+}
@@ -0,0 +1,60 @@
+plugins {
+    java
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// The export formats, category durations and natural keys are compiled straight from
+// the app's sources, so the tool can never drift from what the app reads and writes.
+// Only classes free of the Android runtime are listed; Room annotations on the models
+// are satisfied at compile time by room-common.
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include(
+                "android/util/Log.java",
+                "com/frozenassets/cli/**",
+                "com/frozenassets/app/importexport/CsvItemParser.java",
+                "com/frozenassets/app/importexport/CsvItemWriter.java",
+                "com/frozenassets/app/importexport/CsvTokenizer.java",
+                "com/frozenassets/app/importexport/ImportResult.java",
+                "com/frozenassets/app/importexport/InventoryGson.java",
+                "com/frozenassets/app/importexport/InventoryItemTypeAdapter.java",
+                "com/frozenassets/app/importexport/ItemSink.java",
+                "com/frozenassets/app/importexport/TagListTypeAdapter.java",
+                "com/frozenassets/app/importexport/TagTypeAdapter.java",
+                "com/frozenassets/app/importexport/Utf8Reader.java",
+                "com/frozenassets/app/models/FoodCategory.java",
+                "com/frozenassets/app/models/InventoryItem.java",
+                "com/frozenassets/app/models/Tag.java",
+                "com/frozenassets/app/utils/DateConverter.java",
+                "com/frozenassets/app/utils/DateUtils.java",
+                "com/frozenassets/app/utils/LazyTagList.java",
+                "com/frozenassets/app/utils/ListConverter.java",
+                "com/frozenassets/app/utils/NaturalKey.java"
+            )
+        }
+    }
+}
+
+application {
+    mainClass.set("com.frozenassets.cli.FrozenAssetsCli")
+    applicationName = "frozenassets"
+}
+
+dependencies {
+    implementation("com.google.code.gson:gson:2.10.1")
+
+    // Annotations only; nothing reads them at runtime
+    compileOnly("androidx.room:room-common:2.6.1")
+    compileOnly("androidx.annotation:annotation:1.7.1")
+    testCompileOnly("androidx.room:room-common:2.6.1")
+    testCompileOnly("androidx.annotation:annotation:1.7.1")
+
+    testImplementation(libs.junit)
+}
@@ -0,0 +1,37 @@
+package android.util;
+
+/**
+ * Stand-in for Android's Log, so app classes the command-line tool compiles in
+ * (ListConverter) link without the Android runtime. Warnings and errors go to
+ * stderr; debug output is dropped.
+ */
+public final class Log {
+    private Log() {
+    }
+
+    public static int d(String tag, String msg) {
+        return 0;
+    }
+
+    public static int w(String tag, String msg) {
+        return println("W", tag, msg, null);
+    }
+
+    public static int w(String tag, String msg, Throwable tr) {
+        return println("W", tag, msg, tr);
+    }
+
+    public static int e(String tag, String msg) {
+        return println("E", tag, msg, null);
+    }
+
+    public static int e(String tag, String msg, Throwable tr) {
+        return println("E", tag, msg, tr);
+    }
+
+    private static int println(String level, String tag, String msg, Throwable tr) {
+        String line = level + "/" + tag + ": " + msg + (tr != null ? " (" + tr + ")" : "");
+        System.err.println(line);
+        return line.length();
+    }
+}
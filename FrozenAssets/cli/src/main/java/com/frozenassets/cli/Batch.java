@@ -0,0 +1,60 @@
+package com.frozenassets.cli;
+
+import com.frozenassets.app.importexport.ImportResult;
+import com.frozenassets.app.models.InventoryItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One chunk of an input on its way through ItemPipeline: the items parsed from it,
+ * then whatever ItemProcessor derived from them on a worker thread. The items
+ * themselves are dropped once processed, so a queued batch only holds its output.
+ */
+final class Batch {
+    // Marks the end of an input in its queue
+    static final Batch END = new Batch(Collections.emptyList());
+
+    List<InventoryItem> items;
+    // Rows parsed; set when the items are processed and dropped
+    int size;
+    long rowsSkipped;
+    long problemCount;
+    List<String> problems = Collections.emptyList();
+
+    // Output rows back to back; row i is text[ends[i - 1], ends[i])
+    String text;
+    int[] ends;
+    // High and low halves of each row's natural key, when deduplicating
+    long[] keys;
+    // Items inside the report window, when reporting
+    List<ExpiringReport.Entry> expiring;
+
+    Batch(List<InventoryItem> items) {
+        this.items = items;
+    }
+
+    // A parsed CSV chunk, with the problems CsvItemParser found in it
+    static Batch of(List<InventoryItem> items, ImportResult result) {
+        Batch batch = new Batch(items);
+        batch.rowsSkipped = result.getRowsSkipped();
+        batch.problemCount = result.getProblemCount();
+        batch.problems = result.getProblems();
+        return batch;
+    }
+
+    // A JSON element that could not be read; counted like CsvItemParser counts a bad row
+    void skipped(String reason) {
+        rowsSkipped++;
+        problemCount++;
+        if (problems.isEmpty()) {
+            problems = new ArrayList<>();
+        }
+        problems.add(reason);
+    }
+
+    int rowStart(int i) {
+        return i == 0 ? 0 : ends[i - 1];
+    }
+}
@@ -0,0 +1,89 @@
+package com.frozenassets.cli;
+
+import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.utils.DateUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Items that expire on or before a cut-off day, already expired ones included,
+ * printed soonest first as tab-separated columns so the report can be read as is
+ * or fed to other tools.
+ */
+final class ExpiringReport {
+    static final String HEADER = "Expires\tDays Left\tName\tCategory\tQuantity\tWeight\tSource";
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingInt((Entry entry) -> entry.expirationEpochDay)
+            .thenComparing(entry -> entry.name, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(entry -> entry.category, String.CASE_INSENSITIVE_ORDER);
+
+    // Only what the report prints, so matching items can be let go while reading
+    static final class Entry {
+        // Position of the item in its batch
+        final int row;
+        final int expirationEpochDay;
+        final String name;
+        final String category;
+        final int quantity;
+        final String weight;
+        String source;
+
+        Entry(InventoryItem item, int row, int expirationEpochDay) {
+            this.row = row;
+            this.expirationEpochDay = expirationEpochDay;
+            this.name = item.getName();
+            this.category = item.getCategory();
+            this.quantity = item.getQuantity();
+            this.weight = item.getFormattedWeight();
+        }
+    }
+
+    private final long today;
+    private final List<Entry> entries = new ArrayList<>();
+
+    ExpiringReport(long today) {
+        this.today = today;
+    }
+
+    void add(Entry entry, String source) {
+        entry.source = source;
+        entries.add(entry);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    void print(Writer out) throws IOException {
+        Entry[] sorted = entries.toArray(new Entry[0]);
+        Arrays.parallelSort(sorted, ORDER);
+        out.write(HEADER);
+        out.write('\n');
+        StringBuilder line = new StringBuilder(128);
+        for (Entry entry : sorted) {
+            line.setLength(0);
+            line.append(DateUtils.formatEpochDay(entry.expirationEpochDay)).append('\t')
+                    .append(entry.expirationEpochDay - today).append('\t')
+                    .append(clean(entry.name)).append('\t')
+                    .append(clean(entry.category)).append('\t')
+                    .append(entry.quantity).append('\t')
+                    .append(clean(entry.weight)).append('\t')
+                    .append(clean(entry.source)).append('\n');
+            out.append(line);
+        }
+    }
+
+    // Keeps one item per line whatever its text contains
+    private static String clean(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
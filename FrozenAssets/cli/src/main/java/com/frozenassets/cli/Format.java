@@ -0,0 +1,25 @@
+package com.frozenassets.cli;
+
+import java.util.Locale;
+
+// The two item formats the app exports and imports
+enum Format {
+    CSV, JSON;
+
+    static Format parse(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown format '" + name + "', expected csv or json");
+        }
+    }
+
+    // By extension, ignoring a trailing .gz; anything unrecognised is written as CSV
+    static Format fromFileName(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".gz")) {
+            lower = lower.substring(0, lower.length() - 3);
+        }
+        return lower.endsWith(".json") ? JSON : CSV;
+    }
+}
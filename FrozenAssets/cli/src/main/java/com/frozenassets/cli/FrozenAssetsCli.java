@@ -0,0 +1,206 @@
+package com.frozenassets.cli;
+
+import com.frozenassets.app.importexport.CsvItemWriter;
+import com.frozenassets.app.models.FoodCategory;
+import com.frozenassets.app.utils.DateUtils;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command-line tool for working with the app's exports off the phone: converting
+ * between CSV and JSON, merging and deduplicating exports from several freezers,
+ * recomputing expirations from the category durations, and listing what expires
+ * soon. Reads exactly what the app's Settings screen exports and writes files the
+ * app imports, gzipped or not.
+ */
+public final class FrozenAssetsCli {
+    static final String USAGE = String.join("\n",
+            "Usage: frozenassets COMMAND [OPTIONS] INPUT...",
+            "",
+            "Inputs are CSV or JSON exports from the app, optionally gzipped.",
+            "",
+            "Commands:",
+            "  convert    Rewrite the inputs as one export (-o required)",
+            "  merge      Like convert, keeping only the first of items with the same",
+            "             name, category, day frozen and weight",
+            "  recompute  Like convert, filling in missing expiration dates from the",
+            "             category durations (--all replaces existing ones too)",
+            "  expiring   Print items expiring within --days, expired ones included",
+            "",
+            "Options:",
+            "  -o, --output FILE        Output file; .json writes JSON, .gz compresses, - is stdout",
+            "  --to csv|json            Output format, overriding the file name",
+            "  --dedupe                 Drop repeated items (implied by merge)",
+            "  --recompute              Fill in missing expiration dates (implied by recompute)",
+            "  --all, --recompute-all   Recompute every expiration date",
+            "  --duration CATEGORY=DAYS Storage time for a category, as set in the app",
+            "  --days N                 Report window for expiring (default "
+                    + DateUtils.TWO_WEEKS_IN_DAYS + ")",
+            "  --today yyyy-MM-dd       Day the report counts from (default today)",
+            "  --threads N              Worker threads (default: all cores)",
+            "");
+
+    private static final int MAX_PROBLEMS_SHOWN = 20;
+
+    private FrozenAssetsCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    // Exit codes: 0 on success, 1 if a file could not be read or written, 2 for a bad command line
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println("frozenassets: " + e.getMessage());
+            err.println();
+            err.print(USAGE);
+            return 2;
+        }
+        for (Map.Entry<String, Integer> duration : options.durations.entrySet()) {
+            FoodCategory.setDurationForCategory(duration.getKey(), duration.getValue());
+        }
+
+        try {
+            if (options.writesItems()) {
+                writeItems(options, out, err);
+            } else {
+                report(options, out, err);
+            }
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            err.println("frozenassets: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static void writeItems(Options options, PrintStream out, PrintStream err) throws IOException {
+        long start = System.nanoTime();
+        boolean json = options.outputFormat == Format.JSON;
+        KeySet seen = options.dedupe ? new KeySet() : null;
+        long[] written = {0};
+        long[] duplicates = {0};
+        ItemProcessor processor = new ItemProcessor(options.recompute, options.dedupe, options.outputFormat, null);
+
+        List<ItemPipeline.InputStats> stats;
+        String outputName;
+        try (OutputFile output = OutputFile.open(options.output, out);
+             ItemPipeline pipeline = new ItemPipeline(processor, options.threads, options.inputs.size())) {
+            Writer writer = output.writer;
+            writer.write(json ? "[" : CsvItemWriter.HEADER);
+            writer.write('\n');
+            stats = pipeline.run(options.inputs, (input, batch) -> {
+                for (int i = 0; i < batch.size; i++) {
+                    if (seen != null && !seen.add(batch.keys[i * 2], batch.keys[i * 2 + 1])) {
+                        duplicates[0]++;
+                        continue;
+                    }
+                    if (json && written[0] > 0) {
+                        writer.write(",\n");
+                    }
+                    int rowStart = batch.rowStart(i);
+                    writer.write(batch.text, rowStart, batch.ends[i] - rowStart);
+                    written[0]++;
+                }
+            });
+            if (json) {
+                writer.write(written[0] > 0 ? "\n]\n" : "]\n");
+            }
+            output.commit();
+            outputName = output.name();
+        }
+
+        StringBuilder summary = new StringBuilder()
+                .append("Wrote ").append(written[0]).append(" items to ").append(outputName);
+        if (seen != null) {
+            summary.append(", dropped ").append(duplicates[0]).append(" duplicates");
+        }
+        printSummary(err, summary, stats, start);
+    }
+
+    private static void report(Options options, PrintStream out, PrintStream err) throws IOException {
+        long start = System.nanoTime();
+        long today = options.today != null ? options.today.toEpochDay() : DateUtils.todayEpochDay();
+        int until = (int) (today + options.days);
+        KeySet seen = options.dedupe ? new KeySet() : null;
+        ExpiringReport report = new ExpiringReport(today);
+        long[] duplicates = {0};
+        ItemProcessor processor = new ItemProcessor(options.recompute, options.dedupe, null, until);
+
+        List<ItemPipeline.InputStats> stats;
+        try (ItemPipeline pipeline = new ItemPipeline(processor, options.threads, options.inputs.size())) {
+            stats = pipeline.run(options.inputs, (input, batch) -> {
+                // Entries are a subset of the rows in row order; a duplicate row's entry is dropped
+                int next = 0;
+                for (int i = 0; i < batch.size; i++) {
+                    boolean first = seen == null || seen.add(batch.keys[i * 2], batch.keys[i * 2 + 1]);
+                    if (!first) {
+                        duplicates[0]++;
+                    }
+                    if (next < batch.expiring.size() && batch.expiring.get(next).row == i) {
+                        if (first) {
+                            report.add(batch.expiring.get(next), input.name);
+                        }
+                        next++;
+                    }
+                }
+            });
+        }
+
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        report.print(writer);
+        writer.flush();
+
+        StringBuilder summary = new StringBuilder()
+                .append(report.size()).append(" items expire by ")
+                .append(DateUtils.formatEpochDay(until));
+        if (seen != null) {
+            summary.append(", dropped ").append(duplicates[0]).append(" duplicates");
+        }
+        printSummary(err, summary, stats, start);
+    }
+
+    private static void printSummary(PrintStream err, StringBuilder summary, List<ItemPipeline.InputStats> stats,
+                                     long start) {
+        long rows = 0;
+        long skipped = 0;
+        for (ItemPipeline.InputStats input : stats) {
+            rows += input.rowsRead;
+            skipped += input.rowsSkipped;
+        }
+        summary.append(" (read ").append(rows).append(" rows from ").append(stats.size())
+                .append(stats.size() == 1 ? " file" : " files");
+        if (skipped > 0) {
+            summary.append(", skipped ").append(skipped);
+        }
+        summary.append(String.format(Locale.ROOT, ", %.1f s)", (System.nanoTime() - start) / 1e9));
+        err.println(summary);
+
+        int shown = 0;
+        long hidden = 0;
+        for (ItemPipeline.InputStats input : stats) {
+            for (String problem : input.problems) {
+                if (shown < MAX_PROBLEMS_SHOWN) {
+                    err.println("  " + input.name + ": " + problem);
+                    shown++;
+                } else {
+                    hidden++;
+                }
+            }
+            hidden += input.problemCount - input.problems.size();
+        }
+        if (hidden > 0) {
+            err.println("  ... and " + hidden + " more problems");
+        }
+    }
+}
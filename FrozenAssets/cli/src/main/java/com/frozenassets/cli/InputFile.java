@@ -0,0 +1,84 @@
+package com.frozenassets.cli;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * An export opened for streaming. Gzip is recognised by its magic bytes and the
+ * format by the first character of the content: a JSON export is a top-level
+ * array, anything else is read as the app's CSV layout.
+ */
+final class InputFile implements Closeable {
+    private static final int BUFFER_SIZE = 256 * 1024;
+    // How far past a BOM and leading whitespace the format is looked for
+    private static final int SNIFF_LIMIT = 4096;
+
+    final Path path;
+    final Format format;
+    final Reader reader;
+
+    private InputFile(Path path, Format format, Reader reader) {
+        this.path = path;
+        this.format = format;
+        this.reader = reader;
+    }
+
+    static InputFile open(Path path) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+        try {
+            if (isGzip(in)) {
+                in = new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+            }
+            Format format = sniff(in);
+            return new InputFile(path, format, new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    String name() {
+        Path fileName = path.getFileName();
+        return fileName != null ? fileName.toString() : path.toString();
+    }
+
+    private static boolean isGzip(InputStream in) throws IOException {
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        return first == 0x1f && second == 0x8b;
+    }
+
+    private static Format sniff(InputStream in) throws IOException {
+        in.mark(SNIFF_LIMIT);
+        try {
+            for (int i = 0; i < SNIFF_LIMIT; i++) {
+                int b = in.read();
+                if (b == '[') {
+                    return Format.JSON;
+                }
+                // UTF-8 BOM bytes and whitespace come before the first real character
+                if (b != 0xef && b != 0xbb && b != 0xbf && b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                    return Format.CSV;
+                }
+            }
+            return Format.CSV;
+        } finally {
+            in.reset();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,196 @@
+package com.frozenassets.cli;
+
+import com.frozenassets.app.importexport.CsvItemParser;
+import com.frozenassets.app.importexport.InventoryGson;
+import com.frozenassets.app.models.InventoryItem;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams every input through an ItemProcessor on all cores and hands the results
+ * to one consumer in input order, so output and deduplication are deterministic.
+ *
+ * A few inputs are read at once, each on a reader thread that decompresses and
+ * decodes it. CSV is cut into chunks of whole records that the workers parse
+ * (the same split ParallelCsvImporter uses in the app); JSON has to be parsed in
+ * order, so its reader parses and the workers take over from there. Each input
+ * has a bounded queue of pending batches, which caps memory however large the
+ * files are and however far the readers get ahead of the consumer.
+ */
+final class ItemPipeline implements Closeable {
+    private static final TypeAdapter<InventoryItem> ITEM_ADAPTER = InventoryGson.itemAdapter();
+    private static final int JSON_BATCH_SIZE = 2048;
+
+    interface Consumer {
+        void accept(InputStats input, Batch batch) throws IOException;
+    }
+
+    // Per input, for the summary
+    static final class InputStats {
+        final String name;
+        long rowsRead;
+        long rowsSkipped;
+        long problemCount;
+        final List<String> problems = new ArrayList<>();
+
+        InputStats(String name) {
+            this.name = name;
+        }
+    }
+
+    private final ItemProcessor processor;
+    private final ForkJoinPool workers;
+    private final ExecutorService readers;
+    private final int queueDepth;
+
+    ItemPipeline(ItemProcessor processor, int threads, int inputCount) {
+        this.processor = processor;
+        this.workers = new ForkJoinPool(threads);
+        this.queueDepth = threads * 2;
+        AtomicInteger readerCount = new AtomicInteger();
+        this.readers = Executors.newFixedThreadPool(Math.max(1, Math.min(inputCount, Math.max(2, threads / 4))),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "reader-" + readerCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Blocks until every input has gone through consumer, or throws on the first failure
+    List<InputStats> run(List<Path> inputs, Consumer consumer) throws IOException {
+        List<BlockingQueue<Future<Batch>>> queues = new ArrayList<>();
+        for (Path input : inputs) {
+            BlockingQueue<Future<Batch>> queue = new ArrayBlockingQueue<>(queueDepth);
+            queues.add(queue);
+            // Readers start in input order, so the one being consumed is always running
+            readers.execute(() -> read(input, queue));
+        }
+
+        List<InputStats> stats = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            InputStats input = new InputStats(String.valueOf(inputs.get(i).getFileName()));
+            stats.add(input);
+            BlockingQueue<Future<Batch>> queue = queues.get(i);
+            Batch batch;
+            while ((batch = await(queue, inputs.get(i))) != Batch.END) {
+                input.rowsRead += batch.size + batch.rowsSkipped;
+                input.rowsSkipped += batch.rowsSkipped;
+                input.problemCount += batch.problemCount;
+                for (String problem : batch.problems) {
+                    if (input.problems.size() >= 20) {
+                        break;
+                    }
+                    input.problems.add(problem);
+                }
+                consumer.accept(input, batch);
+            }
+        }
+        return stats;
+    }
+
+    private void read(Path path, BlockingQueue<Future<Batch>> queue) {
+        try {
+            try (InputFile input = InputFile.open(path)) {
+                if (input.format == Format.JSON) {
+                    readJson(input, queue);
+                } else {
+                    readCsv(input, queue);
+                }
+            }
+            queue.put(CompletableFuture.completedFuture(Batch.END));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            CompletableFuture<Batch> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            try {
+                queue.put(failed);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void readCsv(InputFile input, BlockingQueue<Future<Batch>> queue)
+            throws IOException, InterruptedException {
+        CsvItemParser.ChunkSplitter splitter =
+                new CsvItemParser.ChunkSplitter(input.reader, CsvItemParser.DEFAULT_CHUNK_SIZE);
+        CsvItemParser.Chunk chunk;
+        while ((chunk = splitter.next()) != null) {
+            CsvItemParser.Chunk next = chunk;
+            queue.put(workers.submit(() -> {
+                CsvItemParser.ParsedChunk parsed = CsvItemParser.parse(next);
+                return processor.process(Batch.of(parsed.getItems(), parsed.getResult()));
+            }));
+        }
+    }
+
+    // Elements that don't map to an item are skipped and reported, as JsonItemImporter does
+    private void readJson(InputFile input, BlockingQueue<Future<Batch>> queue)
+            throws IOException, InterruptedException {
+        JsonReader json = new JsonReader(input.reader);
+        if (json.peek() != JsonToken.BEGIN_ARRAY) {
+            throw new IOException("Expected a JSON array of items but found " + json.peek());
+        }
+        json.beginArray();
+        Batch batch = new Batch(new ArrayList<>(JSON_BATCH_SIZE));
+        for (long index = 0; json.hasNext(); index++) {
+            try {
+                InventoryItem item = ITEM_ADAPTER.read(json);
+                if (item != null) {
+                    batch.items.add(item);
+                } else {
+                    batch.skipped("Element " + index + ": null");
+                }
+            } catch (JsonSyntaxException e) {
+                batch.skipped("Element " + index + ": " + e.getMessage());
+            }
+            if (batch.items.size() == JSON_BATCH_SIZE) {
+                submit(batch, queue);
+                batch = new Batch(new ArrayList<>(JSON_BATCH_SIZE));
+            }
+        }
+        json.endArray();
+        submit(batch, queue);
+    }
+
+    private void submit(Batch batch, BlockingQueue<Future<Batch>> queue) throws InterruptedException {
+        queue.put(workers.submit(() -> processor.process(batch)));
+    }
+
+    private static Batch await(BlockingQueue<Future<Batch>> queue, Path input) throws IOException {
+        try {
+            return queue.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted reading " + input);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new IOException(input + ": " + cause.getMessage(), cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        readers.shutdownNow();
+        workers.shutdownNow();
+    }
+}
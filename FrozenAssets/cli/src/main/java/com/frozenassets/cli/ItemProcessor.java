@@ -0,0 +1,96 @@
+package com.frozenassets.cli;
+
+import com.frozenassets.app.importexport.CsvItemWriter;
+import com.frozenassets.app.importexport.InventoryGson;
+import com.frozenassets.app.models.FoodCategory;
+import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.utils.NaturalKey;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The per-item work of a command, run on the worker pool one batch at a time:
+ * recomputing expirations, hashing natural keys and formatting output rows.
+ * Everything left for the single consuming thread is copying text and
+ * checking keys. Stateless, so any number of batches can run at once.
+ */
+final class ItemProcessor {
+    private static final TypeAdapter<InventoryItem> ITEM_ADAPTER = InventoryGson.itemAdapter();
+
+    private final Options.Recompute recompute;
+    private final boolean keys;
+    private final Format format;
+    private final boolean report;
+    private final int reportUntil;
+
+    ItemProcessor(Options.Recompute recompute, boolean keys, Format format, Integer reportUntil) {
+        this.recompute = recompute;
+        this.keys = keys;
+        this.format = format;
+        this.report = reportUntil != null;
+        this.reportUntil = report ? reportUntil : 0;
+    }
+
+    Batch process(Batch batch) throws IOException {
+        List<InventoryItem> items = batch.items;
+        if (recompute != Options.Recompute.NONE) {
+            for (InventoryItem item : items) {
+                recompute(item, recompute == Options.Recompute.ALL);
+            }
+        }
+        if (keys) {
+            batch.keys = new long[items.size() * 2];
+            for (int i = 0; i < items.size(); i++) {
+                String key = NaturalKey.of(items.get(i));
+                batch.keys[i * 2] = Long.parseUnsignedLong(key.substring(0, 16), 16);
+                batch.keys[i * 2 + 1] = Long.parseUnsignedLong(key.substring(16), 16);
+            }
+        }
+        if (format != null) {
+            format(batch, items);
+        }
+        if (report) {
+            batch.expiring = new ArrayList<>();
+            for (int i = 0; i < items.size(); i++) {
+                Integer day = items.get(i).getExpirationEpochDay();
+                if (day != null && day <= reportUntil) {
+                    batch.expiring.add(new ExpiringReport.Entry(items.get(i), i, day));
+                }
+            }
+        }
+        batch.size = items.size();
+        batch.items = null;
+        return batch;
+    }
+
+    // Same rule the app applies on insert; with force, existing expirations are replaced too
+    static void recompute(InventoryItem item, boolean force) {
+        if ((force || item.getExpirationDate() == null) && item.getDateFrozen() != null) {
+            item.setExpirationDate(FoodCategory.getDefaultExpiration(item.getDateFrozen(), item.getCategory()));
+        }
+    }
+
+    private void format(Batch batch, List<InventoryItem> items) throws IOException {
+        StringWriter text = new StringWriter(items.size() * 96);
+        int[] ends = new int[items.size()];
+        CsvItemWriter csv = format == Format.CSV ? new CsvItemWriter(text, false) : null;
+        for (int i = 0; i < items.size(); i++) {
+            if (csv != null) {
+                csv.write(items.get(i));
+            } else {
+                // One compact element per line; separators are added as rows are kept
+                JsonWriter json = new JsonWriter(text);
+                ITEM_ADAPTER.write(json, items.get(i));
+                json.flush();
+            }
+            ends[i] = text.getBuffer().length();
+        }
+        batch.text = text.toString();
+        batch.ends = ends;
+    }
+}
@@ -0,0 +1,85 @@
+package com.frozenassets.cli;
+
+/**
+ * Set of 128-bit natural keys held as pairs of longs in one open-addressed array.
+ * At 16 bytes a slot that is 27 to 53 bytes a key depending on load, against well
+ * over 100 for a HashSet of hex strings, so merges of hundreds of millions of rows
+ * still dedupe in memory. The keys are SHA-256 prefixes, so their low bits are
+ * already well mixed and index the table directly. Not thread-safe.
+ */
+final class KeySet {
+    private static final float MAX_LOAD = 0.6f;
+
+    // Slot i holds table[2i] (high half) and table[2i + 1] (low half); (0, 0) marks empty
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean hasZero;
+
+    KeySet() {
+        this(1 << 16);
+    }
+
+    KeySet(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+        table = new long[slots * 2];
+        mask = slots - 1;
+    }
+
+    // False if the key was already present
+    boolean add(long high, long low) {
+        if (high == 0 && low == 0) {
+            boolean added = !hasZero;
+            hasZero = true;
+            if (added) {
+                size++;
+            }
+            return added;
+        }
+        int slot = (int) low & mask;
+        while (true) {
+            long h = table[slot * 2];
+            long l = table[slot * 2 + 1];
+            if (h == 0 && l == 0) {
+                break;
+            }
+            if (h == high && l == low) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot * 2] = high;
+        table[slot * 2 + 1] = low;
+        if (++size > (mask + 1) * MAX_LOAD) {
+            grow();
+        }
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] old = table;
+        int slots = (mask + 1) * 2;
+        if (slots > (1 << 29)) {
+            throw new IllegalStateException("Too many distinct keys: " + size);
+        }
+        table = new long[slots * 2];
+        mask = slots - 1;
+        for (int i = 0; i < old.length; i += 2) {
+            long high = old[i];
+            long low = old[i + 1];
+            if (high == 0 && low == 0) {
+                continue;
+            }
+            int slot = (int) low & mask;
+            while (table[slot * 2] != 0 || table[slot * 2 + 1] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot * 2] = high;
+            table[slot * 2 + 1] = low;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.frozenassets.cli;
+
+import com.frozenassets.app.utils.DateUtils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parsed command line. Problems are reported as IllegalArgumentException with a
+ * message meant for the user, which FrozenAssetsCli prints above the usage text.
+ */
+final class Options {
+    enum Command { CONVERT, MERGE, RECOMPUTE, EXPIRING }
+
+    enum Recompute { NONE, MISSING, ALL }
+
+    // "-o -" writes to stdout
+    static final String STDOUT = "-";
+
+    final Command command;
+    final List<Path> inputs = new ArrayList<>();
+    String output;
+    Format outputFormat;
+    boolean dedupe;
+    Recompute recompute = Recompute.NONE;
+    int days = DateUtils.TWO_WEEKS_IN_DAYS;
+    LocalDate today;
+    int threads = Runtime.getRuntime().availableProcessors();
+    // Category name -> days, applied to FoodCategory before anything is read
+    final Map<String, Integer> durations = new LinkedHashMap<>();
+
+    private Options(Command command) {
+        this.command = command;
+    }
+
+    static Options parse(String[] args) {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("No command given");
+        }
+        Command command;
+        try {
+            command = Command.valueOf(args[0].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown command '" + args[0] + "'");
+        }
+        Options options = new Options(command);
+        if (command == Command.MERGE) {
+            options.dedupe = true;
+        } else if (command == Command.RECOMPUTE) {
+            options.recompute = Recompute.MISSING;
+        }
+
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-o":
+                case "--output":
+                    options.output = value(args, ++i, arg);
+                    break;
+                case "--to":
+                    options.outputFormat = Format.parse(value(args, ++i, arg));
+                    break;
+                case "--dedupe":
+                    options.dedupe = true;
+                    break;
+                case "--recompute":
+                    options.recompute = Recompute.MISSING;
+                    break;
+                case "--all":
+                case "--recompute-all":
+                    options.recompute = Recompute.ALL;
+                    break;
+                case "--days":
+                    options.days = intValue(args, ++i, arg, 0);
+                    break;
+                case "--today":
+                    String today = value(args, ++i, arg);
+                    try {
+                        options.today = LocalDate.parse(today);
+                    } catch (DateTimeParseException e) {
+                        throw new IllegalArgumentException("--today needs a yyyy-MM-dd date, not '" + today + "'");
+                    }
+                    break;
+                case "--threads":
+                    options.threads = intValue(args, ++i, arg, 1);
+                    break;
+                case "--duration":
+                    options.addDuration(value(args, ++i, arg));
+                    break;
+                default:
+                    if (arg.startsWith("-") && arg.length() > 1) {
+                        throw new IllegalArgumentException("Unknown option '" + arg + "'");
+                    }
+                    options.inputs.add(Paths.get(arg));
+            }
+        }
+
+        if (options.inputs.isEmpty()) {
+            throw new IllegalArgumentException("No input files given");
+        }
+        if (command == Command.EXPIRING) {
+            if (options.output != null) {
+                throw new IllegalArgumentException("expiring prints its report to stdout; -o is not supported");
+            }
+        } else if (options.output == null) {
+            throw new IllegalArgumentException(command.name().toLowerCase(Locale.ROOT) + " needs -o OUTPUT");
+        }
+        if (options.outputFormat == null && options.output != null) {
+            options.outputFormat = Format.fromFileName(options.output);
+        }
+        return options;
+    }
+
+    // Same as the app's settings screen: category names are matched exactly, days must be positive
+    private void addDuration(String spec) {
+        int equals = spec.lastIndexOf('=');
+        if (equals <= 0) {
+            throw new IllegalArgumentException("--duration needs CATEGORY=DAYS, not '" + spec + "'");
+        }
+        try {
+            int value = Integer.parseInt(spec.substring(equals + 1).trim());
+            if (value <= 0) {
+                throw new NumberFormatException();
+            }
+            durations.put(spec.substring(0, equals).trim(), value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--duration needs a positive number of days, not '" + spec + "'");
+        }
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return args[i];
+    }
+
+    private static int intValue(String[] args, int i, String option, int min) {
+        String text = value(args, i, option);
+        try {
+            int value = Integer.parseInt(text);
+            if (value >= min) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException(option + " needs a number of at least " + min + ", not '" + text + "'");
+    }
+
+    boolean writesItems() {
+        return command != Command.EXPIRING;
+    }
+}
@@ -0,0 +1,104 @@
+package com.frozenassets.cli;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Where converted items go. A file is written next to its destination and only
+ * moved over it by commit(), so a failed run never leaves half an export behind
+ * and an input can safely be rewritten in place. A name ending in .gz is
+ * compressed; "-" is stdout.
+ */
+final class OutputFile implements Closeable {
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    final Writer writer;
+    private final Path target;
+    private final Path temp;
+    private boolean committed;
+
+    private OutputFile(Writer writer, Path target, Path temp) {
+        this.writer = writer;
+        this.target = target;
+        this.temp = temp;
+    }
+
+    static OutputFile open(String name, OutputStream stdout) throws IOException {
+        if (Options.STDOUT.equals(name)) {
+            // Flushed, never closed
+            OutputStream unclosable = new FilterOutputStream(stdout) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    this.out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+            return new OutputFile(writer(unclosable), null, null);
+        }
+        Path target = Paths.get(name).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        OutputStream out = Files.newOutputStream(temp);
+        try {
+            if (name.toLowerCase(Locale.ROOT).endsWith(".gz")) {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            }
+            return new OutputFile(writer(out), target, temp);
+        } catch (IOException e) {
+            out.close();
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private static Writer writer(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    String name() {
+        return target != null ? target.toString() : "stdout";
+    }
+
+    void commit() throws IOException {
+        writer.close();
+        committed = true;
+        if (target == null) {
+            return;
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (committed) {
+            return;
+        }
+        try {
+            writer.close();
+        } finally {
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.frozenassets.cli;
+
+import com.frozenassets.app.importexport.CsvItemWriter;
+import com.frozenassets.app.importexport.InventoryGson;
+import com.frozenassets.app.models.InventoryItem;
+import com.frozenassets.app.utils.DateUtils;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class FrozenAssetsCliTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private int run(String... args) {
+        return FrozenAssetsCli.run(args, new PrintStream(out, true), new PrintStream(err, true));
+    }
+
+    private File write(String name, String text) throws IOException {
+        File file = folder.newFile(name);
+        try (OutputStream stream = name.endsWith(".gz")
+                ? new GZIPOutputStream(Files.newOutputStream(file.toPath()))
+                : Files.newOutputStream(file.toPath())) {
+            stream.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+
+    private static List<String> lines(File file) throws IOException {
+        return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void mergeDropsRepeatsAcrossFormats() throws IOException {
+        File csv = write("a.csv", CsvItemWriter.HEADER + "\n"
+                + "Chili,Cooked Meals,2,2024-01-05,,,Batch,1.50,kg,90\n"
+                + ",Fish,1\n"
+                + "Peas,Vegetables,1,2024-02-01\n");
+        File json = write("b.json.gz", "[{\"name\":\" chili \",\"category\":\"cooked meals\",\"quantity\":5,"
+                + "\"dateFrozen\":\"2024-01-05\",\"weight\":\"1.5\",\"weightUnit\":\"KG\"},"
+                + "{\"name\":\"Salmon\",\"category\":\"Fish\",\"quantity\":1,\"dateFrozen\":\"2024-03-01\"}]");
+        File merged = new File(folder.getRoot(), "merged.csv");
+
+        assertEquals(0, run("merge", "-o", merged.getPath(), csv.getPath(), json.getPath()));
+
+        List<String> rows = lines(merged);
+        assertEquals(CsvItemWriter.HEADER, rows.get(0));
+        assertEquals(4, rows.size());
+        assertTrue(rows.get(1).startsWith("Chili,Cooked Meals,2,2024-01-05"));
+        assertTrue(rows.get(2).startsWith("Peas,"));
+        assertTrue(rows.get(3).startsWith("Salmon,Fish,1,2024-03-01"));
+        String summary = err.toString("UTF-8");
+        assertTrue(summary, summary.contains("dropped 1 duplicates"));
+        assertTrue(summary, summary.contains("a.csv: Line 3: missing name"));
+    }
+
+    @Test
+    public void convertKeepsRowOrderAcrossChunks() throws IOException {
+        StringBuilder csv = new StringBuilder(CsvItemWriter.HEADER).append('\n');
+        for (int i = 0; i < 20000; i++) {
+            csv.append("Item ").append(i).append(",Other,1,2024-01-01,,\"note, with comma\",,,,90\n");
+        }
+        File input = write("big.csv", csv.toString());
+        File output = new File(folder.getRoot(), "big.csv.gz");
+
+        assertEquals(0, run("convert", "--threads", "4", "-o", output.getPath(), input.getPath()));
+        assertEquals(0, run("convert", "-o", new File(folder.getRoot(), "back.csv").getPath(), output.getPath()));
+
+        List<String> rows = lines(new File(folder.getRoot(), "back.csv"));
+        assertEquals(20001, rows.size());
+        for (int i = 0; i < 20000; i++) {
+            assertTrue(rows.get(i + 1).startsWith("Item " + i + ",Other,1,2024-01-01,,\"note, with comma\""));
+        }
+    }
+
+    @Test
+    public void recomputeFillsMissingExpirationsFromCategoryDurations() throws IOException {
+        File input = write("in.csv", CsvItemWriter.HEADER + "\n"
+                + "Steak,Beef,1,2024-01-01\n"
+                + "Cod,Fish,1,2024-01-01,2024-02-01\n");
+        File output = new File(folder.getRoot(), "out.json");
+
+        assertEquals(0, run("recompute", "-o", output.getPath(), input.getPath()));
+
+        List<InventoryItem> items = new ArrayList<>();
+        try (JsonReader json = new JsonReader(new StringReader(new String(
+                Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8)))) {
+            json.beginArray();
+            while (json.hasNext()) {
+                items.add(InventoryGson.itemAdapter().read(json));
+            }
+            json.endArray();
+        }
+        assertEquals(2, items.size());
+        // Beef keeps 365 days; 2024 is a leap year
+        assertEquals("2024-12-31", DateUtils.formatEpochDay(items.get(0).getExpirationEpochDay()));
+        assertEquals("2024-02-01", DateUtils.formatEpochDay(items.get(1).getExpirationEpochDay()));
+    }
+
+    @Test
+    public void expiringListsSoonestFirstIncludingExpired() throws IOException {
+        File input = write("in.csv", CsvItemWriter.HEADER + "\n"
+                + "Soup,Cooked Meals,1,2023-12-01,2024-03-10\n"
+                + "Peas,Vegetables,3,2023-06-01,2024-02-20\n"
+                + "Steak,Beef,1,2024-01-01,2024-05-01\n"
+                + "Bread,Other,1,2024-01-01\n");
+
+        assertEquals(0, run("expiring", "--days", "14", "--today", "2024-03-01", input.getPath()));
+
+        String[] report = out.toString("UTF-8").split("\n");
+        assertEquals(3, report.length);
+        assertEquals(ExpiringReport.HEADER, report[0]);
+        assertEquals("2024-02-20\t-10\tPeas\tVegetables\t3\t\tin.csv", report[1]);
+        assertEquals("2024-03-10\t9\tSoup\tCooked Meals\t1\t\tin.csv", report[2]);
+    }
+
+    @Test
+    public void badCommandLinePrintsUsage() throws IOException {
+        File input = write("in.csv", CsvItemWriter.HEADER + "\n");
+
+        assertEquals(2, run("convert", input.getPath()));
+        assertTrue(err.toString("UTF-8").contains("Usage: frozenassets"));
+        assertEquals(1, run("convert", "-o", new File(folder.getRoot(), "x.csv").getPath(),
+                new File(folder.getRoot(), "missing.csv").getPath()));
+        assertFalse(new File(folder.getRoot(), "x.csv").exists());
+    }
+}
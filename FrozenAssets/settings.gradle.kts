@@ -23,3 +23,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "FrozenAssets"
 include(":app")
+include(":cli")